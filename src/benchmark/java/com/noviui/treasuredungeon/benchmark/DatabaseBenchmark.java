@@ -0,0 +1,495 @@
+package com.noviui.treasuredungeon.benchmark;
+
+import com.noviui.treasuredungeon.database.DatabaseManager;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Drives the real DatabaseManager against an embedded H2 database running in MySQL and
+ * PostgreSQL compatibility modes and reports throughput and latency percentiles per workload.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:java -Dexec.args="--modes mysql,postgresql --threads 16 --duration 15"
+ * </pre>
+ *
+ * Options:
+ * <ul>
+ *   <li>--modes mysql,postgresql - compatibility modes to run</li>
+ *   <li>--threads N - concurrent callers (default 8)</li>
+ *   <li>--pool N - connection pool size (default threads + 2)</li>
+ *   <li>--warmup S / --duration S - seconds per workload (default 3 / 10)</li>
+ *   <li>--players N - seeded players (default 2000)</li>
+ *   <li>--party-sizes 1,2,4,8 - party sizes for the completion workloads</li>
+ *   <li>--cache - start the invalidation channel so the local caches are used</li>
+ *   <li>--persistent - use a file database under target/benchmark instead of memory</li>
+ * </ul>
+ *
+ * H2 does not implement every dialect feature. Each workload first runs every operation it
+ * issues once; a workload with a statement H2 rejects (such as PostgreSQL's ON CONFLICT ... DO
+ * UPDATE) is reported as skipped instead of measured. A measured workload that still logs
+ * errors is reported as failed without throughput, and the run exits with status 1.
+ */
+public final class DatabaseBenchmark {
+
+    private static final String[] SKILLS = {"mining", "woodcutting", "fishing", "excavation", "herbalism"};
+    private static final String[] STAT_TYPES = {"dungeons_completed", "total_damage", "bosses_killed"};
+    private static final String[] DUNGEON_TYPES = {"ancient_mine", "cursed_forest", "frozen_cavern", "desert_tomb"};
+
+    private final Options options;
+    private final Logger logger;
+    private final ErrorCounter errorCounter = new ErrorCounter();
+    private boolean failed = false;
+
+    private DatabaseBenchmark(Options options) {
+        this.options = options;
+        this.logger = Logger.getLogger("TreasureDungeon-Benchmark");
+        this.logger.setUseParentHandlers(false);
+        this.logger.addHandler(errorCounter);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        DatabaseBenchmark benchmark = new DatabaseBenchmark(options);
+        benchmark.run();
+        if (benchmark.failed) {
+            System.err.println("Some workloads logged errors; their results are not valid");
+            System.exit(1);
+        }
+    }
+
+    private void run() throws Exception {
+        System.out.printf(Locale.ROOT, "threads=%d pool=%d warmup=%ds duration=%ds players=%d cache=%s async-pool=%d%n",
+            options.threads, options.poolSize, options.warmupSeconds, options.durationSeconds,
+            options.players, options.cache, ForkJoinPool.commonPool().getParallelism());
+        System.out.printf(Locale.ROOT, "%-11s %-20s %10s %10s %9s %9s %9s %9s %7s%n",
+            "mode", "workload", "ops", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors");
+
+        for (DatabaseManager.DatabaseType type : options.modes) {
+            runMode(type);
+        }
+    }
+
+    private void runMode(DatabaseManager.DatabaseType type) throws Exception {
+        try (HikariDataSource dataSource = createDataSource(type)) {
+            DatabaseManager databaseManager = new DatabaseManager(logger, dataSource, type);
+            List<UUID> players = seed(databaseManager);
+
+            if (options.cache) {
+                databaseManager.startInvalidationChannel(1000L);
+            }
+
+            List<Workload> workloads = new ArrayList<>();
+            workloads.add(new Workload("cooldown-check", () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                databaseManager.isOnCooldown(randomPlayer(players, random), SKILLS[random.nextInt(SKILLS.length)]).join();
+            }));
+            for (int partySize : options.partySizes) {
+                workloads.add(new Workload("completion-party-" + partySize, () -> completeParty(databaseManager, players, partySize)));
+            }
+            workloads.add(new Workload("leaderboard-read", () -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                databaseManager.getLeaderboard(STAT_TYPES[random.nextInt(STAT_TYPES.length)], 10).join();
+            }));
+            Runnable cooldownCheck = workloads.get(0).operation;
+            Runnable leaderboardRead = workloads.get(workloads.size() - 1).operation;
+            workloads.add(new Workload("mixed", () -> {
+                // Roughly what a live server issues: mostly cooldown checks, some reads, few completions
+                int roll = ThreadLocalRandom.current().nextInt(100);
+                if (roll < 80) {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    databaseManager.isOnCooldown(randomPlayer(players, random), SKILLS[random.nextInt(SKILLS.length)]).join();
+                } else if (roll < 95) {
+                    databaseManager.getLeaderboard("dungeons_completed", 10).join();
+                } else {
+                    completeParty(databaseManager, players, 2);
+                }
+            }, cooldownCheck, leaderboardRead, () -> completeParty(databaseManager, players, 2)));
+
+            String mode = type.name().toLowerCase(Locale.ROOT);
+            for (Workload workload : workloads) {
+                String unsupported = probe(workload);
+                if (unsupported != null) {
+                    System.out.printf(Locale.ROOT, "%-11s %-20s skipped, H2 can't run this dialect: %s%n", mode, workload.name, unsupported);
+                    continue;
+                }
+
+                Result result = measure(workload);
+                if (!result.print(mode, workload.name)) {
+                    failed = true;
+                }
+            }
+
+            databaseManager.close();
+        }
+    }
+
+    private HikariDataSource createDataSource(DatabaseManager.DatabaseType type) {
+        String name = "td_" + type.name().toLowerCase(Locale.ROOT);
+        String location = options.persistent ? "./target/benchmark/" + name : "mem:" + name;
+        String mode = type == DatabaseManager.DatabaseType.MYSQL
+            ? "MODE=MySQL"
+            : "MODE=PostgreSQL;DEFAULT_NULL_ORDERING=HIGH";
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:" + location + ";" + mode + ";DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(options.poolSize);
+        config.setMinimumIdle(options.poolSize);
+        config.setPoolName("TreasureDungeon-Benchmark-" + type.name());
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Seeds players, cooldowns and statistics with plain inserts so seeding does not depend on dialect upserts
+     */
+    private List<UUID> seed(DatabaseManager databaseManager) throws SQLException {
+        List<UUID> players = new ArrayList<>(options.players);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DELETE FROM td_statistics");
+                stmt.execute("DELETE FROM td_cooldowns");
+                stmt.execute("DELETE FROM td_dungeon_completions");
+                stmt.execute("DELETE FROM td_players");
+            }
+
+            try (PreparedStatement playerStmt = connection.prepareStatement(
+                     "INSERT INTO td_players (uuid, username) VALUES (?, ?)");
+                 PreparedStatement cooldownStmt = connection.prepareStatement(
+                     "INSERT INTO td_cooldowns (player_uuid, skill, expires_at) VALUES (?, ?, ?)");
+                 PreparedStatement statStmt = connection.prepareStatement(
+                     "INSERT INTO td_statistics (player_uuid, stat_type, stat_value) VALUES (?, ?, ?)")) {
+
+                for (int i = 0; i < options.players; i++) {
+                    UUID playerId = UUID.randomUUID();
+                    players.add(playerId);
+
+                    playerStmt.setString(1, playerId.toString());
+                    playerStmt.setString(2, "player" + i);
+                    playerStmt.addBatch();
+
+                    // About half the players are on cooldown for each skill
+                    for (String skill : SKILLS) {
+                        long offset = random.nextLong(-3_600_000L, 3_600_000L);
+                        cooldownStmt.setString(1, playerId.toString());
+                        cooldownStmt.setString(2, skill);
+                        cooldownStmt.setTimestamp(3, new Timestamp(now + offset));
+                        cooldownStmt.addBatch();
+                    }
+
+                    for (String statType : STAT_TYPES) {
+                        statStmt.setString(1, playerId.toString());
+                        statStmt.setString(2, statType);
+                        statStmt.setLong(3, random.nextLong(0, 100_000));
+                        statStmt.addBatch();
+                    }
+                }
+
+                playerStmt.executeBatch();
+                cooldownStmt.executeBatch();
+                statStmt.executeBatch();
+            }
+
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+
+        return players;
+    }
+
+    private static void completeParty(DatabaseManager databaseManager, List<UUID> players, int partySize) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String dungeonType = DUNGEON_TYPES[random.nextInt(DUNGEON_TYPES.length)];
+        String skill = SKILLS[random.nextInt(SKILLS.length)];
+        int completionTime = random.nextInt(120, 1200);
+        boolean bossKilled = random.nextInt(4) != 0;
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[partySize];
+        for (int i = 0; i < partySize; i++) {
+            futures[i] = databaseManager.recordCompletion(randomPlayer(players, random), dungeonType, skill,
+                partySize, completionTime, random.nextLong(500, 50_000), bossKilled, "DIAMOND:3,EMERALD:5");
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    private static UUID randomPlayer(List<UUID> players, ThreadLocalRandom random) {
+        return players.get(random.nextInt(players.size()));
+    }
+
+    /**
+     * Runs each operation of the workload once; returns the first error logged, or null if all ran
+     */
+    private String probe(Workload workload) {
+        errorCounter.reset();
+        for (Runnable operation : workload.probes) {
+            try {
+                operation.run();
+            } catch (RuntimeException e) {
+                return e.getMessage();
+            }
+            if (errorCounter.getCount() > 0) {
+                return errorCounter.getFirstMessage();
+            }
+        }
+        return null;
+    }
+
+    private Result measure(Workload workload) throws Exception {
+        runFor(workload, options.warmupSeconds, null);
+
+        errorCounter.reset();
+        LatencyRecorder[] recorders = new LatencyRecorder[options.threads];
+        for (int i = 0; i < recorders.length; i++) {
+            recorders[i] = new LatencyRecorder();
+        }
+
+        long elapsedNanos = runFor(workload, options.durationSeconds, recorders);
+        return new Result(LatencyRecorder.merge(recorders), elapsedNanos, errorCounter.getCount(), errorCounter.getFirstMessage());
+    }
+
+    /**
+     * Runs the workload on all threads for the given time, recording latencies when recorders are passed
+     */
+    private long runFor(Workload workload, int seconds, LatencyRecorder[] recorders) throws Exception {
+        if (seconds <= 0) {
+            return 0L;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        long durationNanos = seconds * 1_000_000_000L;
+        for (int i = 0; i < options.threads; i++) {
+            LatencyRecorder recorder = recorders != null ? recorders[i] : null;
+            futures.add(executor.submit(() -> {
+                start.await();
+                long deadline = System.nanoTime() + durationNanos;
+                long now;
+                while ((now = System.nanoTime()) < deadline) {
+                    workload.operation.run();
+                    if (recorder != null) {
+                        recorder.record(System.nanoTime() - now);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        executor.shutdown();
+        return elapsed;
+    }
+
+    /**
+     * A named operation executed repeatedly by every benchmark thread, with the distinct
+     * operations it may issue, which are checked once before it is measured
+     */
+    private static class Workload {
+        private final String name;
+        private final Runnable operation;
+        private final Runnable[] probes;
+
+        private Workload(String name, Runnable operation, Runnable... probes) {
+            this.name = name;
+            this.operation = operation;
+            this.probes = probes.length > 0 ? probes : new Runnable[]{operation};
+        }
+    }
+
+    /**
+     * Aggregated numbers for one workload run
+     */
+    private static class Result {
+        private final long[] sortedLatencies;
+        private final long elapsedNanos;
+        private final long errors;
+        private final String firstError;
+
+        private Result(long[] sortedLatencies, long elapsedNanos, long errors, String firstError) {
+            this.sortedLatencies = sortedLatencies;
+            this.elapsedNanos = elapsedNanos;
+            this.errors = errors;
+            this.firstError = firstError;
+        }
+
+        private double percentileMillis(double percentile) {
+            return LatencyRecorder.percentile(sortedLatencies, percentile) / 1_000_000.0;
+        }
+
+        /**
+         * Prints the result row; returns false, printing no throughput, if operations failed
+         */
+        private boolean print(String mode, String workload) {
+            if (errors > 0) {
+                System.out.printf(Locale.ROOT, "%-11s %-20s FAILED, %d errors: %s%n", mode, workload, errors, firstError);
+                return false;
+            }
+
+            long ops = sortedLatencies.length;
+            double opsPerSecond = elapsedNanos > 0 ? ops * 1_000_000_000.0 / elapsedNanos : 0.0;
+
+            System.out.printf(Locale.ROOT, "%-11s %-20s %10d %10.0f %9.3f %9.3f %9.3f %9.3f %7d%n",
+                mode, workload, ops, opsPerSecond,
+                percentileMillis(0.50), percentileMillis(0.95), percentileMillis(0.99), percentileMillis(1.0), errors);
+            return true;
+        }
+    }
+
+    /**
+     * Counts warnings and errors logged by the code under test
+     */
+    private static class ErrorCounter extends Handler {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicReference<String> firstMessage = new AtomicReference<>();
+
+        @Override
+        public void publish(LogRecord record) {
+            if (record.getLevel().intValue() < Level.WARNING.intValue()) {
+                return;
+            }
+
+            count.incrementAndGet();
+            Throwable thrown = record.getThrown();
+            String message = record.getMessage() + (thrown != null ? ": " + thrown.getMessage() : "");
+            firstMessage.compareAndSet(null, message);
+        }
+
+        private void reset() {
+            count.set(0);
+            firstMessage.set(null);
+        }
+
+        private long getCount() {
+            return count.get();
+        }
+
+        private String getFirstMessage() {
+            return firstMessage.get();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Command line options
+     */
+    private static class Options {
+        private List<DatabaseManager.DatabaseType> modes = List.of(DatabaseManager.DatabaseType.MYSQL, DatabaseManager.DatabaseType.POSTGRESQL);
+        private int threads = 8;
+        private int poolSize = -1;
+        private int warmupSeconds = 3;
+        private int durationSeconds = 10;
+        private int players = 2000;
+        private int[] partySizes = {1, 2, 4, 8};
+        private boolean cache = false;
+        private boolean persistent = false;
+
+        private static Options parse(String[] args) {
+            Options options = new Options();
+
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--modes" -> options.modes = parseModes(value(args, ++i, arg));
+                    case "--threads" -> options.threads = positive(value(args, ++i, arg), arg);
+                    case "--pool" -> options.poolSize = positive(value(args, ++i, arg), arg);
+                    case "--warmup" -> options.warmupSeconds = Integer.parseInt(value(args, ++i, arg));
+                    case "--duration" -> options.durationSeconds = positive(value(args, ++i, arg), arg);
+                    case "--players" -> options.players = positive(value(args, ++i, arg), arg);
+                    case "--party-sizes" -> options.partySizes = Arrays.stream(value(args, ++i, arg).split(","))
+                        .mapToInt(size -> positive(size.trim(), arg)).toArray();
+                    case "--cache" -> options.cache = true;
+                    case "--persistent" -> options.persistent = true;
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+
+            if (options.poolSize < 0) {
+                options.poolSize = options.threads + 2;
+            }
+            return options;
+        }
+
+        private static List<DatabaseManager.DatabaseType> parseModes(String value) {
+            List<DatabaseManager.DatabaseType> modes = new ArrayList<>();
+            for (String mode : value.split(",")) {
+                switch (mode.trim().toLowerCase(Locale.ROOT)) {
+                    case "mysql" -> modes.add(DatabaseManager.DatabaseType.MYSQL);
+                    case "postgresql", "postgres" -> modes.add(DatabaseManager.DatabaseType.POSTGRESQL);
+                    default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+                }
+            }
+            return modes;
+        }
+
+        private static String value(String[] args, int index, String option) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            return args[index];
+        }
+
+        private static int positive(String value, String option) {
+            int parsed;
+            try {
+                parsed = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + option + ": " + value);
+            }
+            if (parsed <= 0) {
+                throw new IllegalArgumentException(option + " must be positive");
+            }
+            return parsed;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.noviui.treasuredungeon.benchmark;
+
+import com.noviui.treasuredungeon.utils.AliasTable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Checks that dungeon type selection follows the configured chances and compares its cost with the
+ * old per-call weight map. Runs are seeded, so the same arguments always print the same counts.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.main=com.noviui.treasuredungeon.benchmark.DungeonSelectionBenchmark \
+ *     -Dexec.args="--seed 7 --samples 5000000 --weights 30,25,20,15,10"
+ * </pre>
+ *
+ * Options: --seed N (42), --samples N (2000000), --weights W,W,... (the default config's chances).
+ * The chi-squared statistic should stay below the printed 99.9% critical value for a correct sampler.
+ */
+public final class DungeonSelectionBenchmark {
+
+    private long seed = 42L;
+    private int samples = 2_000_000;
+    private double[] weights = {30, 25, 20, 15, 10};
+
+    private long sink;
+
+    public static void main(String[] args) {
+        DungeonSelectionBenchmark benchmark = new DungeonSelectionBenchmark();
+        try {
+            benchmark.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        benchmark.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+
+            try {
+                switch (arg) {
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--samples" -> samples = Math.max(1, Integer.parseInt(value));
+                    case "--weights" -> {
+                        String[] parts = value.split(",");
+                        weights = new double[parts.length];
+                        for (int w = 0; w < parts.length; w++) {
+                            weights[w] = Double.parseDouble(parts[w].trim().replace("%", ""));
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+            }
+        }
+    }
+
+    private void run() {
+        List<String> types = new ArrayList<>(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            types.add("type" + (i + 1));
+        }
+        AliasTable<String> table = new AliasTable<>(types, weights);
+
+        System.out.printf(Locale.ROOT, "seed=%d samples=%d types=%d%n", seed, samples, types.size());
+
+        // Distribution
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] counts = new long[table.size()];
+        for (int i = 0; i < samples; i++) {
+            counts[table.sampleIndex(random)]++;
+        }
+
+        double chiSquared = 0.0;
+        int degrees = -1;
+        System.out.printf(Locale.ROOT, "%-10s %10s %10s %12s%n", "type", "expected", "observed", "count");
+        for (int i = 0; i < table.size(); i++) {
+            double expected = table.getShare(i) * samples;
+            if (expected > 0.0) {
+                chiSquared += (counts[i] - expected) * (counts[i] - expected) / expected;
+                degrees++;
+            }
+            System.out.printf(Locale.ROOT, "%-10s %9.3f%% %9.3f%% %12d%n",
+                table.get(i), table.getShare(i) * 100.0, counts[i] * 100.0 / samples, counts[i]);
+        }
+        System.out.printf(Locale.ROOT, "chi-squared=%.2f with %d degrees of freedom (99.9%% critical value %.2f)%n",
+            chiSquared, degrees, criticalValue(degrees));
+
+        // Cost per pick
+        for (int round = 0; round < 3; round++) {
+            long aliasNanos = time(() -> {
+                SplittableRandom r = new SplittableRandom(seed);
+                long sum = 0;
+                for (int i = 0; i < samples; i++) {
+                    sum += table.sampleIndex(r);
+                }
+                return sum;
+            });
+            long linearNanos = time(() -> {
+                SplittableRandom r = new SplittableRandom(seed);
+                long sum = 0;
+                for (int i = 0; i < samples; i++) {
+                    sum += linearPick(types, r).length();
+                }
+                return sum;
+            });
+            System.out.printf(Locale.ROOT, "round %d: alias %.1f ns/pick, weight map %.1f ns/pick%n",
+                round + 1, aliasNanos / (double) samples, linearNanos / (double) samples);
+        }
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+
+    /**
+     * Times one run; its result goes into the sink so the JIT can't drop the loop
+     */
+    private long time(LongSupplier work) {
+        long start = System.nanoTime();
+        sink += work.getAsLong();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The selection as it was before the alias table: a fresh weight map and a linear walk per pick
+     */
+    private String linearPick(List<String> types, SplittableRandom random) {
+        Map<String, Integer> weightMap = new LinkedHashMap<>();
+        int totalWeight = 0;
+        for (int i = 0; i < types.size(); i++) {
+            int weight = Math.max(1, (int) weights[i]);
+            weightMap.put(types.get(i), weight);
+            totalWeight += weight;
+        }
+
+        int randomValue = random.nextInt(totalWeight);
+        int currentWeight = 0;
+        for (Map.Entry<String, Integer> entry : weightMap.entrySet()) {
+            currentWeight += entry.getValue();
+            if (randomValue < currentWeight) {
+                return entry.getKey();
+            }
+        }
+        return types.get(0);
+    }
+
+    /**
+     * Wilson-Hilferty approximation of the chi-squared quantile at 99.9%
+     */
+    private static double criticalValue(int degrees) {
+        if (degrees <= 0) {
+            return 0.0;
+        }
+        double z = 3.090;
+        double term = 1.0 - 2.0 / (9.0 * degrees) + z * Math.sqrt(2.0 / (9.0 * degrees));
+        return degrees * term * term * term;
+    }
+}
@@ -0,0 +1,214 @@
+package com.noviui.treasuredungeon.benchmark;
+
+import com.noviui.treasuredungeon.database.DatabaseManager;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Two-instance check for the cross-server invalidation channel. Starts two DatabaseManagers
+ * with their own server ids and connection pools on one shared embedded H2 database, lets
+ * server B cache a value, changes it through server A and measures how long B takes to see
+ * the change. Without the channel B would keep serving its cached value.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.main=com.noviui.treasuredungeon.benchmark.InvalidationHarness \
+ *     -Dexec.args="--poll-interval 200 --rounds 20"
+ * </pre>
+ *
+ * Options: --poll-interval N ms (200), --rounds N (20), --timeout N ms (5000).
+ * Runs in H2's MySQL mode only: H2 rejects the PostgreSQL upserts the writes use.
+ * Exits with status 1 if a round times out or either server logs a warning.
+ */
+public final class InvalidationHarness {
+
+    private static final String SKILL = "mining";
+    private static final String STAT_TYPE = "dungeons_completed";
+
+    private long pollInterval = 200L;
+    private int rounds = 20;
+    private long timeout = 5000L;
+
+    private final ErrorCounter errors = new ErrorCounter();
+
+    public static void main(String[] args) {
+        InvalidationHarness harness = new InvalidationHarness();
+        try {
+            harness.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        boolean passed;
+        try {
+            passed = harness.run();
+        } catch (Exception e) {
+            e.printStackTrace();
+            passed = false;
+        }
+        System.out.println(passed ? "PASS" : "FAIL");
+        System.exit(passed ? 0 : 1);
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+
+            try {
+                switch (arg) {
+                    case "--poll-interval" -> pollInterval = Math.max(100L, Long.parseLong(value));
+                    case "--rounds" -> rounds = Math.max(1, Integer.parseInt(value));
+                    case "--timeout" -> timeout = Math.max(100L, Long.parseLong(value));
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+            }
+        }
+    }
+
+    private boolean run() {
+        Logger logger = Logger.getLogger("TreasureDungeon-InvalidationHarness");
+        logger.setUseParentHandlers(false);
+        logger.addHandler(errors);
+
+        try (HikariDataSource sourceA = createDataSource("A");
+             HikariDataSource sourceB = createDataSource("B")) {
+            DatabaseManager serverA = new DatabaseManager(logger, sourceA, DatabaseManager.DatabaseType.MYSQL);
+            DatabaseManager serverB = new DatabaseManager(logger, sourceB, DatabaseManager.DatabaseType.MYSQL);
+            serverA.startInvalidationChannel(pollInterval);
+            serverB.startInvalidationChannel(pollInterval);
+            System.out.printf(Locale.ROOT, "server A %s, server B %s, poll interval %d ms%n",
+                serverA.getServerId(), serverB.getServerId(), pollInterval);
+
+            boolean passed = true;
+            long worstMillis = 0L;
+            for (int round = 1; round <= rounds; round++) {
+                UUID playerId = UUID.randomUUID();
+
+                // B reads first, so it caches "no cooldown"
+                if (serverB.isOnCooldown(playerId, SKILL).join()) {
+                    System.out.println("round " + round + ": server B sees a cooldown before it was set");
+                    passed = false;
+                    continue;
+                }
+                serverA.saveCooldown(playerId, SKILL, Instant.now().plusSeconds(3600)).join();
+                long cooldownMillis = awaitChange(() -> serverB.isOnCooldown(playerId, SKILL).join());
+
+                // Same for the leaderboard, which B caches as a whole
+                long before = total(serverB.getLeaderboard(STAT_TYPE, 100).join());
+                serverA.recordCompletion(playerId, "ancient_mine", SKILL, 1, 300, 1000L, true, "").join();
+                long leaderboardMillis = awaitChange(() -> total(serverB.getLeaderboard(STAT_TYPE, 100).join()) > before);
+
+                if (cooldownMillis < 0 || leaderboardMillis < 0) {
+                    System.out.printf(Locale.ROOT, "round %d: server B did not see the change within %d ms (cooldown %s, leaderboard %s)%n",
+                        round, timeout, cooldownMillis < 0 ? "stale" : "ok", leaderboardMillis < 0 ? "stale" : "ok");
+                    passed = false;
+                } else {
+                    worstMillis = Math.max(worstMillis, Math.max(cooldownMillis, leaderboardMillis));
+                }
+            }
+
+            serverA.close();
+            serverB.close();
+
+            if (errors.getCount() > 0) {
+                System.out.println(errors.getCount() + " warnings logged, first: " + errors.getFirstMessage());
+                passed = false;
+            }
+            System.out.printf(Locale.ROOT, "%d rounds, slowest propagation %d ms%n", rounds, worstMillis);
+            return passed;
+        }
+    }
+
+    /**
+     * Polls until the condition holds; returns the milliseconds it took, or -1 on timeout
+     */
+    private long awaitChange(BooleanSupplier changed) {
+        long start = System.nanoTime();
+        long deadline = start + timeout * 1_000_000L;
+        while (System.nanoTime() < deadline) {
+            if (changed.getAsBoolean()) {
+                return (System.nanoTime() - start) / 1_000_000L;
+            }
+            try {
+                Thread.sleep(10L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1L;
+            }
+        }
+        return -1L;
+    }
+
+    private static long total(List<DatabaseManager.LeaderboardEntry> leaderboard) {
+        long total = 0L;
+        for (DatabaseManager.LeaderboardEntry entry : leaderboard) {
+            total += entry.getValue();
+        }
+        return total;
+    }
+
+    private static HikariDataSource createDataSource(String server) {
+        HikariConfig config = new HikariConfig();
+        // Both pools open the same named in-memory database, like two servers sharing MySQL
+        config.setJdbcUrl("jdbc:h2:mem:td_invalidation_harness;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        config.setUsername("sa");
+        config.setPassword("");
+        config.setMaximumPoolSize(4);
+        config.setPoolName("TreasureDungeon-Harness-" + server);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Counts warnings and errors logged by either server
+     */
+    private static final class ErrorCounter extends Handler {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicReference<String> firstMessage = new AtomicReference<>();
+
+        @Override
+        public void publish(LogRecord record) {
+            if (record.getLevel().intValue() < Level.WARNING.intValue()) {
+                return;
+            }
+
+            count.incrementAndGet();
+            Throwable thrown = record.getThrown();
+            firstMessage.compareAndSet(null, record.getMessage() + (thrown != null ? ": " + thrown.getMessage() : ""));
+        }
+
+        private long getCount() {
+            return count.get();
+        }
+
+        private String getFirstMessage() {
+            return firstMessage.get();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
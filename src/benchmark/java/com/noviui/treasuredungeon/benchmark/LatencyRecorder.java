@@ -0,0 +1,49 @@
+package com.noviui.treasuredungeon.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Per-thread latency samples in nanoseconds
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1 << 14];
+    private int size = 0;
+
+    void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    /**
+     * Combines the samples of all recorders into one sorted array
+     */
+    static long[] merge(LatencyRecorder[] recorders) {
+        int total = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.size;
+        }
+
+        long[] merged = new long[total];
+        int offset = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.samples, 0, merged, offset, recorder.size);
+            offset += recorder.size;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Nearest-rank percentile of a sorted sample array, in nanoseconds
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0L;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
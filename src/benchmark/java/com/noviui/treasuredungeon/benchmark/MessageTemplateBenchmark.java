@@ -0,0 +1,137 @@
+package com.noviui.treasuredungeon.benchmark;
+
+import com.noviui.treasuredungeon.config.MessageTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares compiled message templates against the previous LanguageManager path, which built a
+ * HashMap per message and ran String.replace once per entry. Messages are the colorized en.yml
+ * texts sent on every countdown tick, wave and boss kill.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.main=com.noviui.treasuredungeon.benchmark.MessageTemplateBenchmark \
+ *     -Dexec.args="-prof gc"
+ * </pre>
+ *
+ * Arguments are passed to JMH. Runs in-process unless -f is given, since exec:java has no
+ * classpath a forked JVM could reuse.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageTemplateBenchmark {
+
+    private static final String COUNTDOWN_TICK = "§e{seconds} seconds remaining...";
+    private static final String WAVE_STARTING = "§eWave {wave} is starting!";
+    private static final String DAMAGE_RANKING_ENTRY = "§e{position}. {player} §7- §c{damage} damage";
+    private static final String DIFFICULTY_SCALED =
+        "§6Difficulty: {difficulty} §7(Party: {party_size}, Mobs: x{mob_multiplier}, Boss: x{boss_multiplier})";
+
+    private final MessageTemplate countdownTick = MessageTemplate.compile(COUNTDOWN_TICK);
+    private final MessageTemplate waveStarting = MessageTemplate.compile(WAVE_STARTING);
+    private final MessageTemplate damageRankingEntry = MessageTemplate.compile(DAMAGE_RANKING_ENTRY);
+    private final MessageTemplate difficultyScaled = MessageTemplate.compile(DIFFICULTY_SCALED);
+
+    // Varied per invocation so neither path can be constant-folded
+    private int counter;
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(MessageTemplateBenchmark.class.getSimpleName());
+        }
+        if (!commandLine.getForkCount().hasValue()) {
+            options.forks(0);
+        }
+        new Runner(options.build()).run();
+    }
+
+    @Benchmark
+    public String countdownTickLegacy() {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("seconds", String.valueOf(next()));
+        return legacyFormat(COUNTDOWN_TICK, placeholders);
+    }
+
+    @Benchmark
+    public String countdownTickCompiled() {
+        return countdownTick.format("seconds", next());
+    }
+
+    @Benchmark
+    public String waveStartingLegacy() {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("wave", String.valueOf(next()));
+        placeholders.put("difficulty", "Hard");
+        return legacyFormat(WAVE_STARTING, placeholders);
+    }
+
+    @Benchmark
+    public String waveStartingCompiled() {
+        return waveStarting.format("wave", String.valueOf(next()), "difficulty", "Hard");
+    }
+
+    @Benchmark
+    public String damageRankingEntryLegacy() {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("position", "1");
+        placeholders.put("player", "Notch");
+        placeholders.put("damage", String.valueOf(next()));
+        return legacyFormat(DAMAGE_RANKING_ENTRY, placeholders);
+    }
+
+    @Benchmark
+    public String damageRankingEntryCompiled() {
+        return damageRankingEntry.format("position", "1", "player", "Notch", "damage", String.valueOf(next()));
+    }
+
+    @Benchmark
+    public String difficultyScaledLegacy() {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("party_size", String.valueOf(next()));
+        placeholders.put("difficulty", "Hard");
+        placeholders.put("mob_multiplier", "1.5");
+        placeholders.put("boss_multiplier", "2.0");
+        return legacyFormat(DIFFICULTY_SCALED, placeholders);
+    }
+
+    @Benchmark
+    public String difficultyScaledCompiled() {
+        return difficultyScaled.format("party_size", String.valueOf(next()), "difficulty", "Hard",
+            "mob_multiplier", "1.5", "boss_multiplier", "2.0");
+    }
+
+    private int next() {
+        return counter++ & 63;
+    }
+
+    /**
+     * The LanguageManager.getMessage(key, placeholders) implementation before templates were compiled
+     */
+    private static String legacyFormat(String message, Map<String, String> placeholders) {
+        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
+            message = message.replace("{" + entry.getKey() + "}", entry.getValue());
+        }
+        return message;
+    }
+}
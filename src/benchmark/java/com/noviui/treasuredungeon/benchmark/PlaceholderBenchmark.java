@@ -0,0 +1,247 @@
+package com.noviui.treasuredungeon.benchmark;
+
+import com.noviui.treasuredungeon.dungeon.GlobalStats;
+import com.noviui.treasuredungeon.placeholders.PlaceholderResolver;
+import com.noviui.treasuredungeon.placeholders.PlaceholderSnapshot;
+import com.noviui.treasuredungeon.placeholders.PlaceholderSnapshotCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Hammers placeholder resolution from many threads, the way scoreboard, tab and hologram plugins do,
+ * while a background thread keeps invalidating players to simulate cooldowns, maps and dungeons changing.
+ * The snapshot loader sleeps to stand in for the data.yml lock and JDBC round trips, which must never
+ * show up in request latency.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.main=com.noviui.treasuredungeon.benchmark.PlaceholderBenchmark \
+ *     -Dexec.args="--threads 32 --players 1000 --loader-delay 20"
+ * </pre>
+ *
+ * Options: --threads N (16), --players N (500), --warmup S (3), --duration S (10),
+ * --loader-delay MS (5), --invalidations-per-second N (200), --ttl MS (30000).
+ */
+public final class PlaceholderBenchmark {
+
+    private static final String[] SKILLS = {"mining", "woodcutting", "fishing", "excavation", "herbalism"};
+
+    private static final String[] PARAMS = {
+        "player_dungeons_completed", "player_total_damage", "player_active_dungeons",
+        "skill_mining_cooldown", "skill_fishing_has_map", "skill_woodcutting_active",
+        "skill_excavation_cooldown", "global_total_dungeons", "global_server_best_time", "leaderboard_total_damage_1_name"
+    };
+
+    private int threads = 16;
+    private int players = 500;
+    private int warmupSeconds = 3;
+    private int durationSeconds = 10;
+    private long loaderDelayMillis = 5;
+    private int invalidationsPerSecond = 200;
+    private long ttlMillis = 30_000;
+
+    private final AtomicLong loads = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        PlaceholderBenchmark benchmark = new PlaceholderBenchmark();
+        try {
+            benchmark.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        benchmark.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            long value;
+            try {
+                value = Long.parseLong(args[++i]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + args[i]);
+            }
+            if (value < 0) {
+                throw new IllegalArgumentException(arg + " must not be negative");
+            }
+
+            switch (arg) {
+                case "--threads" -> threads = (int) Math.max(1, value);
+                case "--players" -> players = (int) Math.max(1, value);
+                case "--warmup" -> warmupSeconds = (int) value;
+                case "--duration" -> durationSeconds = (int) Math.max(1, value);
+                case "--loader-delay" -> loaderDelayMillis = value;
+                case "--invalidations-per-second" -> invalidationsPerSecond = (int) value;
+                case "--ttl" -> ttlMillis = Math.max(1, value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+    }
+
+    private void run() throws Exception {
+        Logger logger = Logger.getLogger("TreasureDungeon-Benchmark");
+        PlaceholderSnapshotCache cache = new PlaceholderSnapshotCache(logger, this::loadSnapshot, ttlMillis);
+        PlaceholderResolver resolver = new PlaceholderResolver(cache, new GlobalStats());
+
+        List<UUID> playerIds = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            playerIds.add(UUID.randomUUID());
+        }
+
+        System.out.printf(Locale.ROOT, "threads=%d players=%d loader-delay=%dms invalidations/s=%d ttl=%dms%n",
+            threads, players, loaderDelayMillis, invalidationsPerSecond, ttlMillis);
+
+        ScheduledInvalidator invalidator = new ScheduledInvalidator(cache, playerIds, invalidationsPerSecond);
+        invalidator.start();
+        try {
+            runFor(resolver, playerIds, warmupSeconds, null);
+
+            long loadsBefore = loads.get();
+            LatencyRecorder[] recorders = new LatencyRecorder[threads];
+            for (int i = 0; i < threads; i++) {
+                recorders[i] = new LatencyRecorder();
+            }
+            long elapsedNanos = runFor(resolver, playerIds, durationSeconds, recorders);
+            long[] latencies = LatencyRecorder.merge(recorders);
+
+            double opsPerSecond = latencies.length * 1_000_000_000.0 / elapsedNanos;
+            System.out.printf(Locale.ROOT, "%-12s %12s %10s %10s %10s %10s %10s%n",
+                "workload", "ops/s", "p50 us", "p99 us", "p99.9 us", "max us", "loads");
+            System.out.printf(Locale.ROOT, "%-12s %12.0f %10.2f %10.2f %10.2f %10.2f %10d%n",
+                "on-request", opsPerSecond,
+                LatencyRecorder.percentile(latencies, 0.50) / 1000.0,
+                LatencyRecorder.percentile(latencies, 0.99) / 1000.0,
+                LatencyRecorder.percentile(latencies, 0.999) / 1000.0,
+                LatencyRecorder.percentile(latencies, 1.0) / 1000.0,
+                loads.get() - loadsBefore);
+        } finally {
+            invalidator.stop();
+            cache.shutdown();
+        }
+    }
+
+    private long runFor(PlaceholderResolver resolver, List<UUID> playerIds, int seconds, LatencyRecorder[] recorders) throws Exception {
+        if (seconds <= 0) {
+            return 0L;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        long durationNanos = seconds * 1_000_000_000L;
+
+        for (int i = 0; i < threads; i++) {
+            LatencyRecorder recorder = recorders != null ? recorders[i] : null;
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long deadline = System.nanoTime() + durationNanos;
+                long sink = 0;
+                long now;
+                while ((now = System.nanoTime()) < deadline) {
+                    UUID playerId = playerIds.get(random.nextInt(playerIds.size()));
+                    String value = resolver.resolve(playerId, PARAMS[random.nextInt(PARAMS.length)]);
+                    sink += value != null ? value.length() : 0;
+                    if (recorder != null) {
+                        recorder.record(System.nanoTime() - now);
+                    }
+                }
+                return sink;
+            }));
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        executor.shutdown();
+        return elapsed;
+    }
+
+    /**
+     * Synthetic snapshot loader standing in for data.yml and database reads
+     */
+    private PlaceholderSnapshot loadSnapshot(UUID playerId) {
+        loads.incrementAndGet();
+        if (loaderDelayMillis > 0) {
+            try {
+                Thread.sleep(loaderDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+
+        Map<String, PlaceholderSnapshot.SkillState> skills = new HashMap<>();
+        for (String skill : SKILLS) {
+            skills.put(skill, new PlaceholderSnapshot.SkillState(
+                now + random.nextLong(-3_600_000L, 3_600_000L), random.nextBoolean(), random.nextInt(10) == 0));
+        }
+
+        Map<String, Long> statistics = new HashMap<>();
+        statistics.put("dungeons_completed", random.nextLong(0, 500));
+        statistics.put("total_damage", random.nextLong(0, 1_000_000));
+        statistics.put("bosses_killed", random.nextLong(0, 200));
+
+        return new PlaceholderSnapshot(skills, statistics, now);
+    }
+
+    /**
+     * Invalidates random players at a fixed rate, like gameplay changing player state
+     */
+    private static class ScheduledInvalidator {
+        private final PlaceholderSnapshotCache cache;
+        private final List<UUID> playerIds;
+        private final int perSecond;
+        private ScheduledExecutorService executor;
+
+        private ScheduledInvalidator(PlaceholderSnapshotCache cache, List<UUID> playerIds, int perSecond) {
+            this.cache = cache;
+            this.playerIds = playerIds;
+            this.perSecond = perSecond;
+        }
+
+        private void start() {
+            if (perSecond <= 0) {
+                return;
+            }
+
+            executor = Executors.newSingleThreadScheduledExecutor();
+            long periodNanos = Math.max(1_000L, 1_000_000_000L / perSecond);
+            executor.scheduleAtFixedRate(() -> {
+                UUID playerId = playerIds.get(ThreadLocalRandom.current().nextInt(playerIds.size()));
+                cache.refresh(playerId);
+            }, 0L, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private void stop() {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.noviui.treasuredungeon.benchmark;
+
+import com.noviui.treasuredungeon.dungeon.ProximityEvaluator;
+import com.noviui.treasuredungeon.dungeon.ProximityIndex;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Measures the cost of one PlayerMoveEvent in the proximity listener with many players moving,
+ * comparing the current path (block filter, index miss, cached chunk candidates) with the old one
+ * (a YAML lookup under the data lock per configured skill, then a sqrt distance).
+ * Moves are a seeded mix of head turns, steps inside a block and steps across blocks.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.main=com.noviui.treasuredungeon.benchmark.ProximityBenchmark \
+ *     -Dexec.args="--players 200 --with-targets 50 --events 200"
+ * </pre>
+ *
+ * Options: --seed N (42), --players N (200), --with-targets N (50), --events N per player and round (200),
+ * --skills N configured skills (3), --rounds N (5).
+ */
+public final class ProximityBenchmark {
+
+    private static final String WORLD = "treasure_world";
+
+    private long seed = 42L;
+    private int players = 200;
+    private int withTargets = 50;
+    private int events = 200;
+    private int skills = 3;
+    private int rounds = 5;
+
+    private long sink;
+
+    public static void main(String[] args) {
+        ProximityBenchmark benchmark = new ProximityBenchmark();
+        try {
+            benchmark.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        benchmark.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+
+            try {
+                switch (arg) {
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--players" -> players = Math.max(1, Integer.parseInt(value));
+                    case "--with-targets" -> withTargets = Math.max(0, Integer.parseInt(value));
+                    case "--events" -> events = Math.max(1, Integer.parseInt(value));
+                    case "--skills" -> skills = Math.max(1, Integer.parseInt(value));
+                    case "--rounds" -> rounds = Math.max(1, Integer.parseInt(value));
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+            }
+        }
+        withTargets = Math.min(withTargets, players);
+    }
+
+    private void run() {
+        System.out.printf(Locale.ROOT, "seed=%d players=%d with-targets=%d events=%d skills=%d%n",
+            seed, players, withTargets, events, skills);
+
+        for (int round = 1; round <= rounds; round++) {
+            Move[] moves = generateMoves(new SplittableRandom(seed + round));
+
+            long oldNanos = timeOld(moves);
+            ProximityIndex index = buildIndex();
+            ProximityEvaluator evaluator = new ProximityEvaluator(index);
+            long newNanos = timeNew(moves, index, evaluator);
+
+            System.out.printf(Locale.ROOT,
+                "round %d: old %.1f ns/event, new %.1f ns/event, %d bucket lookups for %d events (%.1f%%)%n",
+                round, oldNanos / (double) moves.length, newNanos / (double) moves.length,
+                evaluator.getLookupCount(), moves.length, evaluator.getLookupCount() * 100.0 / moves.length);
+        }
+        System.out.println("with no active targets the listener is not registered, so events cost nothing");
+
+        if (sink == Long.MIN_VALUE) {
+            System.out.println(sink);
+        }
+    }
+
+    /**
+     * Every player walks from a random point towards their own target spot; the first
+     * with-targets players actually have one there. Events interleave players like a server tick.
+     */
+    private Move[] generateMoves(SplittableRandom random) {
+        UUID[] ids = playerIds();
+        double[][] position = new double[players][];
+        double[] heading = new double[players];
+        for (int p = 0; p < players; p++) {
+            double angle = random.nextDouble(Math.PI * 2);
+            double start = 40 + random.nextDouble(120);
+            position[p] = new double[]{
+                targetX(p) + Math.cos(angle) * start, 64, targetZ(p) + Math.sin(angle) * start};
+            heading[p] = angle + Math.PI;
+        }
+
+        Move[] moves = new Move[players * events];
+        int m = 0;
+        for (int e = 0; e < events; e++) {
+            for (int p = 0; p < players; p++) {
+                double[] from = position[p].clone();
+                double roll = random.nextDouble();
+                if (roll >= 0.4) {
+                    // Walking at about 0.2 blocks per event, drifting a little
+                    heading[p] += random.nextDouble(-0.2, 0.2);
+                    position[p][0] += Math.cos(heading[p]) * 0.22;
+                    position[p][2] += Math.sin(heading[p]) * 0.22;
+                }
+                moves[m++] = new Move(ids[p], from, position[p].clone());
+            }
+        }
+        return moves;
+    }
+
+    private long timeOld(Move[] moves) {
+        OldStore store = new OldStore();
+        UUID[] ids = playerIds();
+        for (int p = 0; p < withTargets; p++) {
+            store.setActive(ids[p], "skill0", targetX(p), 64, targetZ(p));
+        }
+
+        long start = System.nanoTime();
+        long hits = 0;
+        for (Move move : moves) {
+            hits += store.onMove(move, skills);
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += hits;
+        return elapsed;
+    }
+
+    private long timeNew(Move[] moves, ProximityIndex index, ProximityEvaluator evaluator) {
+        long[] hits = new long[1];
+        long start = System.nanoTime();
+        for (Move move : moves) {
+            double[] from = move.from;
+            double[] to = move.to;
+            if (Math.floor(from[0]) == Math.floor(to[0]) && Math.floor(from[1]) == Math.floor(to[1])
+                    && Math.floor(from[2]) == Math.floor(to[2])) {
+                continue;
+            }
+            if (!index.hasTargets(move.playerId)) {
+                continue;
+            }
+            evaluator.evaluate(move.playerId, WORLD, to[0], to[1], to[2], (target, stage) -> hits[0]++);
+        }
+        long elapsed = System.nanoTime() - start;
+        sink += hits[0];
+        return elapsed;
+    }
+
+    private ProximityIndex buildIndex() {
+        ProximityIndex index = new ProximityIndex();
+        UUID[] ids = playerIds();
+        for (int p = 0; p < withTargets; p++) {
+            index.put(ids[p], "skill0", WORLD, targetX(p), 64, targetZ(p));
+        }
+        return index;
+    }
+
+    private UUID[] playerIds() {
+        UUID[] ids = new UUID[players];
+        for (int p = 0; p < players; p++) {
+            ids[p] = new UUID(seed, p);
+        }
+        return ids;
+    }
+
+    // Targets sit on a grid 400 blocks apart so rings don't overlap
+    private static int targetX(int player) {
+        return (player % 20) * 400 - 4000;
+    }
+
+    private static int targetZ(int player) {
+        return (player / 20) * 400 - 4000;
+    }
+
+    private static final class Move {
+        private final UUID playerId;
+        private final double[] from;
+        private final double[] to;
+
+        private Move(UUID playerId, double[] from, double[] to) {
+            this.playerId = playerId;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * The lookups the listener did before the index: data.yml paths read under the data lock
+     */
+    private static final class OldStore {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Object> values = new HashMap<>();
+        private final Map<UUID, Boolean> notified = new HashMap<>();
+
+        void setActive(UUID playerId, String skill, int x, int y, int z) {
+            String basePath = "players." + playerId + "." + skill + ".active-dungeon";
+            values.put(basePath + ".status", "in-progress");
+            values.put(basePath + ".coords.x", x);
+            values.put(basePath + ".coords.y", y);
+            values.put(basePath + ".coords.z", z);
+        }
+
+        int onMove(Move move, int skills) {
+            int hits = 0;
+            for (int s = 0; s < skills; s++) {
+                String skill = "skill" + s;
+                if (!"in-progress".equals(read("players." + move.playerId + "." + skill + ".active-dungeon.status"))) {
+                    continue;
+                }
+
+                String basePath = "players." + move.playerId + "." + skill + ".active-dungeon.coords";
+                int x = (Integer) read(basePath + ".x");
+                int y = (Integer) read(basePath + ".y");
+                int z = (Integer) read(basePath + ".z");
+                double[] target = {x, y, z};
+
+                double dx = move.to[0] - target[0];
+                double dy = move.to[1] - target[1];
+                double dz = move.to[2] - target[2];
+                double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                if (distance <= 50 && notified.putIfAbsent(move.playerId, Boolean.TRUE) == null) {
+                    hits++;
+                }
+            }
+            return hits;
+        }
+
+        private Object read(String path) {
+            lock.readLock().lock();
+            try {
+                return values.get(path);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
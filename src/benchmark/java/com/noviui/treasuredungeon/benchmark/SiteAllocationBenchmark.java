@@ -0,0 +1,129 @@
+package com.noviui.treasuredungeon.benchmark;
+
+import com.noviui.treasuredungeon.utils.SiteGrid;
+import com.noviui.treasuredungeon.utils.SitePool;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Fills the configured area with dungeon sites until allocation fails, once with the old random
+ * rejection sampling (50 attempts per map) and once from the Poisson-disk site pool, and reports
+ * how many dungeons fit and what one map use costs; pool generation is timed apart, since the
+ * plugin runs it in the background. Both check conflicts against a SiteGrid.
+ *
+ * <pre>
+ * mvn -Pbenchmark compile exec:java -Dbenchmark.main=com.noviui.treasuredungeon.benchmark.SiteAllocationBenchmark \
+ *     -Dexec.args="--size 10000 --min-distance 500"
+ * </pre>
+ *
+ * Options: --seed N (42), --size N blocks per side (10000), --min-distance N (500), --rounds N (5).
+ */
+public final class SiteAllocationBenchmark {
+
+    private static final String WORLD = "treasure_world";
+    private static final int MAX_LOCATION_ATTEMPTS = 50;
+    private static final int SITE_POOL_SIZE = 32;
+
+    private long seed = 42L;
+    private int size = 10000;
+    private int minDistance = 500;
+    private int rounds = 5;
+
+    public static void main(String[] args) {
+        SiteAllocationBenchmark benchmark = new SiteAllocationBenchmark();
+        try {
+            benchmark.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        benchmark.run();
+    }
+
+    private void parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            String value = args[++i];
+
+            try {
+                switch (arg) {
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--size" -> size = Math.max(2, Integer.parseInt(value));
+                    case "--min-distance" -> minDistance = Math.max(1, Integer.parseInt(value));
+                    case "--rounds" -> rounds = Math.max(1, Integer.parseInt(value));
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+            }
+        }
+    }
+
+    private void run() {
+        System.out.printf(Locale.ROOT, "seed=%d size=%d min-distance=%d%n", seed, size, minDistance);
+
+        int half = size / 2;
+        for (int round = 1; round <= rounds; round++) {
+            long roundSeed = seed + round;
+
+            SiteGrid randomGrid = new SiteGrid(minDistance);
+            SplittableRandom random = new SplittableRandom(roundSeed);
+            long start = System.nanoTime();
+            int randomSites = 0;
+            long randomAttempts = 0;
+            fill:
+            while (true) {
+                for (int attempt = 0; attempt < MAX_LOCATION_ATTEMPTS; attempt++) {
+                    randomAttempts++;
+                    int x = random.nextInt(-half, half + 1);
+                    int z = random.nextInt(-half, half + 1);
+                    if (!randomGrid.hasConflict(WORLD, x, z, null, 0L)) {
+                        randomGrid.put(WORLD, x, z, null, SiteGrid.NO_EXPIRY);
+                        randomSites++;
+                        continue fill;
+                    }
+                }
+                break;
+            }
+            long randomNanos = System.nanoTime() - start;
+
+            SiteGrid poolGrid = new SiteGrid(minDistance);
+            SitePool pool = new SitePool(WORLD, -half, half, -half, half, minDistance, roundSeed);
+            int poolSites = 0;
+            long refillNanos = 0;
+            long claimNanos = 0;
+            while (true) {
+                if (pool.getAvailableCount() == 0) {
+                    // Runs on a background thread in the plugin
+                    long refillStart = System.nanoTime();
+                    pool.refill(site -> !poolGrid.hasConflict(WORLD, (int) (site >> 32), (int) site, null, 0L), 0L, SITE_POOL_SIZE);
+                    refillNanos += System.nanoTime() - refillStart;
+                }
+                long claimStart = System.nanoTime();
+                int[] site = pool.poll();
+                if (site == null) {
+                    break;
+                }
+                if (poolGrid.hasConflict(WORLD, site[0], site[1], null, 0L)) {
+                    pool.defer(site[0], site[1]);
+                } else {
+                    poolGrid.put(WORLD, site[0], site[1], null, SiteGrid.NO_EXPIRY);
+                    poolSites++;
+                }
+                claimNanos += System.nanoTime() - claimStart;
+            }
+
+            System.out.printf(Locale.ROOT,
+                "round %d: random %d sites before 50 misses (%.1f attempts, %.2f us per map), pool %d sites (%.2f us per map, %.1f us/site generated in background)%n",
+                round, randomSites, randomAttempts / (double) Math.max(1, randomSites),
+                randomNanos / 1000.0 / Math.max(1, randomSites), poolSites, claimNanos / 1000.0 / Math.max(1, poolSites),
+                refillNanos / 1000.0 / Math.max(1, poolSites));
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.noviui.treasuredungeon;
 
 import com.noviui.treasuredungeon.commands.TreasureCommand;
+import com.noviui.treasuredungeon.config.ConfigDiff;
 import com.noviui.treasuredungeon.config.ConfigManager;
 import com.noviui.treasuredungeon.config.DataManager;
 import com.noviui.treasuredungeon.config.LanguageManager;
 import com.noviui.treasuredungeon.dungeon.DungeonManager;
 import com.noviui.treasuredungeon.dungeon.DungeonBuilder;
+import com.noviui.treasuredungeon.dungeon.GlobalStats;
+import com.noviui.treasuredungeon.dungeon.ProximityManager;
 import com.noviui.treasuredungeon.database.DatabaseManager;
 import com.noviui.treasuredungeon.placeholders.PlaceholderManager;
 import com.noviui.treasuredungeon.integration.IntegrationManager;
@@ -13,7 +16,6 @@ import com.noviui.treasuredungeon.editor.EditorManager;
 import com.noviui.treasuredungeon.listeners.CommandBlockListener;
 import com.noviui.treasuredungeon.listeners.McMMOListener;
 import com.noviui.treasuredungeon.listeners.PlayerInteractListener;
-import com.noviui.treasuredungeon.listeners.ProximityListener;
 import com.noviui.treasuredungeon.map.MapManager;
 import com.noviui.treasuredungeon.utils.LocationManager;
 import com.noviui.treasuredungeon.utils.UpdateChecker;
@@ -23,6 +25,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.logging.Level;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public final class TreasureDungeonPlugin extends JavaPlugin {
     
@@ -36,8 +39,10 @@ public final class TreasureDungeonPlugin extends JavaPlugin {
     private DungeonManager dungeonManager;
     private DungeonBuilder dungeonBuilder;
     private DatabaseManager databaseManager;
+    private GlobalStats globalStats;
     private PlaceholderManager placeholderManager;
     private LocationManager locationManager;
+    private ProximityManager proximityManager;
     private UpdateChecker updateChecker;
     private EditorManager editorManager;
     
@@ -93,6 +98,11 @@ public final class TreasureDungeonPlugin extends JavaPlugin {
                 dungeonManager.cleanup();
             }
             
+            // Stop proximity checks
+            if (proximityManager != null) {
+                proximityManager.stop();
+            }
+            
             // Cleanup dungeon builder
             if (dungeonBuilder != null) {
                 dungeonBuilder.cleanup();
@@ -103,14 +113,33 @@ public final class TreasureDungeonPlugin extends JavaPlugin {
                 editorManager.cleanup();
             }
             
+            // Stop watching config and lang files
+            if (configManager != null) {
+                configManager.shutdown();
+            }
+            if (languageManager != null) {
+                languageManager.shutdown();
+            }
+            
+            // Stop placeholder refresh threads
+            if (placeholderManager != null) {
+                placeholderManager.shutdown();
+            }
+            
+            // Write pending site reservations while the database is still open
+            if (locationManager != null) {
+                locationManager.saveSiteReservations();
+            }
+            
             // Close database connection
             if (databaseManager != null) {
                 databaseManager.close();
             }
             
-            // Clear caches
+            // Clear caches and stop site search threads
             if (locationManager != null) {
                 locationManager.clearCache();
+                locationManager.shutdown();
             }
             
             getLogger().info("TreasureDungeon plugin disabled successfully!");
@@ -122,6 +151,7 @@ public final class TreasureDungeonPlugin extends JavaPlugin {
     
     private void initializeManagers() {
         try {
+            this.globalStats = new GlobalStats();
             this.configManager = new ConfigManager(this);
             this.dataManager = new DataManager(this);
             this.languageManager = new LanguageManager(this);
@@ -141,16 +171,20 @@ public final class TreasureDungeonPlugin extends JavaPlugin {
     private CompletableFuture<Void> loadConfigurationsAsync() {
         return CompletableFuture.runAsync(() -> {
             try {
+                // Integrations first, so the config can be checked against MythicMobs
+                integrationManager.checkIntegrations();
                 configManager.loadConfig();
                 dataManager.loadData();
                 languageManager.loadLanguage();
-                integrationManager.checkIntegrations();
+                seedGlobalStats();
                 
                 // Initialize database if enabled
                 databaseManager.initialize().thenAccept(success -> {
                     if (success) {
                         getLogger().info("Database initialized successfully");
+                        seedGlobalStatsFromDatabase();
                     }
+                    locationManager.loadSiteReservations();
                 });
                 
                 // Initialize PlaceholderAPI if available
@@ -164,6 +198,33 @@ public final class TreasureDungeonPlugin extends JavaPlugin {
         });
     }
     
+    /**
+     * Seeds the global counters from data.yml
+     */
+    private void seedGlobalStats() {
+        globalStats.seed(
+            dataManager.getGlobalLong("total-completions", 0L),
+            dataManager.getGlobalLong("best-time", 0L),
+            dataManager.getKnownPlayerIds(),
+            0L);
+    }
+    
+    /**
+     * Replaces the file-based totals with the shared database totals
+     */
+    private void seedGlobalStatsFromDatabase() {
+        databaseManager.getGlobalTotals().thenAccept(totals -> {
+            if (totals.isEmpty()) {
+                return;
+            }
+            globalStats.seed(
+                totals.getOrDefault("completions", 0L),
+                totals.getOrDefault("best_time", 0L),
+                dataManager.getKnownPlayerIds(),
+                totals.getOrDefault("players", 0L));
+        });
+    }
+    
     private void registerComponents() {
         try {
             // Register listeners
@@ -184,8 +245,17 @@ public final class TreasureDungeonPlugin extends JavaPlugin {
         try {
             Bukkit.getPluginManager().registerEvents(new McMMOListener(this), this);
             Bukkit.getPluginManager().registerEvents(new PlayerInteractListener(this), this);
-            Bukkit.getPluginManager().registerEvents(new ProximityListener(this), this);
             Bukkit.getPluginManager().registerEvents(new CommandBlockListener(this), this);
+            Bukkit.getPluginManager().registerEvents(languageManager, this);
+            
+            // Registers its move listener only while someone has an active treasure target
+            proximityManager = new ProximityManager(this);
+            proximityManager.start();
+            Bukkit.getPluginManager().registerEvents(proximityManager, this);
+            
+            if (placeholderManager != null) {
+                Bukkit.getPluginManager().registerEvents(placeholderManager, this);
+            }
         } catch (Exception e) {
             throw new RuntimeException("Failed to register listeners", e);
         }
@@ -250,32 +320,80 @@ public final class TreasureDungeonPlugin extends JavaPlugin {
         }
     }
     
-    public CompletableFuture<Void> reloadAsync() {
-        return CompletableFuture.runAsync(() -> {
+    /**
+     * Reloads config.yml and the lang files for /treasure reload, off the main thread. Player data,
+     * reservations and running dungeons are left alone; only the config settings that changed are
+     * applied. Completes with this reload's result.
+     */
+    public CompletableFuture<ConfigManager.LoadResult> reloadAsync() {
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                configManager.loadConfig();
-                dataManager.loadData();
-                languageManager.loadLanguage();
                 integrationManager.checkIntegrations();
+                ConfigManager.LoadResult result = reloadConfigChanges();
                 
-                // Reinitialize database if enabled
-                if (databaseManager != null) {
-                    databaseManager.initialize();
+                // An edited lang file should be picked up even if config.yml didn't change
+                ConfigDiff diff = result.getDiff();
+                if (diff == null || !languageSettingsChanged(diff)) {
+                    languageManager.loadLanguage();
                 }
-                
-                locationManager.clearCache();
+                return result;
             } catch (Exception e) {
                 throw new RuntimeException("Failed to reload plugin", e);
             }
         });
     }
     
-    public void reload() {
-        try {
-            reloadAsync().join();
-        } catch (Exception e) {
-            getLogger().log(Level.SEVERE, "Error during plugin reload", e);
+    /**
+     * Re-reads config.yml and applies only what changed: the new snapshot is published in one
+     * write and only the managers whose settings differ are touched. Running dungeons keep the
+     * definition they started with. Called from the config watcher thread and from reloadAsync.
+     *
+     * @return the load's report, and what changed unless the file has errors and the running config was kept
+     */
+    public ConfigManager.LoadResult reloadConfigChanges() {
+        long start = System.nanoTime();
+        ConfigManager.LoadResult result = configManager.loadConfig();
+        ConfigDiff diff = result.getDiff();
+        if (diff == null) {
+            return result;
+        }
+        if (diff.isEmpty()) {
+            getLogger().info("config.yml has no changes");
+            return result;
+        }
+        
+        if (languageSettingsChanged(diff)) {
+            languageManager.loadLanguage();
         }
+        
+        if (diff.changed("database") && databaseManager != null) {
+            databaseManager.initialize().thenAccept(success -> {
+                if (success) {
+                    seedGlobalStatsFromDatabase();
+                }
+                if (locationManager != null) {
+                    locationManager.loadSiteReservations();
+                }
+            });
+        }
+        
+        if (diff.changed("general.placeholders") && placeholderManager != null) {
+            placeholderManager.reload();
+        }
+        
+        if (diff.changed("general.proximity") && proximityManager != null) {
+            proximityManager.applySettings();
+        }
+        
+        getLogger().info("Applied config.yml changes in "
+            + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms: " + diff.describe());
+        return result;
+    }
+    
+    private static boolean languageSettingsChanged(ConfigDiff diff) {
+        return diff.changed("general.language")
+            || diff.changed("general.per-player-language")
+            || diff.changed("general.watch-language-files");
     }
     
     public boolean isFullyInitialized() {
@@ -321,6 +439,18 @@ public final class TreasureDungeonPlugin extends JavaPlugin {
         return databaseManager;
     }
     
+    public GlobalStats getGlobalStats() {
+        return globalStats;
+    }
+    
+    public PlaceholderManager getPlaceholderManager() {
+        return placeholderManager;
+    }
+    
+    public ProximityManager getProximityManager() {
+        return proximityManager;
+    }
+    
     public LocationManager getLocationManager() {
         return locationManager;
     }
@@ -1,9 +1,15 @@
 package com.noviui.treasuredungeon.commands;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
+import com.noviui.treasuredungeon.config.ConfigIssue;
 import com.noviui.treasuredungeon.config.ConfigManager;
+import com.noviui.treasuredungeon.config.ConfigValidator;
+import com.noviui.treasuredungeon.config.LanguageBundle;
 import com.noviui.treasuredungeon.config.LanguageManager;
+import com.noviui.treasuredungeon.database.CompletionExporter;
+import com.noviui.treasuredungeon.database.DatabaseManager;
 import com.noviui.treasuredungeon.editor.EditorManager;
+import com.noviui.treasuredungeon.utils.LocationManager;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.command.Command;
@@ -11,7 +17,13 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 
 public class TreasureCommand implements CommandExecutor {
     
@@ -47,6 +59,15 @@ public class TreasureCommand implements CommandExecutor {
             case "editor":
                 return handleEditor(sender);
                 
+            case "export":
+                return handleExport(sender, args);
+                
+            case "validate":
+                return handleValidate(sender, args);
+                
+            case "sites":
+                return handleSites(sender);
+                
             default:
                 sendHelp(sender);
                 return true;
@@ -54,15 +75,17 @@ public class TreasureCommand implements CommandExecutor {
     }
     
     private boolean handleTeleport(CommandSender sender) {
+        LanguageBundle lang = languageManager.getBundle(sender);
+        
         if (!sender.hasPermission("treasure.tp")) {
-            String message = languageManager.getMessage("no-permission");
-            sender.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("no-permission");
+            sender.sendMessage(lang.getPrefix() + message);
             return true;
         }
         
         if (!(sender instanceof Player)) {
-            String message = languageManager.getMessage("player-only");
-            sender.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("player-only");
+            sender.sendMessage(lang.getPrefix() + message);
             return true;
         }
         
@@ -73,8 +96,8 @@ public class TreasureCommand implements CommandExecutor {
         World treasureWorld = plugin.getServer().getWorld(worldName);
         
         if (treasureWorld == null) {
-            String message = languageManager.getMessage("world-not-found");
-            player.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("world-not-found");
+            player.sendMessage(lang.getPrefix() + message);
             return true;
         }
         
@@ -84,42 +107,55 @@ public class TreasureCommand implements CommandExecutor {
             configManager.getTreasureSpawnY(),
             configManager.getTreasureSpawnZ());
         
-        String teleportingMessage = languageManager.getMessage("teleporting");
-        player.sendMessage(languageManager.getPrefix() + teleportingMessage);
+        String teleportingMessage = lang.getMessage("teleporting");
+        player.sendMessage(lang.getPrefix() + teleportingMessage);
         
         player.teleport(spawnLocation);
         
-        String successMessage = languageManager.getMessage("teleport-success");
-        player.sendMessage(languageManager.getPrefix() + successMessage);
+        String successMessage = lang.getMessage("teleport-success");
+        player.sendMessage(lang.getPrefix() + successMessage);
         
         return true;
     }
     
     private boolean handleReload(CommandSender sender) {
+        LanguageBundle lang = languageManager.getBundle(sender);
+        
         if (!sender.hasPermission("treasure.reload")) {
-            String message = languageManager.getMessage("no-permission");
-            sender.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("no-permission");
+            sender.sendMessage(lang.getPrefix() + message);
             return true;
         }
         
-        plugin.reload();
-        
-        String message = languageManager.getMessage("reload-success");
-        sender.sendMessage(languageManager.getPrefix() + message);
+        // Reloading reads files and may wait for a watcher-triggered reload; keep it off the main thread
+        plugin.reloadAsync().thenAccept(result -> {
+            ConfigValidator.Report report = result.getReport();
+            String message = report != null && report.hasErrors()
+                ? lang.format("reload-rejected", "errors", String.valueOf(report.getErrorCount()))
+                : lang.getMessage("reload-success");
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(lang.getPrefix() + message));
+        }).exceptionally(throwable -> {
+            plugin.getLogger().log(Level.SEVERE, "Error during plugin reload", throwable);
+            String message = lang.getMessage("reload-failed");
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(lang.getPrefix() + message));
+            return null;
+        });
         
         return true;
     }
     
     private boolean handleEditor(CommandSender sender) {
+        LanguageBundle lang = languageManager.getBundle(sender);
+        
         if (!sender.hasPermission("treasure.editor")) {
-            String message = languageManager.getMessage("no-permission");
-            sender.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("no-permission");
+            sender.sendMessage(lang.getPrefix() + message);
             return true;
         }
         
         if (!(sender instanceof Player)) {
-            String message = languageManager.getMessage("player-only");
-            sender.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("player-only");
+            sender.sendMessage(lang.getPrefix() + message);
             return true;
         }
         
@@ -129,17 +165,167 @@ public class TreasureCommand implements CommandExecutor {
         return true;
     }
     
+    private boolean handleExport(CommandSender sender, String[] args) {
+        LanguageBundle lang = languageManager.getBundle(sender);
+        
+        if (!sender.hasPermission("treasure.export")) {
+            String message = lang.getMessage("no-permission");
+            sender.sendMessage(lang.getPrefix() + message);
+            return true;
+        }
+        
+        if (args.length < 2 || !args[1].equalsIgnoreCase("completions")) {
+            String message = lang.getMessage("command-export-usage");
+            sender.sendMessage(lang.getPrefix() + message);
+            return true;
+        }
+        
+        CompletionExporter.Format format = CompletionExporter.Format.fromString(args.length >= 3 ? args[2] : null);
+        if (format == null) {
+            String message = lang.getMessage("command-export-usage");
+            sender.sendMessage(lang.getPrefix() + message);
+            return true;
+        }
+        
+        DatabaseManager databaseManager = plugin.getDatabaseManager();
+        if (databaseManager == null || !databaseManager.isEnabled()) {
+            String message = lang.getMessage("export-database-disabled");
+            sender.sendMessage(lang.getPrefix() + message);
+            return true;
+        }
+        
+        CompletionExporter exporter = databaseManager.getCompletionExporter();
+        if (exporter.isRunning()) {
+            String message = lang.getMessage("export-in-progress");
+            sender.sendMessage(lang.getPrefix() + message);
+            return true;
+        }
+        
+        String startedMessage = lang.getMessage("export-started");
+        sender.sendMessage(lang.getPrefix() + startedMessage);
+        
+        exporter.export(format, (rows, percent) -> {
+            String message = lang.format("export-progress",
+                "rows", String.valueOf(rows), "percent", String.valueOf(percent));
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(lang.getPrefix() + message));
+        }).thenAccept(result -> {
+            String message = lang.format("export-complete",
+                "rows", String.valueOf(result.getRows()),
+                "file", result.getFile().getName(),
+                "time", String.valueOf(result.getDurationMillis()));
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(lang.getPrefix() + message));
+        }).exceptionally(throwable -> {
+            String message = lang.getMessage("export-failed");
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(lang.getPrefix() + message));
+            return null;
+        });
+        
+        return true;
+    }
+    
+    private boolean handleValidate(CommandSender sender, String[] args) {
+        LanguageBundle lang = languageManager.getBundle(sender);
+        
+        if (!sender.hasPermission("treasure.validate")) {
+            String message = lang.getMessage("no-permission");
+            sender.sendMessage(lang.getPrefix() + message);
+            return true;
+        }
+        
+        String fileName = args.length >= 2 ? args[1] : "config.yml";
+        File file = resolveDataFile(fileName);
+        if (file == null || !file.isFile()) {
+            String message = lang.format("validate-file-not-found", "file", fileName);
+            sender.sendMessage(lang.getPrefix() + message);
+            return true;
+        }
+        
+        String runningMessage = lang.format("validate-running", "file", fileName);
+        sender.sendMessage(lang.getPrefix() + runningMessage);
+        
+        // Dry run: the report is only shown, never applied
+        CompletableFuture.supplyAsync(() -> configManager.validate(file)).thenAccept(report -> {
+            List<String> lines = new ArrayList<>();
+            String summaryKey = report.hasErrors() ? "validate-failed" : "validate-passed";
+            lines.add(lang.getPrefix() + lang.format(summaryKey,
+                "file", fileName,
+                "errors", String.valueOf(report.getErrorCount()),
+                "warnings", String.valueOf(report.getWarningCount())));
+            for (ConfigIssue issue : report.getIssues()) {
+                lines.add(lang.format(issue.isError() ? "validate-error" : "validate-warning",
+                    "path", issue.getPath(), "message", issue.getMessage()));
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> lines.forEach(sender::sendMessage));
+        }).exceptionally(throwable -> {
+            plugin.getLogger().log(Level.WARNING, "Could not validate " + fileName, throwable);
+            String message = lang.format("validate-internal-error", "file", fileName);
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(lang.getPrefix() + message));
+            return null;
+        });
+        
+        return true;
+    }
+    
+    private boolean handleSites(CommandSender sender) {
+        LanguageBundle lang = languageManager.getBundle(sender);
+        
+        if (!sender.hasPermission("treasure.sites")) {
+            String message = lang.getMessage("no-permission");
+            sender.sendMessage(lang.getPrefix() + message);
+            return true;
+        }
+        
+        LocationManager locationManager = plugin.getLocationManager();
+        String message = lang.format("sites-pool",
+            "available", String.valueOf(locationManager.getAvailableSiteCount()),
+            "waiting", String.valueOf(locationManager.getWaitingSiteCount()),
+            "reserved", String.valueOf(locationManager.getRecentLocationCount()));
+        sender.sendMessage(lang.getPrefix() + message);
+        
+        if (locationManager.isSitePoolExhausted()) {
+            String exhaustedMessage = lang.getMessage("sites-pool-exhausted");
+            sender.sendMessage(lang.getPrefix() + exhaustedMessage);
+        }
+        
+        if (locationManager.getScoredAllocationCount() > 0) {
+            String scoringMessage = lang.format("sites-scoring",
+                "scored", String.valueOf(locationManager.getLastScoredCandidateCount()),
+                "best", String.valueOf(locationManager.getLastBestSiteScore()),
+                "average", String.format(Locale.ROOT, "%.1f", locationManager.getAverageScoredCandidateCount()));
+            sender.sendMessage(lang.getPrefix() + scoringMessage);
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Resolves a file name inside the plugin folder, or returns null if it points outside of it
+     */
+    private File resolveDataFile(String fileName) {
+        try {
+            File dataFolder = plugin.getDataFolder().getCanonicalFile();
+            File file = new File(dataFolder, fileName).getCanonicalFile();
+            return file.toPath().startsWith(dataFolder.toPath()) ? file : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
     private void sendHelp(CommandSender sender) {
-        List<String> helpMessages = languageManager.getConfig().getStringList("messages.command-help");
+        LanguageBundle lang = languageManager.getBundle(sender);
+        List<String> helpMessages = lang.getMessageList("command-help");
         
         if (helpMessages.isEmpty()) {
-            sender.sendMessage(languageManager.getPrefix() + "§6Treasure Dungeon Commands:");
+            sender.sendMessage(lang.getPrefix() + "§6Treasure Dungeon Commands:");
             sender.sendMessage("§e/treasure tp §7- Teleport to treasure spawn");
             sender.sendMessage("§e/treasure reload §7- Reload configuration");
             sender.sendMessage("§e/treasure editor §7- Open dungeon editor");
+            sender.sendMessage("§e/treasure export completions [ndjson|csv] §7- Export completion history");
+            sender.sendMessage("§e/treasure validate [file] §7- Check a config file without applying it");
+            sender.sendMessage("§e/treasure sites §7- Show how many dungeon sites are left");
         } else {
             for (String line : helpMessages) {
-                sender.sendMessage(languageManager.getPrefix() + line);
+                sender.sendMessage(lang.getPrefix() + line);
             }
         }
     }
@@ -0,0 +1,79 @@
+package com.noviui.treasuredungeon.config;
+
+import org.bukkit.configuration.Configuration;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The settings that differ between two loads of config.yml, so a reload only touches what changed
+ */
+public final class ConfigDiff {
+    
+    private static final ConfigDiff NONE = new ConfigDiff(Collections.emptySet());
+    
+    // Leaf paths like "dungeon-types.ancient_mine.boss.id", sorted
+    private final Set<String> changedPaths;
+    
+    private ConfigDiff(Set<String> changedPaths) {
+        this.changedPaths = Collections.unmodifiableSet(changedPaths);
+    }
+    
+    /**
+     * Compares every value, including the ones that come from the bundled defaults
+     */
+    public static ConfigDiff compare(Configuration previous, Configuration updated) {
+        if (previous == null) {
+            return NONE;
+        }
+        
+        Set<String> paths = new TreeSet<>();
+        Set<String> keys = new LinkedHashSet<>(previous.getKeys(true));
+        keys.addAll(updated.getKeys(true));
+        for (String key : keys) {
+            if (previous.isConfigurationSection(key) && updated.isConfigurationSection(key)) {
+                continue;
+            }
+            if (!Objects.equals(previous.get(key), updated.get(key))) {
+                paths.add(key);
+            }
+        }
+        return paths.isEmpty() ? NONE : new ConfigDiff(paths);
+    }
+    
+    public boolean isEmpty() {
+        return changedPaths.isEmpty();
+    }
+    
+    /**
+     * Checks whether a value, or anything below a section, changed
+     */
+    public boolean changed(String path) {
+        for (String changedPath : changedPaths) {
+            if (changedPath.equals(path) || changedPath.startsWith(path + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public Set<String> getChangedPaths() {
+        return changedPaths;
+    }
+    
+    /**
+     * Names the changed sections two levels deep, like "dungeon-types.ancient_mine, general.waves"
+     */
+    public String describe() {
+        Set<String> sections = new LinkedHashSet<>();
+        for (String path : changedPaths) {
+            int first = path.indexOf('.');
+            int second = first < 0 ? -1 : path.indexOf('.', first + 1);
+            sections.add(second < 0 ? path : path.substring(0, second));
+        }
+        return String.join(", ", sections);
+    }
+}
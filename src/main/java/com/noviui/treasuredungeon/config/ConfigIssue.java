@@ -0,0 +1,56 @@
+package com.noviui.treasuredungeon.config;
+
+/**
+ * One mistake found while validating the config, tagged with the path it was found at
+ */
+public final class ConfigIssue {
+    
+    public enum Severity {
+        // The setting can't work as written; a reload with errors is refused
+        ERROR,
+        // The setting works but probably not as intended
+        WARNING
+    }
+    
+    private final Severity severity;
+    private final String path;
+    private final String message;
+    
+    private ConfigIssue(Severity severity, String path, String message) {
+        this.severity = severity;
+        this.path = path;
+        this.message = message;
+    }
+    
+    public static ConfigIssue error(String path, String message) {
+        return new ConfigIssue(Severity.ERROR, path, message);
+    }
+    
+    public static ConfigIssue warning(String path, String message) {
+        return new ConfigIssue(Severity.WARNING, path, message);
+    }
+    
+    public Severity getSeverity() {
+        return severity;
+    }
+    
+    public boolean isError() {
+        return severity == Severity.ERROR;
+    }
+    
+    /**
+     * Gets where the mistake is, like "dungeon-types.ancient_mine.boss.id" or "lang/pt.yml"
+     */
+    public String getPath() {
+        return path;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    @Override
+    public String toString() {
+        return path + ": " + message;
+    }
+}
@@ -1,282 +1,458 @@
 package com.noviui.treasuredungeon.config;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
+import com.noviui.treasuredungeon.utils.AliasTable;
 import org.bukkit.configuration.file.FileConfiguration;
 
-import java.util.HashSet;
+import java.io.File;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
 public class ConfigManager {
     
     private final TreasureDungeonPlugin plugin;
-    private FileConfiguration config;
+    private final ConfigValidator validator;
+    // Compiled on every load and replaced in one write, so readers on any thread see a whole config.
+    // The parsed file travels inside it, so raw settings and compiled ones always match.
+    private volatile ConfigSnapshot snapshot;
+    private volatile ConfigValidator.Report lastReport;
+    // Only writers take this; readers just read the volatile fields
+    private final Object reloadLock = new Object();
+    private YamlFileWatcher fileWatcher;
     
     public ConfigManager(TreasureDungeonPlugin plugin) {
         this.plugin = plugin;
+        this.validator = new ConfigValidator(plugin);
+    }
+    
+    /**
+     * Validates config.yml and makes it live if it has no errors. A config with errors is still
+     * used on the first load so the plugin can start; on later loads the running config is kept.
+     * Writers are serialized; readers never wait, they keep using the snapshot they already read.
+     *
+     * @return this load's report, with what changed compared to the running config if it was applied
+     */
+    public LoadResult loadConfig() {
+        synchronized (reloadLock) {
+            plugin.saveDefaultConfig();
+            ConfigValidator.Report report = validator.validate(new File(plugin.getDataFolder(), "config.yml"));
+            this.lastReport = report;
+            
+            // Report mistakes now instead of when a dungeon of that type first runs
+            for (ConfigIssue issue : report.getIssues()) {
+                if (issue.isError()) {
+                    plugin.getLogger().severe("config: " + issue);
+                } else {
+                    plugin.getLogger().warning("config: " + issue);
+                }
+            }
+            
+            if (report.hasErrors() && snapshot != null) {
+                plugin.getLogger().severe("config.yml has " + report.getErrorCount() + " error(s); keeping the previous config until they are fixed");
+                return new LoadResult(report, null);
+            }
+            
+            if (report.getSnapshot() == null) {
+                // Unreadable on the first load: fall back to the bundled defaults
+                plugin.reloadConfig();
+                this.snapshot = ConfigSnapshot.compile(plugin.getConfig());
+                updateWatcher();
+                return new LoadResult(report, null);
+            }
+            
+            ConfigSnapshot previous = snapshot;
+            ConfigDiff diff = ConfigDiff.compare(previous != null ? previous.getConfig() : null, report.getConfig());
+            this.snapshot = report.getSnapshot();
+            updateWatcher();
+            return new LoadResult(report, diff);
+        }
+    }
+    
+    private void updateWatcher() {
+        if (isWatchConfigFile()) {
+            if (fileWatcher == null) {
+                fileWatcher = new YamlFileWatcher(plugin.getLogger(), plugin.getDataFolder().toPath(), "Config", file -> {
+                    // The data folder also holds data.yml, which is saved all the time
+                    if ("config".equals(file)) {
+                        plugin.reloadConfigChanges();
+                    }
+                });
+                fileWatcher.start();
+            }
+        } else if (fileWatcher != null) {
+            fileWatcher.stop();
+            fileWatcher = null;
+        }
+    }
+    
+    public void shutdown() {
+        synchronized (reloadLock) {
+            if (fileWatcher != null) {
+                fileWatcher.stop();
+                fileWatcher = null;
+            }
+        }
     }
     
-    public void loadConfig() {
-        plugin.saveDefaultConfig();
-        plugin.reloadConfig();
-        this.config = plugin.getConfig();
+    /**
+     * Gets the validation result of the last load, or null before the first one
+     */
+    public ConfigValidator.Report getLastReport() {
+        return lastReport;
+    }
+    
+    /**
+     * Checks a config file without applying it
+     */
+    public ConfigValidator.Report validate(File configFile) {
+        return validator.validate(configFile);
+    }
+    
+    /**
+     * Gets the settings compiled at the last load. Hot paths should read this once per call
+     * instead of going through the getters below.
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
     }
     
     // General settings
     public boolean isDebugEnabled() {
-        return config.getBoolean("general.debug", false);
+        return snapshot.isDebugEnabled();
     }
     
     public String getLanguage() {
-        return config.getString("general.language", "en");
+        return snapshot.getConfig().getString("general.language", "en");
+    }
+    
+    public boolean isPerPlayerLanguage() {
+        return snapshot.getConfig().getBoolean("general.per-player-language", true);
+    }
+    
+    public boolean isWatchLanguageFiles() {
+        return snapshot.getConfig().getBoolean("general.watch-language-files", true);
+    }
+    
+    public boolean isWatchConfigFile() {
+        return snapshot.getConfig().getBoolean("general.watch-config-file", true);
     }
     
     public String getTreasureWorldName() {
-        return config.getString("general.treasure-world.name", "treasure_world");
+        return snapshot.getTreasureWorldName();
     }
     
     public int getTreasureSpawnX() {
-        return config.getInt("general.treasure-world.spawn.x", 0);
+        return snapshot.getSpawnX();
     }
     
     public int getTreasureSpawnY() {
-        return config.getInt("general.treasure-world.spawn.y", -60);
+        return snapshot.getSpawnY();
     }
     
     public int getTreasureSpawnZ() {
-        return config.getInt("general.treasure-world.spawn.z", 0);
+        return snapshot.getSpawnZ();
     }
     
     public int getMinX() {
-        return config.getInt("general.treasure-world.limits.min-x", -1000);
+        return snapshot.getMinX();
     }
     
     public int getMaxX() {
-        return config.getInt("general.treasure-world.limits.max-x", 1000);
+        return snapshot.getMaxX();
     }
     
     public int getMinZ() {
-        return config.getInt("general.treasure-world.limits.min-z", -1000);
+        return snapshot.getMinZ();
     }
     
     public int getMaxZ() {
-        return config.getInt("general.treasure-world.limits.max-z", 1000);
+        return snapshot.getMaxZ();
     }
     
     public int getMinDistance() {
-        return config.getInt("general.treasure-world.min-distance", 50);
+        return snapshot.getMinDistance();
     }
     
     public String getWaveDelay() {
-        return config.getString("general.waves.delay-between-waves", "10s");
+        return snapshot.getConfig().getString("general.waves.delay-between-waves", "10s");
     }
     
     public String getBossDelay() {
-        return config.getString("general.waves.delay-before-boss", "15s");
+        return snapshot.getConfig().getString("general.waves.delay-before-boss", "15s");
     }
     
     public String getChestTimeout() {
-        return config.getString("general.chest.timeout", "5m");
+        return snapshot.getConfig().getString("general.chest.timeout", "5m");
     }
     
     public boolean isChestAutoDestroy() {
-        return config.getBoolean("general.chest.auto-destroy", true);
+        return snapshot.isChestAutoDestroy();
     }
     
     public boolean isDamageTrackingEnabled() {
-        return config.getBoolean("general.damage-tracking.enabled", true);
+        return snapshot.isDamageTrackingEnabled();
     }
     
     public String getDamageShowDuration() {
-        return config.getString("general.damage-tracking.show-duration", "30s");
+        return snapshot.getConfig().getString("general.damage-tracking.show-duration", "30s");
     }
     
     public boolean showPersonalDamage() {
-        return config.getBoolean("general.damage-tracking.show-personal-damage", true);
+        return snapshot.showPersonalDamage();
     }
     
     public boolean isGlobalAnnounce() {
-        return config.getBoolean("general.announce-globally", true);
+        return snapshot.isGlobalAnnounce();
     }
     
     public boolean isUpdateCheckEnabled() {
-        return config.getBoolean("general.check-updates", true);
+        return snapshot.getConfig().getBoolean("general.check-updates", true);
     }
     
     // Database settings
     public boolean isDatabaseEnabled() {
-        return config.getBoolean("database.enabled", false);
+        return snapshot.getConfig().getBoolean("database.enabled", false);
     }
     
     public String getDatabaseType() {
-        return config.getString("database.type", "mysql");
+        return snapshot.getConfig().getString("database.type", "mysql");
     }
     
     public String getDatabaseHost() {
-        return config.getString("database.host", "localhost");
+        return snapshot.getConfig().getString("database.host", "localhost");
     }
     
     public int getDatabasePort() {
-        return config.getInt("database.port", 3306);
+        return snapshot.getConfig().getInt("database.port", 3306);
     }
     
     public String getDatabaseName() {
-        return config.getString("database.database", "treasuredungeon");
+        return snapshot.getConfig().getString("database.database", "treasuredungeon");
     }
     
     public String getDatabaseUsername() {
-        return config.getString("database.username", "root");
+        return snapshot.getConfig().getString("database.username", "root");
     }
     
     public String getDatabasePassword() {
-        return config.getString("database.password", "");
+        return snapshot.getConfig().getString("database.password", "");
     }
     
     public boolean isDatabaseSSL() {
-        return config.getBoolean("database.ssl", false);
+        return snapshot.getConfig().getBoolean("database.ssl", false);
     }
     
     public int getDatabaseMaxConnections() {
-        return config.getInt("database.pool.max-connections", 10);
+        return snapshot.getConfig().getInt("database.pool.max-connections", 10);
     }
     
     public int getDatabaseMinConnections() {
-        return config.getInt("database.pool.min-connections", 2);
+        return snapshot.getConfig().getInt("database.pool.min-connections", 2);
+    }
+    
+    public String getServerId() {
+        return snapshot.getConfig().getString("database.server-id", "");
     }
     
-    public List<String> getBlockedCommands() {
-        return config.getStringList("general.blocked-commands");
+    public boolean isDatabaseInvalidationEnabled() {
+        return snapshot.getConfig().getBoolean("database.invalidation.enabled", true);
+    }
+    
+    public String getDatabaseInvalidationPollInterval() {
+        return snapshot.getConfig().getString("database.invalidation.poll-interval", "1s");
+    }
+    
+    public boolean isSiteLeasesEnabled() {
+        return snapshot.getConfig().getBoolean("database.site-leases.enabled", true);
+    }
+    
+    public String getSiteLeaseTtl() {
+        return snapshot.getConfig().getString("database.site-leases.ttl", "5m");
+    }
+    
+    public String getPlaceholderRefreshInterval() {
+        return snapshot.getConfig().getString("general.placeholders.refresh-interval", "30s");
+    }
+    
+    /**
+     * Whether proximity is checked in batches every few ticks instead of on each move
+     */
+    public boolean isProximityBatchMode() {
+        return "batch".equalsIgnoreCase(snapshot.getConfig().getString("general.proximity.mode", "event"));
+    }
+    
+    public int getProximityBatchIntervalTicks() {
+        return Math.max(1, snapshot.getConfig().getInt("general.proximity.batch-interval-ticks", 10));
     }
     
     // Skill settings
     public Set<String> getEnabledSkills() {
-        return config.getConfigurationSection("skills").getKeys(false);
+        return snapshot.getSkills().keySet();
     }
     
     public boolean isSkillEnabled(String skill) {
-        return config.getBoolean("skills." + skill + ".enabled", false);
+        SkillDefinition definition = snapshot.getSkill(skill);
+        return definition != null && definition.isEnabled();
     }
     
     public int getSkillLevelRequired(String skill) {
-        return config.getInt("skills." + skill + ".level-required", 1000);
+        SkillDefinition definition = snapshot.getSkill(skill);
+        return definition != null ? definition.getLevelRequired() : 1000;
     }
     
     public double getSkillDropChance(String skill) {
-        double chance = config.getDouble("skills." + skill + ".chance-to-drop", 30.0);
-        // Convert percentage to decimal if needed (30% -> 0.3)
-        return chance > 1.0 ? chance / 100.0 : chance;
+        SkillDefinition definition = snapshot.getSkill(skill);
+        return definition != null ? definition.getDropChance() : 0.3;
     }
     
     public String getSkillCooldown(String skill) {
-        return config.getString("skills." + skill + ".cooldown", "6h");
+        return snapshot.getConfig().getString("skills." + skill + ".cooldown", "6h");
     }
     
     public String getSkillBellSchematic(String skill) {
-        return config.getString("skills." + skill + ".dungeon.schematic-bell");
+        return snapshot.getConfig().getString("skills." + skill + ".dungeon.schematic-bell");
     }
     
     public String getSkillDungeonSchematic(String skill) {
-        return config.getString("skills." + skill + ".dungeon.schematic-dungeon");
+        return snapshot.getConfig().getString("skills." + skill + ".dungeon.schematic-dungeon");
     }
     
     public int getSkillWaveCount(String skill) {
-        return config.getInt("skills." + skill + ".dungeon.waves.count", 2);
+        return snapshot.getConfig().getInt("skills." + skill + ".dungeon.waves.count", 2);
     }
     
     public List<String> getSkillWaveMobs(String skill, int wave) {
-        return config.getStringList("skills." + skill + ".dungeon.waves.mobs.wave" + wave);
+        return snapshot.getConfig().getStringList("skills." + skill + ".dungeon.waves.mobs.wave" + wave);
     }
     
     public String getSkillBoss(String skill) {
-        return config.getString("skills." + skill + ".dungeon.boss.id");
+        return snapshot.getConfig().getString("skills." + skill + ".dungeon.boss.id");
     }
     
     public String getSkillBossSpawnDelay(String skill) {
-        return config.getString("skills." + skill + ".dungeon.boss.spawn-delay", "8s");
+        return snapshot.getConfig().getString("skills." + skill + ".dungeon.boss.spawn-delay", "8s");
     }
     
     public String getSkillMapMaterial(String skill) {
-        return config.getString("skills." + skill + ".map-item.material", "FILLED_MAP");
+        return snapshot.getConfig().getString("skills." + skill + ".map-item.material", "FILLED_MAP");
     }
     
     public String getSkillMapDisplayName(String skill) {
-        return config.getString("skills." + skill + ".map-item.display-name");
+        return snapshot.getConfig().getString("skills." + skill + ".map-item.display-name");
     }
     
     public List<String> getSkillMapLore(String skill) {
-        return config.getStringList("skills." + skill + ".map-item.lore");
+        return snapshot.getConfig().getStringList("skills." + skill + ".map-item.lore");
     }
     
     public int getSkillMapCustomModelData(String skill) {
-        return config.getInt("skills." + skill + ".map-item.custom-model-data", 0);
+        return snapshot.getConfig().getInt("skills." + skill + ".map-item.custom-model-data", 0);
     }
     
     public boolean isSkillMapGlowing(String skill) {
-        return config.getBoolean("skills." + skill + ".map-item.glowing", false);
+        return snapshot.getConfig().getBoolean("skills." + skill + ".map-item.glowing", false);
     }
     
     public String getSkillLootType(String skill) {
-        return config.getString("skills." + skill + ".loot.type", "commands");
+        return snapshot.getConfig().getString("skills." + skill + ".loot.type", "commands");
     }
     
     public List<String> getSkillLootCommands(String skill) {
-        return config.getStringList("skills." + skill + ".loot.commands");
+        return snapshot.getConfig().getStringList("skills." + skill + ".loot.commands");
     }
     
     // Dungeon types settings
     public Set<String> getDungeonTypes() {
-        if (config.getConfigurationSection("dungeon-types") == null) {
-            return new HashSet<>();
-        }
-        return config.getConfigurationSection("dungeon-types").getKeys(false);
+        return snapshot.getDungeonTypes().keySet();
     }
     
-    public int getDungeonTypeWeight(String dungeonType) {
-        // Support both old weight system and new percentage system
-        if (config.contains("dungeon-types." + dungeonType + ".chance")) {
-            return config.getInt("dungeon-types." + dungeonType + ".chance", 10);
-        }
-        return config.getInt("dungeon-types." + dungeonType + ".weight", 10);
+    public double getDungeonTypeWeight(String dungeonType) {
+        DungeonTypeDefinition definition = snapshot.getDungeonType(dungeonType);
+        return definition != null ? definition.getWeight() : 10.0;
     }
     
+    /**
+     * Gets the chance of a dungeon type being picked for a new map, between 0 and 1
+     */
     public double getDungeonTypeChance(String dungeonType) {
-        double chance = config.getDouble("dungeon-types." + dungeonType + ".chance", 10.0);
-        return chance > 1.0 ? chance / 100.0 : chance;
+        AliasTable<DungeonTypeDefinition> table = snapshot.getDungeonTypeTable();
+        if (table != null) {
+            for (int i = 0; i < table.size(); i++) {
+                if (table.get(i).getId().equals(dungeonType)) {
+                    return table.getShare(i);
+                }
+            }
+        }
+        return 0.0;
     }
     
     public String getDungeonTypeBellSchematic(String dungeonType) {
-        return config.getString("dungeon-types." + dungeonType + ".schematic-bell");
+        DungeonTypeDefinition definition = snapshot.getDungeonType(dungeonType);
+        return definition != null ? definition.getBellSchematic() : null;
     }
     
     public String getDungeonTypeDungeonSchematic(String dungeonType) {
-        return config.getString("dungeon-types." + dungeonType + ".schematic-dungeon");
+        DungeonTypeDefinition definition = snapshot.getDungeonType(dungeonType);
+        return definition != null ? definition.getDungeonSchematic() : null;
     }
     
     public int getDungeonTypeWaveCount(String dungeonType) {
-        return config.getInt("dungeon-types." + dungeonType + ".waves.count", 2);
+        DungeonTypeDefinition definition = snapshot.getDungeonType(dungeonType);
+        return definition != null ? definition.getWaveCount() : 2;
     }
     
     public List<String> getDungeonTypeWaveMobs(String dungeonType, int wave) {
-        return config.getStringList("dungeon-types." + dungeonType + ".waves.mobs.wave" + wave);
+        DungeonTypeDefinition definition = snapshot.getDungeonType(dungeonType);
+        return definition != null ? List.of(definition.getWaveMobs(wave)) : Collections.emptyList();
     }
     
     public String getDungeonTypeBoss(String dungeonType) {
-        return config.getString("dungeon-types." + dungeonType + ".boss.id");
+        DungeonTypeDefinition definition = snapshot.getDungeonType(dungeonType);
+        return definition != null ? definition.getBossId() : null;
     }
     
     public String getDungeonTypeBossSpawnDelay(String dungeonType) {
-        return config.getString("dungeon-types." + dungeonType + ".boss.spawn-delay", "8s");
+        DungeonTypeDefinition definition = snapshot.getDungeonType(dungeonType);
+        return definition != null ? definition.getBossSpawnDelay() : "8s";
     }
     
     public String getDungeonTypeLootType(String dungeonType) {
-        return config.getString("dungeon-types." + dungeonType + ".loot.type", "commands");
+        DungeonTypeDefinition definition = snapshot.getDungeonType(dungeonType);
+        return definition != null ? definition.getLootType() : "commands";
     }
     
     public List<String> getDungeonTypeLootCommands(String dungeonType) {
-        return config.getStringList("dungeon-types." + dungeonType + ".loot.commands");
+        DungeonTypeDefinition definition = snapshot.getDungeonType(dungeonType);
+        return definition != null ? definition.getLootCommands() : Collections.emptyList();
     }
     
     public FileConfiguration getConfig() {
-        return config;
+        return snapshot.getConfig();
+    }
+    
+    /**
+     * The outcome of one loadConfig call
+     */
+    public static final class LoadResult {
+        
+        private final ConfigValidator.Report report;
+        private final ConfigDiff diff;
+        
+        private LoadResult(ConfigValidator.Report report, ConfigDiff diff) {
+            this.report = report;
+            this.diff = diff;
+        }
+        
+        public ConfigValidator.Report getReport() {
+            return report;
+        }
+        
+        /**
+         * Gets what changed, or null if the file was not applied
+         */
+        public ConfigDiff getDiff() {
+            return diff;
+        }
     }
-}
\ No newline at end of file
+}
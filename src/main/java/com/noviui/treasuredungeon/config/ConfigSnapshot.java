@@ -0,0 +1,298 @@
+package com.noviui.treasuredungeon.config;
+
+import com.noviui.treasuredungeon.utils.AliasTable;
+import com.noviui.treasuredungeon.utils.TimeUtils;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable view of the settings read on hot paths, compiled once per config load.
+ * Durations are already converted to ticks or milliseconds and skills and dungeon types are
+ * parsed into definitions, so event handlers only read final fields.
+ */
+public final class ConfigSnapshot {
+    
+    // The file this was compiled from; settings only read now and then are read from it directly
+    private final FileConfiguration config;
+    
+    private final boolean debug;
+    
+    private final String treasureWorldName;
+    private final int spawnX;
+    private final int spawnY;
+    private final int spawnZ;
+    private final int minX;
+    private final int maxX;
+    private final int minZ;
+    private final int maxZ;
+    private final int minDistance;
+    private final int siteMinScore;
+    private final int siteScoringBudget;
+    
+    private final long waveDelayTicks;
+    private final long bossDelayTicks;
+    private final long chestTimeoutTicks;
+    private final boolean chestAutoDestroy;
+    private final boolean damageTracking;
+    private final long damageShowTicks;
+    private final boolean showPersonalDamage;
+    private final boolean globalAnnounce;
+    
+    // Lower case with the leading slash, ready to match against a typed command
+    private final List<String> blockedCommandPrefixes;
+    
+    // In config order
+    private final Map<String, SkillDefinition> skills;
+    private final Map<String, DungeonTypeDefinition> dungeonTypes;
+    // Enabled types with a positive weight, or null if there are none
+    private final AliasTable<DungeonTypeDefinition> dungeonTypeTable;
+    
+    private ConfigSnapshot(FileConfiguration config) {
+        this.config = config;
+        this.debug = config.getBoolean("general.debug", false);
+        
+        this.treasureWorldName = config.getString("general.treasure-world.name", "treasure_world");
+        this.spawnX = config.getInt("general.treasure-world.spawn.x", 0);
+        this.spawnY = config.getInt("general.treasure-world.spawn.y", -60);
+        this.spawnZ = config.getInt("general.treasure-world.spawn.z", 0);
+        this.minX = config.getInt("general.treasure-world.limits.min-x", -1000);
+        this.maxX = config.getInt("general.treasure-world.limits.max-x", 1000);
+        this.minZ = config.getInt("general.treasure-world.limits.min-z", -1000);
+        this.maxZ = config.getInt("general.treasure-world.limits.max-z", 1000);
+        this.minDistance = config.getInt("general.treasure-world.min-distance", 50);
+        this.siteMinScore = config.getInt("general.treasure-world.site-scoring.min-score", 60);
+        this.siteScoringBudget = Math.max(1, config.getInt("general.treasure-world.site-scoring.max-candidates", 16));
+        
+        this.waveDelayTicks = TimeUtils.parseTimeToTicks(config.getString("general.waves.delay-between-waves", "10s"));
+        this.bossDelayTicks = TimeUtils.parseTimeToTicks(config.getString("general.waves.delay-before-boss", "15s"));
+        this.chestTimeoutTicks = TimeUtils.parseTimeToTicks(config.getString("general.chest.timeout", "5m"));
+        this.chestAutoDestroy = config.getBoolean("general.chest.auto-destroy", true);
+        this.damageTracking = config.getBoolean("general.damage-tracking.enabled", true);
+        this.damageShowTicks = TimeUtils.parseTimeToTicks(config.getString("general.damage-tracking.show-duration", "30s"));
+        this.showPersonalDamage = config.getBoolean("general.damage-tracking.show-personal-damage", true);
+        this.globalAnnounce = config.getBoolean("general.announce-globally", true);
+        
+        List<String> prefixes = new ArrayList<>();
+        for (String command : config.getStringList("general.blocked-commands")) {
+            if (command != null && !command.isBlank()) {
+                prefixes.add("/" + command.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        this.blockedCommandPrefixes = List.copyOf(prefixes);
+        
+        Map<String, SkillDefinition> skillDefinitions = new LinkedHashMap<>();
+        ConfigurationSection skillsSection = config.getConfigurationSection("skills");
+        if (skillsSection != null) {
+            for (String skill : skillsSection.getKeys(false)) {
+                ConfigurationSection section = skillsSection.getConfigurationSection(skill);
+                if (section != null) {
+                    skillDefinitions.put(skill, SkillDefinition.compile(skill, section));
+                }
+            }
+        }
+        this.skills = Collections.unmodifiableMap(skillDefinitions);
+        
+        Map<String, DungeonTypeDefinition> typeDefinitions = new LinkedHashMap<>();
+        ConfigurationSection typesSection = config.getConfigurationSection("dungeon-types");
+        if (typesSection != null) {
+            for (String type : typesSection.getKeys(false)) {
+                ConfigurationSection section = typesSection.getConfigurationSection(type);
+                if (section != null) {
+                    typeDefinitions.put(type, DungeonTypeDefinition.compile(type, section));
+                }
+            }
+        }
+        this.dungeonTypes = Collections.unmodifiableMap(typeDefinitions);
+        this.dungeonTypeTable = buildDungeonTypeTable(typeDefinitions.values());
+    }
+    
+    private static AliasTable<DungeonTypeDefinition> buildDungeonTypeTable(Collection<DungeonTypeDefinition> definitions) {
+        List<DungeonTypeDefinition> selectable = new ArrayList<>();
+        for (DungeonTypeDefinition definition : definitions) {
+            if (definition.isEnabled() && definition.getWeight() > 0.0) {
+                selectable.add(definition);
+            }
+        }
+        if (selectable.isEmpty()) {
+            return null;
+        }
+        
+        double[] weights = new double[selectable.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = selectable.get(i).getWeight();
+        }
+        return new AliasTable<>(selectable, weights);
+    }
+    
+    /**
+     * Reads 30, 30.5 or "30%" as a number; a missing value gives the fallback and anything else NaN
+     */
+    static double parseNumber(Object value, double missing) {
+        if (value == null) {
+            return missing;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        
+        String text = value.toString().trim();
+        if (text.endsWith("%")) {
+            text = text.substring(0, text.length() - 1).trim();
+        }
+        try {
+            double parsed = Double.parseDouble(text);
+            return Double.isFinite(parsed) ? parsed : Double.NaN;
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+    
+    public static ConfigSnapshot compile(FileConfiguration config) {
+        return new ConfigSnapshot(config);
+    }
+    
+    /**
+     * Gets the parsed config.yml this snapshot was compiled from; must not be modified
+     */
+    public FileConfiguration getConfig() {
+        return config;
+    }
+    
+    public boolean isDebugEnabled() {
+        return debug;
+    }
+    
+    public String getTreasureWorldName() {
+        return treasureWorldName;
+    }
+    
+    public int getSpawnX() {
+        return spawnX;
+    }
+    
+    public int getSpawnY() {
+        return spawnY;
+    }
+    
+    public int getSpawnZ() {
+        return spawnZ;
+    }
+    
+    public int getMinX() {
+        return minX;
+    }
+    
+    public int getMaxX() {
+        return maxX;
+    }
+    
+    public int getMinZ() {
+        return minZ;
+    }
+    
+    public int getMaxZ() {
+        return maxZ;
+    }
+    
+    public int getMinDistance() {
+        return minDistance;
+    }
+    
+    /**
+     * Gets the terrain score (0-100) at which a site is taken without looking further
+     */
+    public int getSiteMinScore() {
+        return siteMinScore;
+    }
+    
+    /**
+     * Gets how many candidate sites are scored per map use at most
+     */
+    public int getSiteScoringBudget() {
+        return siteScoringBudget;
+    }
+    
+    public long getWaveDelayTicks() {
+        return waveDelayTicks;
+    }
+    
+    public long getBossDelayTicks() {
+        return bossDelayTicks;
+    }
+    
+    public long getChestTimeoutTicks() {
+        return chestTimeoutTicks;
+    }
+    
+    public boolean isChestAutoDestroy() {
+        return chestAutoDestroy;
+    }
+    
+    public boolean isDamageTrackingEnabled() {
+        return damageTracking;
+    }
+    
+    public long getDamageShowTicks() {
+        return damageShowTicks;
+    }
+    
+    public boolean showPersonalDamage() {
+        return showPersonalDamage;
+    }
+    
+    public boolean isGlobalAnnounce() {
+        return globalAnnounce;
+    }
+    
+    /**
+     * Checks whether a command, already lower case, starts with one of the blocked commands
+     */
+    public boolean isCommandBlocked(String command) {
+        for (String prefix : blockedCommandPrefixes) {
+            if (command.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Gets a skill's definition, or null if it is not configured
+     */
+    public SkillDefinition getSkill(String skill) {
+        return skills.get(skill);
+    }
+    
+    /**
+     * Gets every configured skill, enabled or not, in config order
+     */
+    public Map<String, SkillDefinition> getSkills() {
+        return skills;
+    }
+    
+    /**
+     * Gets a dungeon type's definition, or null if it is not configured
+     */
+    public DungeonTypeDefinition getDungeonType(String dungeonType) {
+        return dungeonTypes.get(dungeonType);
+    }
+    
+    public Map<String, DungeonTypeDefinition> getDungeonTypes() {
+        return dungeonTypes;
+    }
+    
+    /**
+     * Gets the weighted table new maps pick their dungeon type from, or null if no type can be picked
+     */
+    public AliasTable<DungeonTypeDefinition> getDungeonTypeTable() {
+        return dungeonTypeTable;
+    }
+}
@@ -0,0 +1,324 @@
+package com.noviui.treasuredungeon.config;
+
+import com.noviui.treasuredungeon.TreasureDungeonPlugin;
+import com.noviui.treasuredungeon.integration.IntegrationManager;
+import com.noviui.treasuredungeon.utils.TimeUtils;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Compiles a config file and the lang files without applying anything, and collects every
+ * mistake with the path it was found at. Used on each load, so a reload with errors keeps the
+ * running config, and by /treasure validate to check a file before it goes live.
+ * Only reads files and plugin state, so it can run off the main thread.
+ */
+public class ConfigValidator {
+    
+    // Durations outside dungeon types and skills, which check their own
+    private static final String[] DURATION_PATHS = {
+        "general.waves.delay-between-waves",
+        "general.waves.delay-before-boss",
+        "general.chest.timeout",
+        "general.damage-tracking.show-duration",
+        "general.placeholders.refresh-interval",
+        "database.invalidation.poll-interval",
+        "database.site-leases.ttl"
+    };
+    
+    // How many missing lang keys are named before the rest are only counted
+    private static final int MAX_LISTED_KEYS = 5;
+    
+    private final TreasureDungeonPlugin plugin;
+    
+    public ConfigValidator(TreasureDungeonPlugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    /**
+     * Loads and validates a config file. Keys missing from the file fall back to the bundled
+     * config.yml, the same way the live config does.
+     */
+    public Report validate(File configFile) {
+        List<ConfigIssue> issues = new ArrayList<>();
+        YamlConfiguration candidate = new YamlConfiguration();
+        try {
+            candidate.load(configFile);
+        } catch (IOException e) {
+            issues.add(ConfigIssue.error(configFile.getName(), "could not be read: " + e.getMessage()));
+            return new Report(null, null, issues);
+        } catch (InvalidConfigurationException e) {
+            issues.add(ConfigIssue.error(configFile.getName(), "is not valid YAML: " + firstLine(e.getMessage())));
+            return new Report(null, null, issues);
+        }
+        
+        YamlConfiguration defaults = loadBundled("config.yml");
+        if (defaults != null) {
+            candidate.setDefaults(defaults);
+        }
+        return validate(candidate, issues);
+    }
+    
+    private Report validate(FileConfiguration config, List<ConfigIssue> issues) {
+        ConfigSnapshot snapshot = ConfigSnapshot.compile(config);
+        
+        checkGeneral(config, snapshot, issues);
+        checkSkills(snapshot, issues);
+        checkDungeonTypes(snapshot, issues);
+        checkLanguageFiles(config.getString("general.language", "en"), issues);
+        
+        return new Report(config, snapshot, issues);
+    }
+    
+    private void checkGeneral(FileConfiguration config, ConfigSnapshot snapshot, List<ConfigIssue> issues) {
+        if (snapshot.getTreasureWorldName() == null || snapshot.getTreasureWorldName().isBlank()) {
+            issues.add(ConfigIssue.error("general.treasure-world.name", "is empty"));
+        }
+        if (snapshot.getMinX() >= snapshot.getMaxX()) {
+            issues.add(ConfigIssue.error("general.treasure-world.limits", "min-x " + snapshot.getMinX() + " is not below max-x " + snapshot.getMaxX()));
+        }
+        if (snapshot.getMinZ() >= snapshot.getMaxZ()) {
+            issues.add(ConfigIssue.error("general.treasure-world.limits", "min-z " + snapshot.getMinZ() + " is not below max-z " + snapshot.getMaxZ()));
+        }
+        if (snapshot.getMinDistance() <= 0) {
+            issues.add(ConfigIssue.error("general.treasure-world.min-distance", "must be positive"));
+        }
+        if (snapshot.getSiteMinScore() < 0 || snapshot.getSiteMinScore() > 100) {
+            issues.add(ConfigIssue.error("general.treasure-world.site-scoring.min-score", "must be between 0 and 100"));
+        }
+        if (config.getInt("general.treasure-world.site-scoring.max-candidates", 16) < 1) {
+            issues.add(ConfigIssue.error("general.treasure-world.site-scoring.max-candidates", "must be at least 1"));
+        }
+        
+        for (String path : DURATION_PATHS) {
+            String value = config.getString(path);
+            if (value != null && !TimeUtils.isValidDuration(value)) {
+                issues.add(ConfigIssue.error(path, "'" + value + "' is not a duration like 30s, 5m or 1h 30m"));
+            }
+        }
+        
+        String proximityMode = config.getString("general.proximity.mode", "event");
+        if (!"event".equalsIgnoreCase(proximityMode) && !"batch".equalsIgnoreCase(proximityMode)) {
+            issues.add(ConfigIssue.error("general.proximity.mode", "'" + proximityMode + "' is not event or batch"));
+        }
+        if (config.getInt("general.proximity.batch-interval-ticks", 10) < 1) {
+            issues.add(ConfigIssue.error("general.proximity.batch-interval-ticks", "must be at least 1"));
+        }
+        
+        if (config.getBoolean("database.enabled", false)) {
+            String type = config.getString("database.type", "mysql");
+            if (!"mysql".equalsIgnoreCase(type) && !"postgresql".equalsIgnoreCase(type)) {
+                issues.add(ConfigIssue.error("database.type", "'" + type + "' is not mysql or postgresql"));
+            }
+        }
+    }
+    
+    private void checkSkills(ConfigSnapshot snapshot, List<ConfigIssue> issues) {
+        for (SkillDefinition skill : snapshot.getSkills().values()) {
+            issues.addAll(skill.getProblems());
+        }
+    }
+    
+    private void checkDungeonTypes(ConfigSnapshot snapshot, List<ConfigIssue> issues) {
+        if (snapshot.getDungeonTypes().isEmpty()) {
+            issues.add(ConfigIssue.error("dungeon-types", "no dungeon types are configured"));
+            return;
+        }
+        if (snapshot.getDungeonTypeTable() == null) {
+            issues.add(ConfigIssue.error("dungeon-types", "no enabled type has a positive chance, so no dungeon can be picked"));
+        }
+        
+        IntegrationManager integrations = plugin.getIntegrationManager();
+        boolean checkMobs = integrations != null && integrations.isMythicMobsEnabled();
+        File schematicsFolder = new File(plugin.getDataFolder(), "schematics");
+        
+        for (DungeonTypeDefinition definition : snapshot.getDungeonTypes().values()) {
+            issues.addAll(definition.getProblems());
+            String path = "dungeon-types." + definition.getId() + ".";
+            
+            checkSchematic(schematicsFolder, definition.getBellSchematic(), path + "schematic-bell", issues);
+            checkSchematic(schematicsFolder, definition.getDungeonSchematic(), path + "schematic-dungeon", issues);
+            
+            if (checkMobs) {
+                for (int wave = 1; wave <= definition.getWaveCount(); wave++) {
+                    for (String mobId : definition.getWaveMobs(wave)) {
+                        if (!integrations.isMythicMobKnown(mobId)) {
+                            issues.add(ConfigIssue.error(path + "waves.mobs.wave" + wave, "unknown MythicMob '" + mobId + "'"));
+                        }
+                    }
+                }
+                String bossId = definition.getBossId();
+                if (bossId != null && !integrations.isMythicMobKnown(bossId)) {
+                    issues.add(ConfigIssue.error(path + "boss.id", "unknown MythicMob '" + bossId + "'"));
+                }
+            }
+        }
+    }
+    
+    /**
+     * A missing schematic only costs the building, the dungeon still runs, so it is a warning
+     */
+    private void checkSchematic(File schematicsFolder, String schematic, String path, List<ConfigIssue> issues) {
+        if (schematic != null && !new File(schematicsFolder, schematic).isFile()) {
+            issues.add(ConfigIssue.warning(path, "schematics/" + schematic + " does not exist"));
+        }
+    }
+    
+    private void checkLanguageFiles(String language, List<ConfigIssue> issues) {
+        File langFolder = new File(plugin.getDataFolder(), "lang");
+        YamlConfiguration bundledEnglish = loadBundled("lang/en.yml");
+        Set<String> englishKeys = bundledEnglish != null ? messageKeys(bundledEnglish) : Collections.emptySet();
+        
+        String normalized = language.toLowerCase();
+        if (!"en".equals(normalized) && !new File(langFolder, normalized + ".yml").isFile()
+                && plugin.getResource("lang/" + normalized + ".yml") == null) {
+            issues.add(ConfigIssue.warning("general.language", "there is no lang/" + normalized + ".yml, English is used"));
+        }
+        
+        File[] files = langFolder.listFiles((dir, name) -> name.endsWith(".yml"));
+        if (files == null) {
+            return;
+        }
+        
+        for (File file : files) {
+            String path = "lang/" + file.getName();
+            YamlConfiguration langConfig = new YamlConfiguration();
+            try {
+                langConfig.load(file);
+            } catch (IOException e) {
+                issues.add(ConfigIssue.error(path, "could not be read: " + e.getMessage()));
+                continue;
+            } catch (InvalidConfigurationException e) {
+                issues.add(ConfigIssue.error(path, "is not valid YAML: " + firstLine(e.getMessage())));
+                continue;
+            }
+            
+            if (!langConfig.isConfigurationSection("messages")) {
+                issues.add(ConfigIssue.error(path, "has no messages section"));
+                continue;
+            }
+            
+            Set<String> missing = new TreeSet<>(englishKeys);
+            missing.removeAll(messageKeys(langConfig));
+            if (!missing.isEmpty()) {
+                issues.add(ConfigIssue.warning(path, missing.size() + " message(s) missing, English is used for "
+                    + describeKeys(missing)));
+            }
+        }
+    }
+    
+    private static Set<String> messageKeys(YamlConfiguration langConfig) {
+        ConfigurationSection messages = langConfig.getConfigurationSection("messages");
+        Set<String> keys = new TreeSet<>();
+        if (messages == null) {
+            return keys;
+        }
+        for (String key : messages.getKeys(true)) {
+            if (!messages.isConfigurationSection(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+    
+    private static String describeKeys(Set<String> keys) {
+        List<String> listed = new ArrayList<>();
+        for (String key : keys) {
+            if (listed.size() == MAX_LISTED_KEYS) {
+                break;
+            }
+            listed.add(key);
+        }
+        String description = String.join(", ", listed);
+        int rest = keys.size() - listed.size();
+        return rest > 0 ? description + " and " + rest + " more" : description;
+    }
+    
+    private YamlConfiguration loadBundled(String resource) {
+        try (InputStream stream = plugin.getResource(resource)) {
+            if (stream == null) {
+                return null;
+            }
+            return YamlConfiguration.loadConfiguration(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    private static String firstLine(String message) {
+        if (message == null) {
+            return "unknown error";
+        }
+        int newline = message.indexOf('\n');
+        return newline >= 0 ? message.substring(0, newline).trim() : message.trim();
+    }
+    
+    /**
+     * The outcome of one validation run
+     */
+    public static final class Report {
+        
+        private final FileConfiguration config;
+        private final ConfigSnapshot snapshot;
+        private final List<ConfigIssue> issues;
+        private final int errorCount;
+        
+        private Report(FileConfiguration config, ConfigSnapshot snapshot, List<ConfigIssue> issues) {
+            this.config = config;
+            this.snapshot = snapshot;
+            this.issues = List.copyOf(issues);
+            int errors = 0;
+            for (ConfigIssue issue : issues) {
+                if (issue.isError()) {
+                    errors++;
+                }
+            }
+            this.errorCount = errors;
+        }
+        
+        /**
+         * Gets the parsed config, or null if the file could not be read
+         */
+        public FileConfiguration getConfig() {
+            return config;
+        }
+        
+        /**
+         * Gets the compiled candidate, or null if the file could not be read
+         */
+        public ConfigSnapshot getSnapshot() {
+            return snapshot;
+        }
+        
+        /**
+         * Gets every issue, in the order the checks found them
+         */
+        public List<ConfigIssue> getIssues() {
+            return issues;
+        }
+        
+        public int getErrorCount() {
+            return errorCount;
+        }
+        
+        public int getWarningCount() {
+            return issues.size() - errorCount;
+        }
+        
+        public boolean hasErrors() {
+            return errorCount > 0;
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package com.noviui.treasuredungeon.config;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
+import com.noviui.treasuredungeon.dungeon.GlobalStats;
+import com.noviui.treasuredungeon.dungeon.ProximityIndex;
+import com.noviui.treasuredungeon.placeholders.PlaceholderManager;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 
 public class DataManager {
     
@@ -19,6 +26,8 @@ public class DataManager {
     private FileConfiguration dataConfig;
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     private volatile boolean saveInProgress = false;
+    // Active dungeon targets by chunk, kept in step with the active-dungeon entries below
+    private final ProximityIndex proximityIndex = new ProximityIndex();
     
     public DataManager(TreasureDungeonPlugin plugin) {
         this.plugin = plugin;
@@ -55,6 +64,8 @@ public class DataManager {
                 saveData();
             }
             
+            rebuildProximityIndex();
+            
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Failed to load data.yml", e);
             throw new RuntimeException("Critical error loading data", e);
@@ -147,6 +158,7 @@ public class DataManager {
             
             // Async save to prevent blocking
             saveDataAsync();
+            notifyPlayerDataChanged(playerId);
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error setting cooldown for player " + playerId + " skill " + skill, e);
@@ -220,6 +232,7 @@ public class DataManager {
             
             // Async save to prevent blocking
             saveDataAsync();
+            notifyPlayerDataChanged(playerId);
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error setting map received for player " + playerId + " skill " + skill, e);
@@ -263,9 +276,11 @@ public class DataManager {
             dataConfig.set(basePath + ".status", "in-progress");
             dataConfig.set(basePath + ".dungeon-type", dungeonType);
             dataConfig.set(basePath + ".created-at", System.currentTimeMillis());
+            proximityIndex.put(playerId, skill, world, x, y, z);
             
             // Async save to prevent blocking
             saveDataAsync();
+            notifyPlayerDataChanged(playerId);
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error setting active dungeon for player " + playerId + " skill " + skill, e);
@@ -301,9 +316,11 @@ public class DataManager {
         try {
             String path = "players." + playerId.toString() + "." + skill + ".active-dungeon";
             dataConfig.set(path, null);
+            proximityIndex.remove(playerId, skill);
             
             // Async save to prevent blocking
             saveDataAsync();
+            notifyPlayerDataChanged(playerId);
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error clearing active dungeon for player " + playerId + " skill " + skill, e);
@@ -349,6 +366,145 @@ public class DataManager {
         }
     }
     
+    /**
+     * Applies a reader to a player's data section under the read lock; the section is null if the player has no data
+     */
+    public <T> T readPlayerData(UUID playerId, Function<ConfigurationSection, T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.apply(dataConfig.getConfigurationSection("players." + playerId.toString()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Gets the index of active dungeon targets used by the proximity checks
+     */
+    public ProximityIndex getProximityIndex() {
+        return proximityIndex;
+    }
+    
+    /**
+     * Files every in-progress dungeon in data.yml into the proximity index. Called with the write lock held.
+     */
+    private void rebuildProximityIndex() {
+        proximityIndex.clear();
+        
+        ConfigurationSection playersSection = dataConfig.getConfigurationSection("players");
+        if (playersSection == null) {
+            return;
+        }
+        
+        for (String playerIdStr : playersSection.getKeys(false)) {
+            ConfigurationSection playerSection = playersSection.getConfigurationSection(playerIdStr);
+            if (playerSection == null) {
+                continue;
+            }
+            
+            UUID playerId;
+            try {
+                playerId = UUID.fromString(playerIdStr);
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            
+            for (String skill : playerSection.getKeys(false)) {
+                ConfigurationSection dungeonSection = playerSection.getConfigurationSection(skill + ".active-dungeon");
+                if (dungeonSection == null || !"in-progress".equals(dungeonSection.getString("status"))) {
+                    continue;
+                }
+                
+                String world = dungeonSection.getString("world");
+                if (world != null) {
+                    proximityIndex.put(playerId, skill, world,
+                        dungeonSection.getInt("coords.x", 0),
+                        dungeonSection.getInt("coords.y", 64),
+                        dungeonSection.getInt("coords.z", 0));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Lets cached views of a player's data rebuild after a change
+     */
+    private void notifyPlayerDataChanged(UUID playerId) {
+        GlobalStats globalStats = plugin.getGlobalStats();
+        if (globalStats != null) {
+            globalStats.recordPlayer(playerId);
+        }
+        
+        PlaceholderManager placeholderManager = plugin.getPlaceholderManager();
+        if (placeholderManager != null) {
+            placeholderManager.invalidate(playerId);
+        }
+    }
+    
+    /**
+     * Gets the UUIDs of every player with stored data
+     */
+    public Set<UUID> getKnownPlayerIds() {
+        Set<UUID> playerIds = new HashSet<>();
+        
+        lock.readLock().lock();
+        try {
+            ConfigurationSection playersSection = dataConfig.getConfigurationSection("players");
+            if (playersSection == null) {
+                return playerIds;
+            }
+            
+            for (String key : playersSection.getKeys(false)) {
+                try {
+                    playerIds.add(UUID.fromString(key));
+                } catch (IllegalArgumentException ignored) {
+                    // Not a player entry
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        
+        return playerIds;
+    }
+    
+    // Server-wide totals, persisted with the next save
+    public long getGlobalLong(String key, long defaultValue) {
+        lock.readLock().lock();
+        try {
+            return dataConfig.getLong("global." + key, defaultValue);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public void setGlobalLong(String key, long value) {
+        lock.writeLock().lock();
+        try {
+            dataConfig.set("global." + key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public String getGlobalString(String key) {
+        lock.readLock().lock();
+        try {
+            return dataConfig.getString("global." + key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public void setGlobalString(String key, String value) {
+        lock.writeLock().lock();
+        try {
+            dataConfig.set("global." + key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
     public FileConfiguration getDataConfig() {
         lock.readLock().lock();
         try {
@@ -392,6 +548,14 @@ public class DataManager {
                     if (currentTime - createdAt > maxAge) {
                         skillSection.set("active-dungeon", null);
                         cleanedCount++;
+                        
+                        try {
+                            UUID playerId = UUID.fromString(playerIdStr);
+                            proximityIndex.remove(playerId, skill);
+                            notifyPlayerDataChanged(playerId);
+                        } catch (IllegalArgumentException ignored) {
+                            // Not a player entry
+                        }
                     }
                 }
             }
@@ -0,0 +1,204 @@
+package com.noviui.treasuredungeon.config;
+
+import com.noviui.treasuredungeon.utils.TimeUtils;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One dungeon type under dungeon-types.&lt;id&gt;, compiled once when the config is loaded.
+ * Wave and boss mob ids are trimmed arrays and delays are in ticks, so running dungeons never
+ * read YAML or parse durations. Mistakes found while compiling are kept in {@link #getProblems()}
+ * with their full config path.
+ */
+public final class DungeonTypeDefinition {
+    
+    private static final String[] NO_MOBS = new String[0];
+    
+    private final String id;
+    private final boolean enabled;
+    private final double weight;
+    private final String bellSchematic;
+    private final String dungeonSchematic;
+    // Index 0 holds wave1; blank ids are already removed
+    private final String[][] waves;
+    private final String bossId;
+    private final String bossSpawnDelay;
+    private final long bossSpawnDelayTicks;
+    private final String lootType;
+    private final List<String> lootCommands;
+    private final List<ConfigIssue> problems;
+    
+    private DungeonTypeDefinition(String id, ConfigurationSection section) {
+        List<ConfigIssue> found = new ArrayList<>();
+        String path = section.getCurrentPath() + ".";
+        
+        this.id = id;
+        this.enabled = section.getBoolean("enabled", true);
+        
+        // Support both old weight system and new percentage system ("30%" and 30 weigh the same)
+        String weightKey = section.contains("chance") ? "chance" : "weight";
+        double parsedWeight = ConfigSnapshot.parseNumber(section.get(weightKey), 10.0);
+        if (Double.isNaN(parsedWeight)) {
+            found.add(ConfigIssue.error(path + weightKey, "'" + section.get(weightKey) + "' is not a number or percentage"));
+            parsedWeight = 10.0;
+        } else if (parsedWeight <= 0.0 && enabled) {
+            found.add(ConfigIssue.warning(path + weightKey, "is not positive, so this type is never picked"));
+        }
+        this.weight = Math.max(0.0, parsedWeight);
+        this.bellSchematic = trimToNull(section.getString("schematic-bell"));
+        this.dungeonSchematic = trimToNull(section.getString("schematic-dungeon"));
+        
+        int waveCount = section.getInt("waves.count", 2);
+        if (waveCount < 0) {
+            found.add(ConfigIssue.error(path + "waves.count", "is negative"));
+            waveCount = 0;
+        }
+        this.waves = new String[waveCount][];
+        for (int wave = 1; wave <= waveCount; wave++) {
+            String[] mobs = compileMobIds(section.getStringList("waves.mobs.wave" + wave));
+            if (mobs.length == 0) {
+                found.add(ConfigIssue.error(path + "waves.mobs.wave" + wave, "has no mobs"));
+            }
+            waves[wave - 1] = mobs;
+        }
+        
+        this.bossId = trimToNull(section.getString("boss.id"));
+        if (bossId == null) {
+            found.add(ConfigIssue.error(path + "boss.id", "is not set"));
+        }
+        
+        this.bossSpawnDelay = section.getString("boss.spawn-delay", "8s");
+        this.bossSpawnDelayTicks = TimeUtils.parseTimeToTicks(bossSpawnDelay);
+        if (!TimeUtils.isValidDuration(bossSpawnDelay) || bossSpawnDelayTicks <= 0) {
+            found.add(ConfigIssue.error(path + "boss.spawn-delay", "'" + bossSpawnDelay + "' is not a duration like 8s or 1m"));
+        }
+        
+        this.lootType = section.getString("loot.type", "commands");
+        List<String> commands = new ArrayList<>();
+        for (String command : section.getStringList("loot.commands")) {
+            if (command != null && !command.isBlank()) {
+                commands.add(command.trim());
+            }
+        }
+        this.lootCommands = List.copyOf(commands);
+        if ("commands".equals(lootType) && lootCommands.isEmpty()) {
+            found.add(ConfigIssue.warning(path + "loot.commands", "is empty, so this type gives no loot"));
+        }
+        
+        this.problems = List.copyOf(found);
+    }
+    
+    static DungeonTypeDefinition compile(String id, ConfigurationSection section) {
+        return new DungeonTypeDefinition(id, section);
+    }
+    
+    private static String[] compileMobIds(List<String> ids) {
+        List<String> mobs = new ArrayList<>(ids.size());
+        for (String mobId : ids) {
+            String trimmed = trimToNull(mobId);
+            if (trimmed != null) {
+                mobs.add(trimmed);
+            }
+        }
+        return mobs.isEmpty() ? NO_MOBS : mobs.toArray(new String[0]);
+    }
+    
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    /**
+     * Whether this type can be picked for new maps. Disabled types still run for maps already handed out.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Gets the relative chance of this type being picked; only its share of the total weight matters
+     */
+    public double getWeight() {
+        return weight;
+    }
+    
+    public String getBellSchematic() {
+        return bellSchematic;
+    }
+    
+    public String getDungeonSchematic() {
+        return dungeonSchematic;
+    }
+    
+    public int getWaveCount() {
+        return waves.length;
+    }
+    
+    /**
+     * Gets the mob ids of a wave, counting from 1, or an empty array if the wave isn't configured.
+     * The array is shared and must not be modified.
+     */
+    public String[] getWaveMobs(int wave) {
+        return wave >= 1 && wave <= waves.length ? waves[wave - 1] : NO_MOBS;
+    }
+    
+    /**
+     * Gets the boss mob id, or null if none is configured
+     */
+    public String getBossId() {
+        return bossId;
+    }
+    
+    public String getBossSpawnDelay() {
+        return bossSpawnDelay;
+    }
+    
+    public long getBossSpawnDelayTicks() {
+        return bossSpawnDelayTicks;
+    }
+    
+    public String getLootType() {
+        return lootType;
+    }
+    
+    public boolean hasCommandLoot() {
+        return "commands".equals(lootType) && !lootCommands.isEmpty();
+    }
+    
+    public List<String> getLootCommands() {
+        return lootCommands;
+    }
+    
+    /**
+     * Gets every MythicMob id this type spawns, waves first and then the boss
+     */
+    public Set<String> getMobReferences() {
+        Set<String> references = new LinkedHashSet<>();
+        for (String[] wave : waves) {
+            Collections.addAll(references, wave);
+        }
+        if (bossId != null) {
+            references.add(bossId);
+        }
+        return references;
+    }
+    
+    /**
+     * Gets the configuration mistakes found while compiling, empty if there were none
+     */
+    public List<ConfigIssue> getProblems() {
+        return problems;
+    }
+}
@@ -0,0 +1,112 @@
+package com.noviui.treasuredungeon.config;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The compiled messages for one locale, with every key missing from its own file filled in
+ * from the rest of its fallback chain. Immutable once built, so it can be shared by any number
+ * of players and threads.
+ */
+public final class LanguageBundle {
+    
+    private static final LegacyComponentSerializer LEGACY = LegacyComponentSerializer.legacySection();
+    
+    private final String locale;
+    private final Map<String, MessageTemplate> messages;
+    private final Map<String, List<String>> lists;
+    private final String prefix;
+    // Prefixed components for messages without placeholders, converted on first broadcast
+    private final Map<String, Component> prefixedComponents = new ConcurrentHashMap<>();
+    
+    LanguageBundle(String locale, Map<String, MessageTemplate> messages, Map<String, List<String>> lists) {
+        this.locale = locale;
+        this.messages = messages;
+        this.lists = lists;
+        this.prefix = getMessage("prefix");
+    }
+    
+    /**
+     * Gets the locale of the most specific file in this bundle's chain, e.g. "pt" for a pt_br client
+     */
+    public String getLocale() {
+        return locale;
+    }
+    
+    public String getPrefix() {
+        return prefix;
+    }
+    
+    public String getMessage(String key) {
+        MessageTemplate template = messages.get(key);
+        return template != null ? template.getText() : "Missing message: " + key;
+    }
+    
+    public String getMessage(String key, Map<String, String> placeholders) {
+        MessageTemplate template = messages.get(key);
+        return template != null ? template.format(placeholders) : "Missing message: " + key;
+    }
+    
+    /**
+     * Gets a prefixed message without placeholders as a component, converted from legacy text only once
+     */
+    public Component getPrefixedComponent(String key) {
+        Component component = prefixedComponents.get(key);
+        if (component == null) {
+            component = prefixedComponents.computeIfAbsent(key, k -> LEGACY.deserialize(prefix + getMessage(k)));
+        }
+        return component;
+    }
+    
+    /**
+     * Gets a multi-line message such as command-help, or an empty list if it is missing
+     */
+    public List<String> getMessageList(String key) {
+        return lists.getOrDefault(key, Collections.emptyList());
+    }
+    
+    /**
+     * Gets the compiled template for a message, or null if no file in the chain defines it
+     */
+    public MessageTemplate getTemplate(String key) {
+        return messages.get(key);
+    }
+    
+    public String format(String key, String name, String value) {
+        MessageTemplate template = messages.get(key);
+        return template != null ? template.format(name, value) : "Missing message: " + key;
+    }
+    
+    public String format(String key, String name, long value) {
+        MessageTemplate template = messages.get(key);
+        return template != null ? template.format(name, value) : "Missing message: " + key;
+    }
+    
+    public String format(String key, String name1, String value1, String name2, String value2) {
+        MessageTemplate template = messages.get(key);
+        return template != null ? template.format(name1, value1, name2, value2) : "Missing message: " + key;
+    }
+    
+    public String format(String key, String name1, String value1, String name2, String value2,
+                         String name3, String value3) {
+        MessageTemplate template = messages.get(key);
+        return template != null ? template.format(name1, value1, name2, value2, name3, value3) : "Missing message: " + key;
+    }
+    
+    public String format(String key, String name1, String value1, String name2, String value2,
+                         String name3, String value3, String name4, String value4) {
+        MessageTemplate template = messages.get(key);
+        return template != null
+            ? template.format(name1, value1, name2, value2, name3, value3, name4, value4)
+            : "Missing message: " + key;
+    }
+    
+    public int size() {
+        return messages.size();
+    }
+}
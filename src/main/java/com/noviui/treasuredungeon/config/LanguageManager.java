@@ -2,58 +2,261 @@ package com.noviui.treasuredungeon.config;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import net.md_5.bungee.api.ChatColor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.InvalidConfigurationException;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerLocaleChangeEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
 
-public class LanguageManager {
+/**
+ * Loads language files into compiled {@link LanguageBundle}s. The configured language is compiled
+ * eagerly; other lang files are compiled the first time a player whose client locale maps to them
+ * needs one. Client locales without a lang file get the configured language.
+ * Lookups fall back pt_br -> pt -> configured language -> en, so partial files only need the keys they change.
+ * Edited lang files are picked up by {@link YamlFileWatcher} without a full plugin reload.
+ */
+public class LanguageManager implements Listener {
+    
+    private static final String BASE_LANGUAGE = "en";
+    private static final Pattern VALID_LOCALE = Pattern.compile("[a-z]{2,8}(_[a-z0-9]{2,8})*");
     
     private final TreasureDungeonPlugin plugin;
-    private FileConfiguration langConfig;
-    private final Map<String, String> messageCache = new HashMap<>();
+    
+    // Everything readers need, replaced as a whole so they never see a reload half applied
+    private volatile Catalog catalog;
+    // Only writers take this; readers just read the volatile field
+    private final Object reloadLock = new Object();
+    private YamlFileWatcher fileWatcher;
     
     public LanguageManager(TreasureDungeonPlugin plugin) {
         this.plugin = plugin;
+        // Marking en as missing keeps this placeholder from reading files before loadLanguage
+        this.catalog = new Catalog(BASE_LANGUAGE, true, Set.of(BASE_LANGUAGE), Map.of(BASE_LANGUAGE, LangFile.EMPTY), null, null);
     }
     
     public void loadLanguage() {
-        String language = plugin.getConfigManager().getLanguage();
-        File langFile = new File(plugin.getDataFolder(), "lang/" + language + ".yml");
+        File langFolder = new File(plugin.getDataFolder(), "lang");
         
         // Create lang folder if it doesn't exist
-        if (!langFile.getParentFile().exists()) {
-            langFile.getParentFile().mkdirs();
+        if (!langFolder.exists()) {
+            langFolder.mkdirs();
         }
         
         // Save default language files
-        if (!new File(plugin.getDataFolder(), "lang/en.yml").exists()) {
+        if (!new File(langFolder, "en.yml").exists()) {
             plugin.saveResource("lang/en.yml", false);
         }
-        if (!new File(plugin.getDataFolder(), "lang/pt.yml").exists()) {
+        if (!new File(langFolder, "pt.yml").exists()) {
             plugin.saveResource("lang/pt.yml", false);
         }
         
-        // Load the specified language file
-        if (langFile.exists()) {
-            langConfig = YamlConfiguration.loadConfiguration(langFile);
-        } else {
-            // Fallback to English
-            File enFile = new File(plugin.getDataFolder(), "lang/en.yml");
-            langConfig = YamlConfiguration.loadConfiguration(enFile);
+        // Missing language files fall back to English through the chain
+        synchronized (reloadLock) {
+            catalog = new Catalog(normalizeLocale(plugin.getConfigManager().getLanguage()),
+                plugin.getConfigManager().isPerPlayerLanguage(), listLangFiles(langFolder), Collections.emptyMap(), null, null);
+        }
+        
+        if (plugin.getConfigManager().isWatchLanguageFiles()) {
+            if (fileWatcher == null) {
+                fileWatcher = new YamlFileWatcher(plugin.getLogger(), langFolder.toPath(), "Lang", this::reloadFile);
+                fileWatcher.start();
+            }
+        } else if (fileWatcher != null) {
+            fileWatcher.stop();
+            fileWatcher = null;
+        }
+    }
+    
+    /**
+     * Recompiles one lang file and publishes it with a single swap. Bundles whose fallback chain
+     * does not include the file are carried over; the rest are rebuilt here, before readers see them.
+     * Called from the language watcher thread.
+     */
+    public void reloadFile(String locale) {
+        String normalized = normalizeLocale(locale);
+        if (!VALID_LOCALE.matcher(normalized).matches()) {
+            return;
+        }
+        
+        synchronized (reloadLock) {
+            Catalog current = catalog;
+            if (!current.availableLocales.contains(normalized)) {
+                // A new file: make it available; it is read when a bundle first needs it
+                if (new File(plugin.getDataFolder(), "lang/" + normalized + ".yml").isFile()) {
+                    Set<String> available = new HashSet<>(current.availableLocales);
+                    available.add(normalized);
+                    catalog = new Catalog(current.defaultLanguage, current.perPlayerLanguage, available,
+                        current.langFiles, current, null);
+                    plugin.getLogger().info("Added lang/" + normalized + ".yml");
+                }
+                return;
+            }
+            
+            LangFile previous = current.langFiles.get(normalized);
+            if (previous == null) {
+                // No bundle was built from it yet, so it will be read fresh when first needed
+                return;
+            }
+            
+            long start = System.nanoTime();
+            LangFile updated = readLangFile(normalized);
+            if (updated == null) {
+                plugin.getLogger().warning("Keeping the previous lang/" + normalized + ".yml until its errors are fixed");
+                return;
+            }
+            
+            Map<String, LangFile> files = new HashMap<>(current.langFiles);
+            files.put(normalized, updated);
+            
+            // A file appearing or disappearing changes which chains exist, so nothing can be reused
+            boolean reuseChains = previous.isEmpty() == updated.isEmpty();
+            catalog = new Catalog(current.defaultLanguage, current.perPlayerLanguage, current.availableLocales,
+                files, current, reuseChains ? normalized : null);
+            
+            plugin.getLogger().info("Reloaded lang/" + normalized + ".yml in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+        }
+    }
+    
+    public void shutdown() {
+        if (fileWatcher != null) {
+            fileWatcher.stop();
+            fileWatcher = null;
+        }
+    }
+    
+    /**
+     * Gets the bundle for a client locale such as "pt_BR" or "en_us", compiling it on first use.
+     * Locales without a lang file of their own or for their language get the default bundle.
+     */
+    public LanguageBundle getBundle(String locale) {
+        return getBundle(catalog, locale);
+    }
+    
+    private LanguageBundle getBundle(Catalog current, String locale) {
+        if (locale == null || locale.isEmpty()) {
+            return current.defaultBundle;
+        }
+        
+        // Client-supplied, so it must never reach the file system as a path
+        String normalized = normalizeLocale(locale);
+        if (!VALID_LOCALE.matcher(normalized).matches()) {
+            return current.defaultBundle;
+        }
+        
+        // Only lang files that exist get a bundle, so client locales can't grow the caches
+        String resolved = current.resolveLocale(normalized);
+        return resolved != null ? current.getBundle(resolved) : current.defaultBundle;
+    }
+    
+    /**
+     * Gets the bundle for whoever receives a message. Console and command blocks use the configured language.
+     * A player's bundle is resolved once and reused until they change client language or leave.
+     */
+    public LanguageBundle getBundle(CommandSender sender) {
+        Catalog current = catalog;
+        if (!current.perPlayerLanguage || !(sender instanceof Player player)) {
+            return current.defaultBundle;
+        }
+        
+        LanguageBundle bundle = current.playerBundles.get(player.getUniqueId());
+        if (bundle == null) {
+            bundle = getBundle(current, player.locale().toString());
+            current.playerBundles.put(player.getUniqueId(), bundle);
+        }
+        return bundle;
+    }
+    
+    public LanguageBundle getDefaultBundle() {
+        return catalog.defaultBundle;
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onLocaleChange(PlayerLocaleChangeEvent event) {
+        Catalog current = catalog;
+        if (current.perPlayerLanguage) {
+            current.playerBundles.put(event.getPlayer().getUniqueId(), getBundle(current, event.getLocale()));
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        catalog.playerBundles.remove(event.getPlayer().getUniqueId());
+    }
+    
+    /**
+     * Lists the lang files in the folder by normalized locale; taken once per load, so resolving
+     * a client locale never touches the file system
+     */
+    private static Set<String> listLangFiles(File langFolder) {
+        Set<String> locales = new HashSet<>();
+        String[] names = langFolder.list();
+        if (names == null) {
+            return locales;
         }
         
-        loadMessagesToCache();
+        for (String name : names) {
+            if (name.endsWith(".yml")) {
+                String locale = normalizeLocale(name.substring(0, name.length() - 4));
+                if (VALID_LOCALE.matcher(locale).matches()) {
+                    locales.add(locale);
+                }
+            }
+        }
+        return locales;
+    }
+    
+    private LangFile loadLangFile(String locale) {
+        LangFile file = readLangFile(locale);
+        return file != null ? file : LangFile.EMPTY;
     }
     
-    private void loadMessagesToCache() {
-        messageCache.clear();
-        loadSectionToCache("messages", "");
+    /**
+     * Compiles a lang file, or returns null if it could not be parsed
+     */
+    private LangFile readLangFile(String locale) {
+        File langFile = new File(plugin.getDataFolder(), "lang/" + locale + ".yml");
+        if (!langFile.isFile()) {
+            return LangFile.EMPTY;
+        }
+        
+        YamlConfiguration langConfig = new YamlConfiguration();
+        try {
+            langConfig.load(langFile);
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().log(Level.WARNING, "Could not load lang/" + locale + ".yml", e);
+            return null;
+        }
+        
+        LangFile file = new LangFile(new HashMap<>(), new HashMap<>());
+        loadSectionToCache(langConfig, file, "messages", "");
+        return file;
     }
     
-    private void loadSectionToCache(String section, String prefix) {
+    private void loadSectionToCache(FileConfiguration langConfig, LangFile file, String section, String prefix) {
         if (langConfig.getConfigurationSection(section) == null) {
             return;
         }
@@ -63,32 +266,69 @@ public class LanguageManager {
             String path = section + "." + key;
             
             if (langConfig.isConfigurationSection(path)) {
-                loadSectionToCache(path, fullKey);
+                loadSectionToCache(langConfig, file, path, fullKey);
+            } else if (langConfig.isList(path)) {
+                List<String> lines = new ArrayList<>();
+                for (String line : langConfig.getStringList(path)) {
+                    lines.add(colorize(line));
+                }
+                file.lists().put(fullKey, Collections.unmodifiableList(lines));
             } else {
                 String value = langConfig.getString(path, "");
-                messageCache.put(fullKey, colorize(value));
+                file.messages().put(fullKey, MessageTemplate.compile(colorize(value)));
             }
         }
     }
     
+    /**
+     * Normalizes client locales ("pt_BR", "pt-br") to lang file names ("pt_br")
+     */
+    private static String normalizeLocale(String locale) {
+        return locale.trim().replace('-', '_').toLowerCase(Locale.ROOT);
+    }
+    
     public String getMessage(String key) {
-        return messageCache.getOrDefault(key, "Missing message: " + key);
+        return catalog.defaultBundle.getMessage(key);
     }
     
+    /**
+     * Gets a message with placeholders replaced from a map. Prefer the format overloads on hot paths.
+     */
     public String getMessage(String key, Map<String, String> placeholders) {
-        String message = getMessage(key);
-        
-        if (placeholders != null) {
-            for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-                message = message.replace("{" + entry.getKey() + "}", entry.getValue());
-            }
-        }
-        
-        return message;
+        return catalog.defaultBundle.getMessage(key, placeholders);
+    }
+    
+    /**
+     * Gets the compiled template for a message, or null if the key is missing
+     */
+    public MessageTemplate getTemplate(String key) {
+        return catalog.defaultBundle.getTemplate(key);
+    }
+    
+    public String format(String key, String name, String value) {
+        return catalog.defaultBundle.format(key, name, value);
+    }
+    
+    public String format(String key, String name, long value) {
+        return catalog.defaultBundle.format(key, name, value);
+    }
+    
+    public String format(String key, String name1, String value1, String name2, String value2) {
+        return catalog.defaultBundle.format(key, name1, value1, name2, value2);
+    }
+    
+    public String format(String key, String name1, String value1, String name2, String value2,
+                         String name3, String value3) {
+        return catalog.defaultBundle.format(key, name1, value1, name2, value2, name3, value3);
+    }
+    
+    public String format(String key, String name1, String value1, String name2, String value2,
+                         String name3, String value3, String name4, String value4) {
+        return catalog.defaultBundle.format(key, name1, value1, name2, value2, name3, value3, name4, value4);
     }
     
     public String getPrefix() {
-        return getMessage("prefix");
+        return catalog.defaultBundle.getPrefix();
     }
     
     private String colorize(String text) {
@@ -96,6 +336,142 @@ public class LanguageManager {
         return ChatColor.translateAlternateColorCodes('&', text);
     }
     
+    /**
+     * The lang files and bundles for one version of the language settings. Its maps only ever
+     * gain fully built entries; a reload builds a new catalog instead of changing this one.
+     */
+    private final class Catalog {
+        
+        private final String defaultLanguage;
+        private final boolean perPlayerLanguage;
+        // Lang files found in the folder when the catalog was built
+        private final Set<String> availableLocales;
+        // Compiled messages per lang file; an empty file marks one that does not exist
+        private final Map<String, LangFile> langFiles;
+        // Bundles per lang file and per resolved chain, so pt_br and pt_pt share the pt bundle
+        private final Map<String, LanguageBundle> localeBundles = new ConcurrentHashMap<>();
+        private final Map<String, LanguageBundle> chainBundles = new ConcurrentHashMap<>();
+        private final Map<UUID, LanguageBundle> playerBundles = new ConcurrentHashMap<>();
+        private final LanguageBundle defaultBundle;
+        
+        /**
+         * @param previous the catalog being replaced, whose locales and players are rebuilt here, or null
+         * @param changedLocale the only file that differs from previous, or null if no bundle can be reused
+         */
+        Catalog(String defaultLanguage, boolean perPlayerLanguage, Set<String> availableLocales,
+                Map<String, LangFile> langFiles, Catalog previous, String changedLocale) {
+            this.defaultLanguage = defaultLanguage;
+            this.perPlayerLanguage = perPlayerLanguage;
+            this.availableLocales = Set.copyOf(availableLocales);
+            this.langFiles = new ConcurrentHashMap<>(langFiles);
+            
+            if (previous != null) {
+                if (changedLocale != null) {
+                    for (Map.Entry<String, LanguageBundle> entry : previous.chainBundles.entrySet()) {
+                        if (!Arrays.asList(entry.getKey().split(">")).contains(changedLocale)) {
+                            chainBundles.put(entry.getKey(), entry.getValue());
+                        }
+                    }
+                }
+                
+                // Rebuild every bundle in use now, so the first message after a reload doesn't pay for it
+                Map<LanguageBundle, LanguageBundle> rebuilt = new IdentityHashMap<>();
+                for (Map.Entry<String, LanguageBundle> entry : previous.localeBundles.entrySet()) {
+                    rebuilt.put(entry.getValue(), getBundle(entry.getKey()));
+                }
+                for (Map.Entry<UUID, LanguageBundle> entry : previous.playerBundles.entrySet()) {
+                    LanguageBundle bundle = rebuilt.get(entry.getValue());
+                    if (bundle != null) {
+                        playerBundles.put(entry.getKey(), bundle);
+                    }
+                }
+            }
+            
+            this.defaultBundle = getBundle(defaultLanguage);
+        }
+        
+        /**
+         * Maps a client locale to the most specific lang file for it, e.g. pt_br to pt when there
+         * is no pt_br.yml, or null if there is neither
+         */
+        private String resolveLocale(String locale) {
+            if (availableLocales.contains(locale)) {
+                return locale;
+            }
+            int separator = locale.indexOf('_');
+            if (separator > 0 && availableLocales.contains(locale.substring(0, separator))) {
+                return locale.substring(0, separator);
+            }
+            return null;
+        }
+        
+        private LanguageBundle getBundle(String locale) {
+            LanguageBundle bundle = localeBundles.get(locale);
+            if (bundle == null) {
+                bundle = localeBundles.computeIfAbsent(locale, this::resolveBundle);
+            }
+            return bundle;
+        }
+        
+        /**
+         * Builds the bundle for a locale from the existing files in its fallback chain
+         */
+        private LanguageBundle resolveBundle(String locale) {
+            List<String> chain = new ArrayList<>();
+            for (String candidate : fallbackChain(locale)) {
+                if (!chain.contains(candidate) && availableLocales.contains(candidate)
+                        && !getLangFile(candidate).isEmpty()) {
+                    chain.add(candidate);
+                }
+            }
+            
+            if (chain.isEmpty()) {
+                return new LanguageBundle(BASE_LANGUAGE, Collections.emptyMap(), Collections.emptyMap());
+            }
+            
+            return chainBundles.computeIfAbsent(String.join(">", chain), key -> {
+                // Least specific first so more specific files override it
+                Map<String, MessageTemplate> messages = new HashMap<>();
+                Map<String, List<String>> lists = new HashMap<>();
+                for (int i = chain.size() - 1; i >= 0; i--) {
+                    LangFile file = getLangFile(chain.get(i));
+                    messages.putAll(file.messages());
+                    lists.putAll(file.lists());
+                }
+                return new LanguageBundle(chain.get(0), Collections.unmodifiableMap(messages), Collections.unmodifiableMap(lists));
+            });
+        }
+        
+        private List<String> fallbackChain(String locale) {
+            List<String> chain = new ArrayList<>(4);
+            chain.add(locale);
+            
+            int separator = locale.indexOf('_');
+            if (separator > 0) {
+                chain.add(locale.substring(0, separator));
+            }
+            
+            chain.add(defaultLanguage);
+            chain.add(BASE_LANGUAGE);
+            return chain;
+        }
+        
+        private LangFile getLangFile(String locale) {
+            return langFiles.computeIfAbsent(locale, LanguageManager.this::loadLangFile);
+        }
+    }
+    
+    /**
+     * The compiled contents of one lang file
+     */
+    private record LangFile(Map<String, MessageTemplate> messages, Map<String, List<String>> lists) {
+        private static final LangFile EMPTY = new LangFile(Collections.emptyMap(), Collections.emptyMap());
+        
+        boolean isEmpty() {
+            return messages.isEmpty() && lists.isEmpty();
+        }
+    }
+    
     public String formatTime(long milliseconds) {
         long seconds = milliseconds / 1000;
         long minutes = seconds / 60;
@@ -112,4 +488,4 @@ public class LanguageManager {
             return seconds + "s";
         }
     }
-}
\ No newline at end of file
+}
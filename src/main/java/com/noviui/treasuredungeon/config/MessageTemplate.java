@@ -0,0 +1,237 @@
+package com.noviui.treasuredungeon.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A language message compiled once into literal segments and positional slots.
+ * Each slot points at an index in the template's table of distinct placeholder names, so a
+ * format call looks up each supplied name once and then renders by index, and sending a
+ * message costs one string allocation from a reused per-thread builder.
+ */
+public final class MessageTemplate {
+    
+    // Builders that grew past this are dropped instead of being kept alive per thread
+    private static final int MAX_RETAINED_CAPACITY = 8192;
+    
+    // Index of a name the template has no slot for
+    private static final int NO_SLOT = -1;
+    
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    
+    private final String text;
+    // literals.length == slotIndex.length + 1; literal i precedes slot i
+    private final String[] literals;
+    // Distinct placeholder names in order of first appearance
+    private final String[] names;
+    // For each slot, the index of its name in names
+    private final int[] slotIndex;
+    
+    private MessageTemplate(String text, String[] literals, String[] names, int[] slotIndex) {
+        this.text = text;
+        this.literals = literals;
+        this.names = names;
+        this.slotIndex = slotIndex;
+    }
+    
+    /**
+     * Compiles a message, treating every {name} as a slot. Unbalanced braces are kept as text.
+     */
+    public static MessageTemplate compile(String text) {
+        if (text == null) {
+            text = "";
+        }
+        
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int literalStart = 0;
+        int open = text.indexOf('{');
+        
+        while (open >= 0) {
+            int close = text.indexOf('}', open + 1);
+            if (close < 0) {
+                break;
+            }
+            
+            // A nested '{' means the first one was literal text
+            int nested = text.lastIndexOf('{', close);
+            if (nested > open) {
+                open = nested;
+            }
+            
+            if (close > open + 1) {
+                literals.add(text.substring(literalStart, open));
+                // Interned so call sites passing literals match by reference
+                String name = text.substring(open + 1, close).intern();
+                int index = names.indexOf(name);
+                if (index < 0) {
+                    index = names.size();
+                    names.add(name);
+                }
+                slots.add(index);
+                literalStart = close + 1;
+            }
+            open = text.indexOf('{', close + 1);
+        }
+        literals.add(text.substring(literalStart));
+        
+        int[] slotIndex = new int[slots.size()];
+        for (int i = 0; i < slotIndex.length; i++) {
+            slotIndex[i] = slots.get(i);
+        }
+        return new MessageTemplate(text, literals.toArray(new String[0]), names.toArray(new String[0]), slotIndex);
+    }
+    
+    /**
+     * Gets the message with its slots left as {name}
+     */
+    public String getText() {
+        return text;
+    }
+    
+    public int getSlotCount() {
+        return slotIndex.length;
+    }
+    
+    /**
+     * Gets the position of a placeholder name in this template, or -1 if it has no such slot
+     */
+    public int indexOf(String name) {
+        if (name == null) {
+            return NO_SLOT;
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] == name) {
+                return i;
+            }
+        }
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return NO_SLOT;
+    }
+    
+    public String format(String name, String value) {
+        if (slotIndex.length == 0) {
+            return text;
+        }
+        
+        int index = indexOf(name);
+        StringBuilder builder = acquire();
+        for (int i = 0; i < slotIndex.length; i++) {
+            builder.append(literals[i]);
+            if (slotIndex[i] == index) {
+                builder.append(value);
+            } else {
+                appendUnresolved(builder, i);
+            }
+        }
+        return release(builder.append(literals[slotIndex.length]));
+    }
+    
+    /**
+     * Formats a single numeric slot without converting the number to a string first
+     */
+    public String format(String name, long value) {
+        if (slotIndex.length == 0) {
+            return text;
+        }
+        
+        int index = indexOf(name);
+        StringBuilder builder = acquire();
+        for (int i = 0; i < slotIndex.length; i++) {
+            builder.append(literals[i]);
+            if (slotIndex[i] == index) {
+                builder.append(value);
+            } else {
+                appendUnresolved(builder, i);
+            }
+        }
+        return release(builder.append(literals[slotIndex.length]));
+    }
+    
+    public String format(String name1, String value1, String name2, String value2) {
+        return format(name1, value1, name2, value2, null, null, null, null);
+    }
+    
+    public String format(String name1, String value1, String name2, String value2, String name3, String value3) {
+        return format(name1, value1, name2, value2, name3, value3, null, null);
+    }
+    
+    public String format(String name1, String value1, String name2, String value2,
+                         String name3, String value3, String name4, String value4) {
+        if (slotIndex.length == 0) {
+            return text;
+        }
+        
+        // Names are matched once here; the loop below only compares indices
+        int index1 = indexOf(name1);
+        int index2 = indexOf(name2);
+        int index3 = indexOf(name3);
+        int index4 = indexOf(name4);
+        
+        StringBuilder builder = acquire();
+        for (int i = 0; i < slotIndex.length; i++) {
+            builder.append(literals[i]);
+            int slot = slotIndex[i];
+            if (slot == index1) {
+                builder.append(value1);
+            } else if (slot == index2) {
+                builder.append(value2);
+            } else if (slot == index3) {
+                builder.append(value3);
+            } else if (slot == index4) {
+                builder.append(value4);
+            } else {
+                appendUnresolved(builder, i);
+            }
+        }
+        return release(builder.append(literals[slotIndex.length]));
+    }
+    
+    /**
+     * Formats from a placeholder map, kept for callers of the map-based API
+     */
+    public String format(Map<String, String> placeholders) {
+        if (slotIndex.length == 0 || placeholders == null || placeholders.isEmpty()) {
+            return text;
+        }
+        
+        StringBuilder builder = acquire();
+        for (int i = 0; i < slotIndex.length; i++) {
+            builder.append(literals[i]);
+            String value = placeholders.get(names[slotIndex[i]]);
+            if (value != null) {
+                builder.append(value);
+            } else {
+                appendUnresolved(builder, i);
+            }
+        }
+        return release(builder.append(literals[slotIndex.length]));
+    }
+    
+    /**
+     * Keeps a slot nobody supplied visible, as the previous String.replace path did
+     */
+    private void appendUnresolved(StringBuilder builder, int slot) {
+        builder.append('{').append(names[slotIndex[slot]]).append('}');
+    }
+    
+    private static StringBuilder acquire() {
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        return builder;
+    }
+    
+    private static String release(StringBuilder builder) {
+        String result = builder.toString();
+        if (builder.capacity() > MAX_RETAINED_CAPACITY) {
+            BUILDER.remove();
+        }
+        return result;
+    }
+}
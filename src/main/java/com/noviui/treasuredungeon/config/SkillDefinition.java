@@ -0,0 +1,80 @@
+package com.noviui.treasuredungeon.config;
+
+import com.noviui.treasuredungeon.utils.TimeUtils;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The settings of one skill under skills.&lt;name&gt;, read once when the config is loaded
+ */
+public final class SkillDefinition {
+    
+    private final String name;
+    private final boolean enabled;
+    private final int levelRequired;
+    private final double dropChance;
+    private final long cooldownMillis;
+    private final List<ConfigIssue> problems;
+    
+    private SkillDefinition(String name, ConfigurationSection section) {
+        List<ConfigIssue> found = new ArrayList<>();
+        String path = section.getCurrentPath() + ".";
+        
+        this.name = name;
+        this.enabled = section.getBoolean("enabled", false);
+        this.levelRequired = section.getInt("level-required", 1000);
+        
+        // "30%" used to be read as the default because getDouble ignores strings
+        double chance = ConfigSnapshot.parseNumber(section.get("chance-to-drop"), 30.0);
+        if (Double.isNaN(chance) || chance < 0.0 || chance > 100.0) {
+            found.add(ConfigIssue.error(path + "chance-to-drop", "'" + section.get("chance-to-drop") + "' is not a percentage between 0 and 100"));
+            chance = 30.0;
+        }
+        // Convert percentage to decimal if needed (30% -> 0.3)
+        this.dropChance = chance > 1.0 ? chance / 100.0 : chance;
+        
+        String cooldown = section.getString("cooldown", "6h");
+        if (!TimeUtils.isValidDuration(cooldown)) {
+            found.add(ConfigIssue.error(path + "cooldown", "'" + cooldown + "' is not a duration like 30m or 6h"));
+        }
+        this.cooldownMillis = TimeUtils.parseTimeToMillis(cooldown);
+        
+        this.problems = List.copyOf(found);
+    }
+    
+    static SkillDefinition compile(String name, ConfigurationSection section) {
+        return new SkillDefinition(name, section);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public int getLevelRequired() {
+        return levelRequired;
+    }
+    
+    /**
+     * Gets the chance to drop a map as a fraction between 0 and 1
+     */
+    public double getDropChance() {
+        return dropChance;
+    }
+    
+    public long getCooldownMillis() {
+        return cooldownMillis;
+    }
+    
+    /**
+     * Gets the configuration mistakes found while compiling, empty if there were none
+     */
+    public List<ConfigIssue> getProblems() {
+        return problems;
+    }
+}
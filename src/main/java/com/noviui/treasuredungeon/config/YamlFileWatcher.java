@@ -0,0 +1,147 @@
+package com.noviui.treasuredungeon.config;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a folder and reports which .yml files in it changed, used for the lang folder and config.yml.
+ * Editors often write a file in several steps, so changes are collected until the folder
+ * has been quiet for a moment and each changed file is reported once.
+ */
+public class YamlFileWatcher {
+    
+    private static final long DEBOUNCE_MILLIS = 300L;
+    private static final String EXTENSION = ".yml";
+    
+    private final Logger logger;
+    private final Path directory;
+    private final String name;
+    private final Consumer<String> onChange;
+    
+    private volatile WatchService watchService;
+    private volatile Thread watcherThread;
+    
+    /**
+     * @param name names the watcher thread, e.g. "Lang" for TreasureDungeon-LangWatcher
+     * @param onChange called on the watcher thread with the name of each changed file without .yml, e.g. "pt" for pt.yml
+     */
+    public YamlFileWatcher(Logger logger, Path directory, String name, Consumer<String> onChange) {
+        this.logger = logger;
+        this.directory = directory;
+        this.name = name;
+        this.onChange = onChange;
+    }
+    
+    public void start() {
+        if (watcherThread != null) {
+            return;
+        }
+        
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            directory.register(service,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+            watchService = service;
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not watch " + directory + " for changes", e);
+            return;
+        }
+        
+        Thread thread = new Thread(this::runLoop, "TreasureDungeon-" + name + "Watcher");
+        thread.setDaemon(true);
+        watcherThread = thread;
+        thread.start();
+    }
+    
+    public void stop() {
+        Thread thread = watcherThread;
+        watcherThread = null;
+        
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error closing the watcher of " + directory, e);
+            }
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+    
+    private void runLoop() {
+        WatchService service = watchService;
+        Set<String> changed = new LinkedHashSet<>();
+        
+        try {
+            while (watcherThread == Thread.currentThread()) {
+                WatchKey key = service.take();
+                
+                // Keep collecting until nothing arrives for the debounce window
+                while (key != null) {
+                    collect(key, changed);
+                    if (!key.reset()) {
+                        logger.warning("Folder " + directory + " is no longer accessible, hot reload stopped");
+                        return;
+                    }
+                    key = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                
+                for (String file : changed) {
+                    try {
+                        onChange.accept(file);
+                    } catch (Exception e) {
+                        logger.log(Level.WARNING, "Error reloading " + file + EXTENSION, e);
+                    }
+                }
+                changed.clear();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+    
+    private void collect(WatchKey key, Set<String> changed) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost, treat every file as changed
+                addAllFiles(changed);
+                continue;
+            }
+            
+            String fileName = event.context().toString();
+            if (fileName.endsWith(EXTENSION) && fileName.length() > EXTENSION.length()) {
+                changed.add(fileName.substring(0, fileName.length() - EXTENSION.length()));
+            }
+        }
+    }
+    
+    private void addAllFiles(Set<String> changed) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                changed.add(fileName.substring(0, fileName.length() - EXTENSION.length()));
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not list " + directory, e);
+        }
+    }
+}
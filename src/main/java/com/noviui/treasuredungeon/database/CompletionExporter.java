@@ -0,0 +1,364 @@
+package com.noviui.treasuredungeon.database;
+
+import com.noviui.treasuredungeon.TreasureDungeonPlugin;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the dungeon completion history to a compressed file without materializing it in memory.
+ * Rows are read through a forward-only cursor (MySQL streaming mode or a PostgreSQL portal)
+ * and written one at a time, so memory use stays constant regardless of table size.
+ */
+public class CompletionExporter {
+
+    private final TreasureDungeonPlugin plugin;
+    private final DatabaseManager databaseManager;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Rows fetched per round trip when the driver supports cursor fetching (PostgreSQL)
+    private static final int FETCH_SIZE = 1000;
+
+    // How often progress is reported
+    private static final long PROGRESS_INTERVAL = 50_000L;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String EXPORT_QUERY = """
+        SELECT id, player_uuid, dungeon_type, skill, party_size, completion_time,
+               damage_dealt, boss_killed, loot_received, completed_at
+        FROM td_dungeon_completions
+        ORDER BY id
+        """;
+
+    private static final String[] COLUMNS = {
+        "id", "player_uuid", "dungeon_type", "skill", "party_size", "completion_time",
+        "damage_dealt", "boss_killed", "loot_received", "completed_at"
+    };
+
+    public CompletionExporter(TreasureDungeonPlugin plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Starts an export on a dedicated background thread.
+     * The progress listener is invoked from that thread; callers must hop to the main thread themselves.
+     */
+    public CompletableFuture<ExportResult> export(Format format, ProgressListener progressListener) {
+        if (!databaseManager.isEnabled()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Database is not enabled"));
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("An export is already running"));
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TreasureDungeon-Export");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return runExport(format, progressListener);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Error exporting dungeon completions", e);
+                throw new RuntimeException("Export failed", e);
+            } finally {
+                running.set(false);
+                executor.shutdown();
+            }
+        }, executor);
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Ends the read-only export transaction. If the export already failed, an error here is
+     * added to that failure instead of replacing it.
+     */
+    private static void endTransaction(Connection connection, Exception failure) throws SQLException {
+        try {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            if (failure == null) {
+                throw e;
+            }
+            failure.addSuppressed(e);
+        }
+    }
+
+    private ExportResult runExport(Format format, ProgressListener progressListener) throws SQLException, IOException {
+        File exportFolder = new File(plugin.getDataFolder(), "exports");
+        if (!exportFolder.exists()) {
+            exportFolder.mkdirs();
+        }
+
+        String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File targetFile = new File(exportFolder, "completions-" + timestamp + format.getExtension());
+        File partFile = new File(exportFolder, targetFile.getName() + ".part");
+
+        long startTime = System.currentTimeMillis();
+        long rows = 0;
+
+        try (Connection connection = databaseManager.getConnection()) {
+            long maxId = queryMaxId(connection);
+            boolean postgres = databaseManager.getDatabaseType() == DatabaseManager.DatabaseType.POSTGRESQL;
+
+            // PostgreSQL only uses a cursor when autocommit is off
+            if (postgres) {
+                connection.setAutoCommit(false);
+            }
+
+            Exception failure = null;
+            try (Statement stmt = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                 Writer writer = openWriter(partFile)) {
+
+                // MySQL Connector/J streams row by row only with Integer.MIN_VALUE
+                stmt.setFetchSize(postgres ? FETCH_SIZE : Integer.MIN_VALUE);
+
+                if (format == Format.CSV) {
+                    writer.write(String.join(",", COLUMNS));
+                    writer.write('\n');
+                }
+
+                try (ResultSet rs = stmt.executeQuery(EXPORT_QUERY)) {
+                    while (rs.next()) {
+                        if (format == Format.CSV) {
+                            writeCsvRow(writer, rs);
+                        } else {
+                            writeJsonRow(writer, rs);
+                        }
+                        rows++;
+
+                        if (rows % PROGRESS_INTERVAL == 0 && progressListener != null) {
+                            progressListener.onProgress(rows, percentOf(rs.getLong("id"), maxId));
+                        }
+                    }
+                }
+            } catch (SQLException | IOException | RuntimeException e) {
+                failure = e;
+                throw e;
+            } finally {
+                if (postgres) {
+                    endTransaction(connection, failure);
+                }
+            }
+        } catch (SQLException | IOException e) {
+            partFile.delete();
+            throw e;
+        }
+
+        Files.move(partFile.toPath(), targetFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        long duration = System.currentTimeMillis() - startTime;
+        plugin.getLogger().info("Exported " + rows + " dungeon completions to " + targetFile.getName() + " in " + duration + "ms");
+
+        return new ExportResult(targetFile, rows, duration);
+    }
+
+    private long queryMaxId(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM td_dungeon_completions")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private int percentOf(long currentId, long maxId) {
+        if (maxId <= 0) {
+            return 100;
+        }
+        return (int) Math.min(100, currentId * 100 / maxId);
+    }
+
+    private Writer openWriter(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(
+            new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private void writeCsvRow(Writer writer, ResultSet rs) throws SQLException, IOException {
+        writer.write(Long.toString(rs.getLong("id")));
+        writer.write(',');
+        writeCsvValue(writer, rs.getString("player_uuid"));
+        writer.write(',');
+        writeCsvValue(writer, rs.getString("dungeon_type"));
+        writer.write(',');
+        writeCsvValue(writer, rs.getString("skill"));
+        writer.write(',');
+        writer.write(Integer.toString(rs.getInt("party_size")));
+        writer.write(',');
+        writer.write(Integer.toString(rs.getInt("completion_time")));
+        writer.write(',');
+        writer.write(Long.toString(rs.getLong("damage_dealt")));
+        writer.write(',');
+        writer.write(Boolean.toString(rs.getBoolean("boss_killed")));
+        writer.write(',');
+        writeCsvValue(writer, rs.getString("loot_received"));
+        writer.write(',');
+        writeCsvValue(writer, formatTimestamp(rs.getTimestamp("completed_at")));
+        writer.write('\n');
+    }
+
+    private void writeCsvValue(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 ||
+                              value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!needsQuotes) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private void writeJsonRow(Writer writer, ResultSet rs) throws SQLException, IOException {
+        writer.write("{\"id\":");
+        writer.write(Long.toString(rs.getLong("id")));
+        writer.write(",\"player_uuid\":");
+        writeJsonString(writer, rs.getString("player_uuid"));
+        writer.write(",\"dungeon_type\":");
+        writeJsonString(writer, rs.getString("dungeon_type"));
+        writer.write(",\"skill\":");
+        writeJsonString(writer, rs.getString("skill"));
+        writer.write(",\"party_size\":");
+        writer.write(Integer.toString(rs.getInt("party_size")));
+        writer.write(",\"completion_time\":");
+        writer.write(Integer.toString(rs.getInt("completion_time")));
+        writer.write(",\"damage_dealt\":");
+        writer.write(Long.toString(rs.getLong("damage_dealt")));
+        writer.write(",\"boss_killed\":");
+        writer.write(Boolean.toString(rs.getBoolean("boss_killed")));
+        writer.write(",\"loot_received\":");
+        writeJsonString(writer, rs.getString("loot_received"));
+        writer.write(",\"completed_at\":");
+        writeJsonString(writer, formatTimestamp(rs.getTimestamp("completed_at")));
+        writer.write("}\n");
+    }
+
+    private void writeJsonString(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+
+    private String formatTimestamp(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant().toString() : null;
+    }
+
+    /**
+     * Supported export formats
+     */
+    public enum Format {
+        NDJSON(".ndjson.gz"),
+        CSV(".csv.gz");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format fromString(String value) {
+            if (value == null) {
+                return NDJSON;
+            }
+            switch (value.toLowerCase()) {
+                case "csv":
+                    return CSV;
+                case "ndjson":
+                case "json":
+                    return NDJSON;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /**
+     * Receives periodic progress updates during an export
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long rowsExported, int percent);
+    }
+
+    /**
+     * Result of a finished export
+     */
+    public static class ExportResult {
+        private final File file;
+        private final long rows;
+        private final long durationMillis;
+
+        public ExportResult(File file, long rows, long durationMillis) {
+            this.file = file;
+            this.rows = rows;
+            this.durationMillis = durationMillis;
+        }
+
+        public File getFile() { return file; }
+        public long getRows() { return rows; }
+        public long getDurationMillis() { return durationMillis; }
+    }
+}
@@ -2,6 +2,8 @@ package com.noviui.treasuredungeon.database;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.ConfigManager;
+import com.noviui.treasuredungeon.config.DataManager;
+import com.noviui.treasuredungeon.utils.TimeUtils;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
@@ -9,7 +11,10 @@ import java.sql.*;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Manages database connections and operations for MySQL/PostgreSQL support
@@ -18,14 +23,55 @@ public class DatabaseManager {
     
     private final TreasureDungeonPlugin plugin;
     private final ConfigManager configManager;
+    private final Logger logger;
     
     private HikariDataSource dataSource;
     private boolean enabled = false;
     private DatabaseType databaseType;
     
+    private final CompletionExporter completionExporter;
+    private final SiteLeaseManager siteLeaseManager;
+    
+    // Cross-server invalidation; local caches are only used while it is running
+    private volatile InvalidationChannel invalidationChannel;
+    private final String fallbackServerId = UUID.randomUUID().toString();
+    // Fixed by the first initialize(), so leases taken under it can still be renewed
+    private volatile String serverId;
+    
+    // Local caches in front of the database
+    private final Map<String, CachedCooldown> cooldownCache = new ConcurrentHashMap<>();
+    private final Map<String, List<LeaderboardEntry>> leaderboardCache = new ConcurrentHashMap<>();
+    
+    // Cached cooldowns are read again after this long; past the cap, idle ones are swept
+    private static final long COOLDOWN_CACHE_TTL = 10 * 60 * 1000L;
+    private static final int MAX_CACHED_COOLDOWNS = 10_000;
+    
+    // Bumped on every invalidation so reads that raced with a write don't cache stale rows
+    private final AtomicLong cacheGeneration = new AtomicLong();
+    
     public DatabaseManager(TreasureDungeonPlugin plugin) {
         this.plugin = plugin;
         this.configManager = plugin.getConfigManager();
+        this.logger = plugin.getLogger();
+        this.completionExporter = new CompletionExporter(plugin, this);
+        this.siteLeaseManager = new SiteLeaseManager(plugin, this);
+    }
+    
+    /**
+     * Creates a manager around an existing data source without any plugin configuration.
+     * Used by the offline benchmark harness; exports and site leases are unavailable.
+     */
+    public DatabaseManager(Logger logger, HikariDataSource dataSource, DatabaseType databaseType) {
+        this.plugin = null;
+        this.configManager = null;
+        this.logger = logger;
+        this.completionExporter = null;
+        this.siteLeaseManager = null;
+        this.dataSource = dataSource;
+        this.databaseType = databaseType;
+        this.enabled = true;
+        
+        createTables();
     }
     
     /**
@@ -34,8 +80,21 @@ public class DatabaseManager {
     public CompletableFuture<Boolean> initialize() {
         return CompletableFuture.supplyAsync(() -> {
             try {
+                stopInvalidationChannel();
+                siteLeaseManager.stop();
+                
+                if (serverId == null) {
+                    serverId = resolveServerId();
+                }
+                
+                // Re-initializing after a settings change replaces the old pool
+                enabled = false;
+                if (dataSource != null && !dataSource.isClosed()) {
+                    dataSource.close();
+                }
+                
                 if (!configManager.isDatabaseEnabled()) {
-                    plugin.getLogger().info("Database support is disabled, using file storage");
+                    logger.info("Database support is disabled, using file storage");
                     return false;
                 }
                 
@@ -48,7 +107,7 @@ public class DatabaseManager {
                         databaseType = DatabaseType.POSTGRESQL;
                         break;
                     default:
-                        plugin.getLogger().warning("Unsupported database type: " + type);
+                        logger.warning("Unsupported database type: " + type);
                         return false;
                 }
                 
@@ -82,20 +141,26 @@ public class DatabaseManager {
                 // Test connection
                 try (Connection connection = dataSource.getConnection()) {
                     if (connection.isValid(5)) {
-                        plugin.getLogger().info("Database connection established successfully");
+                        logger.info("Database connection established successfully");
                         enabled = true;
                         
                         // Create tables
                         createTables();
+                        
+                        startInvalidationChannel();
+                        
+                        if (configManager.isSiteLeasesEnabled()) {
+                            siteLeaseManager.start(TimeUtils.parseTimeToMillis(configManager.getSiteLeaseTtl()));
+                        }
                         return true;
                     }
                 }
                 
-                plugin.getLogger().severe("Failed to establish database connection");
+                logger.severe("Failed to establish database connection");
                 return false;
                 
             } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE, "Error initializing database", e);
+                logger.log(Level.SEVERE, "Error initializing database", e);
                 return false;
             }
         });
@@ -205,16 +270,53 @@ public class DatabaseManager {
                 )
                 """;
             
+            // Cross-server invalidation table
+            String invalidationTable = """
+                CREATE TABLE IF NOT EXISTS td_invalidation (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    server_id VARCHAR(36) NOT NULL,
+                    topic VARCHAR(50) NOT NULL,
+                    entity_key VARCHAR(100),
+                    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+                """;
+            
+            // Cross-server site leases
+            String siteLeasesTable = """
+                CREATE TABLE IF NOT EXISTS td_site_leases (
+                    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+                    world_name VARCHAR(50) NOT NULL,
+                    bucket_x INT NOT NULL,
+                    bucket_z INT NOT NULL,
+                    x INT NOT NULL,
+                    z INT NOT NULL,
+                    holder_server VARCHAR(36) NOT NULL,
+                    holder_uuid VARCHAR(36),
+                    expires_at TIMESTAMP NOT NULL,
+                    UNIQUE KEY unique_site (world_name, x, z),
+                    INDEX idx_site_leases_bucket (world_name, bucket_x, bucket_z)
+                )
+                """;
+            String siteLeasesIndex = null;
+            
             // Adjust for PostgreSQL
             if (databaseType == DatabaseType.POSTGRESQL) {
                 playersTable = playersTable.replace("AUTO_INCREMENT", "SERIAL")
                     .replace("ON UPDATE CURRENT_TIMESTAMP", "");
-                cooldownsTable = cooldownsTable.replace("AUTO_INCREMENT", "SERIAL");
-                dungeonsTable = dungeonsTable.replace("AUTO_INCREMENT", "SERIAL")
+                cooldownsTable = cooldownsTable.replace("INT AUTO_INCREMENT", "SERIAL")
+                    .replace("UNIQUE KEY unique_player_skill (", "UNIQUE (");
+                dungeonsTable = dungeonsTable.replace("INT AUTO_INCREMENT", "SERIAL")
+                    .replace("UNIQUE KEY unique_player_skill (", "UNIQUE (")
                     .replace("ENUM('in-progress', 'completed', 'failed')", "VARCHAR(20) CHECK (status IN ('in-progress', 'completed', 'failed'))");
-                completionsTable = completionsTable.replace("AUTO_INCREMENT", "SERIAL");
-                statisticsTable = statisticsTable.replace("AUTO_INCREMENT", "SERIAL")
+                completionsTable = completionsTable.replace("INT AUTO_INCREMENT", "SERIAL");
+                statisticsTable = statisticsTable.replace("INT AUTO_INCREMENT", "SERIAL")
+                    .replace("UNIQUE KEY unique_player_stat (", "UNIQUE (")
                     .replace("ON UPDATE CURRENT_TIMESTAMP", "");
+                invalidationTable = invalidationTable.replace("BIGINT AUTO_INCREMENT", "BIGSERIAL");
+                siteLeasesTable = siteLeasesTable.replace("BIGINT AUTO_INCREMENT", "BIGSERIAL")
+                    .replace("UNIQUE KEY unique_site (world_name, x, z),", "UNIQUE (world_name, x, z)")
+                    .replace("INDEX idx_site_leases_bucket (world_name, bucket_x, bucket_z)", "");
+                siteLeasesIndex = "CREATE INDEX IF NOT EXISTS idx_site_leases_bucket ON td_site_leases (world_name, bucket_x, bucket_z)";
             }
             
             // Execute table creation
@@ -224,12 +326,17 @@ public class DatabaseManager {
                 stmt.execute(dungeonsTable);
                 stmt.execute(completionsTable);
                 stmt.execute(statisticsTable);
+                stmt.execute(invalidationTable);
+                stmt.execute(siteLeasesTable);
+                if (siteLeasesIndex != null) {
+                    stmt.execute(siteLeasesIndex);
+                }
             }
             
-            plugin.getLogger().info("Database tables created/verified successfully");
+            logger.info("Database tables created/verified successfully");
             
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error creating database tables", e);
+            logger.log(Level.SEVERE, "Error creating database tables", e);
         }
     }
     
@@ -244,7 +351,100 @@ public class DatabaseManager {
     }
     
     /**
-     * Saves player cooldown to database
+     * Starts the cross-server invalidation channel and wires it to the local caches
+     */
+    private void startInvalidationChannel() {
+        if (!configManager.isDatabaseInvalidationEnabled()) {
+            cooldownCache.clear();
+            leaderboardCache.clear();
+            return;
+        }
+        
+        startInvalidationChannel(TimeUtils.parseTimeToMillis(configManager.getDatabaseInvalidationPollInterval()));
+    }
+    
+    /**
+     * Starts the invalidation channel with an explicit poll interval, enabling the local caches
+     */
+    public void startInvalidationChannel(long pollInterval) {
+        stopInvalidationChannel();
+        cooldownCache.clear();
+        leaderboardCache.clear();
+        
+        InvalidationChannel channel = new InvalidationChannel(logger, this, getServerId(), pollInterval);
+        channel.subscribe(InvalidationChannel.TOPIC_COOLDOWN, key -> {
+            cacheGeneration.incrementAndGet();
+            cooldownCache.remove(key);
+        });
+        channel.subscribe(InvalidationChannel.TOPIC_LEADERBOARD, key -> {
+            cacheGeneration.incrementAndGet();
+            leaderboardCache.clear();
+        });
+        channel.start();
+        
+        invalidationChannel = channel;
+    }
+    
+    private void stopInvalidationChannel() {
+        InvalidationChannel channel = invalidationChannel;
+        invalidationChannel = null;
+        if (channel != null) {
+            channel.stop();
+        }
+    }
+    
+    private boolean isCachingEnabled() {
+        InvalidationChannel channel = invalidationChannel;
+        return channel != null && channel.isRunning();
+    }
+    
+    /**
+     * Publishes a change to other servers; failures never fail the write itself
+     */
+    private void publishInvalidation(Connection connection, String topic, String entityKey) {
+        InvalidationChannel channel = invalidationChannel;
+        if (channel == null || !channel.isRunning()) {
+            return;
+        }
+        
+        try {
+            channel.publish(connection, topic, entityKey);
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error publishing invalidation for topic " + topic, e);
+        }
+    }
+    
+    private static String cooldownKey(UUID playerId, String skill) {
+        return playerId + ":" + skill;
+    }
+    
+    /**
+     * Caches a cooldown expiry read at the given cache generation. The put is dropped if an
+     * invalidation came in since, checked inside compute so it can't slip in between the check
+     * and the put. Past the size cap, entries that are idle or already expired are swept, and
+     * the whole cache is dropped if that is not enough.
+     */
+    private void cacheCooldown(String key, long expiresAt, long generation) {
+        long now = System.currentTimeMillis();
+        CachedCooldown fresh = new CachedCooldown(expiresAt, now, generation);
+        cooldownCache.compute(key, (k, current) -> {
+            if (cacheGeneration.get() != generation) {
+                return current;
+            }
+            return current != null && current.generation > generation ? current : fresh;
+        });
+        
+        if (cooldownCache.size() > MAX_CACHED_COOLDOWNS) {
+            cooldownCache.values().removeIf(cached -> cached.isIdle(now) || cached.expiresAt <= now);
+            if (cooldownCache.size() > MAX_CACHED_COOLDOWNS) {
+                cooldownCache.clear();
+            }
+        }
+    }
+    
+    /**
+     * Saves player cooldown to database. The expiry is stored as the time left added to the
+     * database clock, so servers whose clocks differ agree on when it ends.
      */
     public CompletableFuture<Void> saveCooldown(UUID playerId, String skill, Instant expiresAt) {
         return CompletableFuture.runAsync(() -> {
@@ -256,43 +456,65 @@ public class DatabaseManager {
                 
                 String sql = """
                     INSERT INTO td_cooldowns (player_uuid, skill, expires_at) 
-                    VALUES (?, ?, ?) 
+                    VALUES (?, ?, CURRENT_TIMESTAMP + INTERVAL ? SECOND) 
                     ON DUPLICATE KEY UPDATE expires_at = VALUES(expires_at)
                     """;
                 
                 if (databaseType == DatabaseType.POSTGRESQL) {
                     sql = """
                         INSERT INTO td_cooldowns (player_uuid, skill, expires_at) 
-                        VALUES (?, ?, ?) 
+                        VALUES (?, ?, CURRENT_TIMESTAMP + (? * INTERVAL '1 second')) 
                         ON CONFLICT (player_uuid, skill) 
                         DO UPDATE SET expires_at = EXCLUDED.expires_at
                         """;
                 }
                 
+                long remainingMillis = Math.max(0L, expiresAt.toEpochMilli() - System.currentTimeMillis());
                 try (PreparedStatement stmt = connection.prepareStatement(sql)) {
                     stmt.setString(1, playerId.toString());
                     stmt.setString(2, skill);
-                    stmt.setTimestamp(3, Timestamp.from(expiresAt));
+                    stmt.setLong(3, (remainingMillis + 999L) / 1000L);
                     stmt.executeUpdate();
                 }
                 
+                String key = cooldownKey(playerId, skill);
+                long generation = cacheGeneration.incrementAndGet();
+                if (isCachingEnabled()) {
+                    cacheCooldown(key, expiresAt.toEpochMilli(), generation);
+                }
+                publishInvalidation(connection, InvalidationChannel.TOPIC_COOLDOWN, key);
+                
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Error saving cooldown to database", e);
+                logger.log(Level.SEVERE, "Error saving cooldown to database", e);
             }
         });
     }
     
     /**
-     * Checks if player is on cooldown
+     * Checks if player is on cooldown. The expiry is measured against the database clock and
+     * cached as the time left on the local clock.
      */
     public CompletableFuture<Boolean> isOnCooldown(UUID playerId, String skill) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        String key = cooldownKey(playerId, skill);
+        CachedCooldown cached = cooldownCache.get(key);
+        if (cached != null) {
+            long now = System.currentTimeMillis();
+            if (!cached.isIdle(now)) {
+                return CompletableFuture.completedFuture(cached.expiresAt > now);
+            }
+            cooldownCache.remove(key, cached);
+        }
+        
+        long generation = cacheGeneration.get();
         return CompletableFuture.supplyAsync(() -> {
-            if (!enabled) return false;
-            
             try (Connection connection = getConnection()) {
                 String sql = """
-                    SELECT expires_at FROM td_cooldowns 
-                    WHERE player_uuid = ? AND skill = ? AND expires_at > CURRENT_TIMESTAMP
+                    SELECT expires_at, CURRENT_TIMESTAMP AS db_now FROM td_cooldowns 
+                    WHERE player_uuid = ? AND skill = ?
                     """;
                 
                 try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -300,12 +522,18 @@ public class DatabaseManager {
                     stmt.setString(2, skill);
                     
                     try (ResultSet rs = stmt.executeQuery()) {
-                        return rs.next();
+                        long remainingMillis = rs.next()
+                            ? rs.getTimestamp("expires_at").getTime() - rs.getTimestamp("db_now").getTime()
+                            : 0L;
+                        if (isCachingEnabled()) {
+                            cacheCooldown(key, System.currentTimeMillis() + remainingMillis, generation);
+                        }
+                        return remainingMillis > 0;
                     }
                 }
                 
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Error checking cooldown in database", e);
+                logger.log(Level.SEVERE, "Error checking cooldown in database", e);
                 return false;
             }
         });
@@ -369,7 +597,7 @@ public class DatabaseManager {
                 }
                 
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Error saving active dungeon to database", e);
+                logger.log(Level.SEVERE, "Error saving active dungeon to database", e);
             }
         });
     }
@@ -408,8 +636,16 @@ public class DatabaseManager {
                 // Update player statistics
                 updatePlayerStats(connection, playerId, damageDealt, bossKilled);
                 
+                cacheGeneration.incrementAndGet();
+                leaderboardCache.clear();
+                publishInvalidation(connection, InvalidationChannel.TOPIC_LEADERBOARD, playerId.toString());
+                
+                if (plugin != null && plugin.getPlaceholderManager() != null) {
+                    plugin.getPlaceholderManager().invalidate(playerId);
+                }
+                
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Error recording dungeon completion", e);
+                logger.log(Level.SEVERE, "Error recording dungeon completion", e);
             }
         });
     }
@@ -418,6 +654,13 @@ public class DatabaseManager {
      * Gets leaderboard data
      */
     public CompletableFuture<List<LeaderboardEntry>> getLeaderboard(String statType, int limit) {
+        String cacheKey = statType + ":" + limit;
+        List<LeaderboardEntry> cached = leaderboardCache.get(cacheKey);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        
+        long generation = cacheGeneration.get();
         return CompletableFuture.supplyAsync(() -> {
             List<LeaderboardEntry> leaderboard = new ArrayList<>();
             
@@ -449,14 +692,80 @@ public class DatabaseManager {
                     }
                 }
                 
+                if (isCachingEnabled() && cacheGeneration.get() == generation) {
+                    leaderboardCache.put(cacheKey, Collections.unmodifiableList(leaderboard));
+                }
+                
             } catch (SQLException e) {
-                plugin.getLogger().log(Level.SEVERE, "Error getting leaderboard data", e);
+                logger.log(Level.SEVERE, "Error getting leaderboard data", e);
             }
             
             return leaderboard;
         });
     }
     
+    /**
+     * Gets all statistics recorded for a player
+     */
+    public CompletableFuture<Map<String, Long>> getPlayerStatistics(UUID playerId) {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, Long> statistics = new HashMap<>();
+            
+            if (!enabled) return statistics;
+            
+            try (Connection connection = getConnection();
+                 PreparedStatement stmt = connection.prepareStatement(
+                     "SELECT stat_type, stat_value FROM td_statistics WHERE player_uuid = ?")) {
+                stmt.setString(1, playerId.toString());
+                
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        statistics.put(rs.getString("stat_type"), rs.getLong("stat_value"));
+                    }
+                }
+                
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "Error getting player statistics", e);
+            }
+            
+            return statistics;
+        });
+    }
+    
+    /**
+     * Gets server-wide totals used to seed the live global counters
+     */
+    public CompletableFuture<Map<String, Long>> getGlobalTotals() {
+        return CompletableFuture.supplyAsync(() -> {
+            Map<String, Long> totals = new HashMap<>();
+            
+            if (!enabled) return totals;
+            
+            try (Connection connection = getConnection();
+                 Statement stmt = connection.createStatement()) {
+                
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*), MIN(completion_time) FROM td_dungeon_completions")) {
+                    if (rs.next()) {
+                        totals.put("completions", rs.getLong(1));
+                        totals.put("best_time", rs.getLong(2));
+                    }
+                }
+                
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM td_players")) {
+                    if (rs.next()) {
+                        totals.put("players", rs.getLong(1));
+                    }
+                }
+                
+            } catch (SQLException e) {
+                logger.log(Level.SEVERE, "Error getting global totals", e);
+                totals.clear();
+            }
+            
+            return totals;
+        });
+    }
+    
     /**
      * Ensures a player exists in the database
      */
@@ -528,9 +837,14 @@ public class DatabaseManager {
      * Closes database connection
      */
     public void close() {
+        stopInvalidationChannel();
+        if (siteLeaseManager != null) {
+            siteLeaseManager.stop();
+        }
+        
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
-            plugin.getLogger().info("Database connection closed");
+            logger.info("Database connection closed");
         }
     }
     
@@ -538,6 +852,54 @@ public class DatabaseManager {
         return enabled;
     }
     
+    public DatabaseType getDatabaseType() {
+        return databaseType;
+    }
+    
+    public CompletionExporter getCompletionExporter() {
+        return completionExporter;
+    }
+    
+    /**
+     * Gets the identifier this server uses in shared tables. Fixed when the database is first
+     * initialized; a changed server-id applies after a restart.
+     */
+    public String getServerId() {
+        String id = serverId;
+        return id != null ? id : fallbackServerId;
+    }
+    
+    /**
+     * Uses the configured server-id, or else the one generated on an earlier start and kept in
+     * data.yml, generating and saving it the first time
+     */
+    private String resolveServerId() {
+        String configured = configManager.getServerId();
+        if (configured != null && !configured.trim().isEmpty()) {
+            return configured.trim();
+        }
+        
+        DataManager dataManager = plugin.getDataManager();
+        if (dataManager == null) {
+            return fallbackServerId;
+        }
+        String stored = dataManager.getGlobalString("server-id");
+        if (stored == null || stored.trim().isEmpty()) {
+            stored = fallbackServerId;
+            dataManager.setGlobalString("server-id", stored);
+            dataManager.saveDataAsync();
+        }
+        return stored;
+    }
+    
+    public SiteLeaseManager getSiteLeaseManager() {
+        return siteLeaseManager;
+    }
+    
+    public InvalidationChannel getInvalidationChannel() {
+        return invalidationChannel;
+    }
+    
     /**
      * Database types enum
      */
@@ -545,6 +907,50 @@ public class DatabaseManager {
         MYSQL, POSTGRESQL
     }
     
+    /**
+     * A cached cooldown expiry, when it was read and the cache generation it was read at
+     */
+    private static final class CachedCooldown {
+        private final long expiresAt;
+        private final long cachedAt;
+        private final long generation;
+        
+        private CachedCooldown(long expiresAt, long cachedAt, long generation) {
+            this.expiresAt = expiresAt;
+            this.cachedAt = cachedAt;
+            this.generation = generation;
+        }
+        
+        private boolean isIdle(long now) {
+            return now - cachedAt > COOLDOWN_CACHE_TTL;
+        }
+    }
+    
+    /**
+     * A reserved or cooling-down dungeon site
+     */
+    public static class SiteReservation {
+        private final String worldName;
+        private final int x;
+        private final int z;
+        private final UUID holderId;
+        private final long expiresAt;
+        
+        public SiteReservation(String worldName, int x, int z, UUID holderId, long expiresAt) {
+            this.worldName = worldName;
+            this.x = x;
+            this.z = z;
+            this.holderId = holderId;
+            this.expiresAt = expiresAt;
+        }
+        
+        public String getWorldName() { return worldName; }
+        public int getX() { return x; }
+        public int getZ() { return z; }
+        public UUID getHolderId() { return holderId; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+    
     /**
      * Leaderboard entry class
      */
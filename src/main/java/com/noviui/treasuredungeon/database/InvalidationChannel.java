@@ -0,0 +1,285 @@
+package com.noviui.treasuredungeon.database;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cross-server cache invalidation for networks that share one database.
+ * Every write that affects cached state appends a row to td_invalidation; each server
+ * tails that table by id, re-reading a short window behind the highest id seen for rows that
+ * committed late, and notifies local subscribers about changes made elsewhere.
+ * On PostgreSQL a LISTEN/NOTIFY wakeup is used so changes arrive without waiting for the poll interval.
+ */
+public class InvalidationChannel {
+
+    public static final String TOPIC_COOLDOWN = "cooldown";
+    public static final String TOPIC_LEADERBOARD = "leaderboard";
+
+    private static final String NOTIFY_CHANNEL = "td_invalidation";
+
+    // Maximum rows dispatched per poll
+    private static final int POLL_BATCH_SIZE = 500;
+
+    // Ids become visible in commit order, not id order, so every poll reads this many ids back
+    // again to catch rows whose transaction committed after a higher id was already read
+    private static final long LOOKBACK_IDS = 256L;
+
+    // Rows older than this are pruned; servers that are offline longer simply start from the tail
+    private static final long RETENTION_SECONDS = 10 * 60L;
+    private static final long PRUNE_INTERVAL_MILLIS = 60 * 1000L;
+
+    private final Logger logger;
+    private final DatabaseManager databaseManager;
+    private final String serverId;
+    private final long pollIntervalMillis;
+
+    private final Map<String, List<Consumer<String>>> subscribers = new ConcurrentHashMap<>();
+
+    private volatile Thread listenerThread;
+    private volatile boolean running = false;
+    // Listener thread only
+    private long startId = 0;
+    private long lastSeenId = 0;
+    // Ids read within the lookback window, so re-read rows are not dispatched twice
+    private final NavigableSet<Long> seenIds = new TreeSet<>();
+    private long lastPruneTime = 0;
+
+    public InvalidationChannel(Logger logger, DatabaseManager databaseManager, String serverId, long pollIntervalMillis) {
+        this.logger = logger;
+        this.databaseManager = databaseManager;
+        this.serverId = serverId;
+        this.pollIntervalMillis = Math.max(100L, pollIntervalMillis);
+    }
+
+    /**
+     * Starts tailing the invalidation table from its current end
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+
+        try (Connection connection = databaseManager.getConnection();
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(id) FROM td_invalidation")) {
+            lastSeenId = rs.next() ? rs.getLong(1) : 0;
+            startId = lastSeenId;
+            seenIds.clear();
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Could not start invalidation channel", e);
+            return;
+        }
+
+        running = true;
+        Thread thread = new Thread(this::runLoop, "TreasureDungeon-Invalidation");
+        thread.setDaemon(true);
+        listenerThread = thread;
+        thread.start();
+
+        logger.info("Cross-server invalidation channel started (server id " + serverId + ")");
+    }
+
+    /**
+     * Stops the listener thread
+     */
+    public void stop() {
+        running = false;
+        Thread thread = listenerThread;
+        listenerThread = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Registers a callback for changes made by other servers. The callback runs on the listener thread.
+     */
+    public void subscribe(String topic, Consumer<String> callback) {
+        subscribers.computeIfAbsent(topic, k -> new CopyOnWriteArrayList<>()).add(callback);
+    }
+
+    /**
+     * Announces a change on the given connection, typically inside the write that caused it
+     */
+    public void publish(Connection connection, String topic, String entityKey) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement(
+                "INSERT INTO td_invalidation (server_id, topic, entity_key) VALUES (?, ?, ?)")) {
+            stmt.setString(1, serverId);
+            stmt.setString(2, topic);
+            stmt.setString(3, entityKey);
+            stmt.executeUpdate();
+        }
+
+        if (databaseManager.getDatabaseType() == DatabaseManager.DatabaseType.POSTGRESQL) {
+            try (PreparedStatement stmt = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                stmt.setString(1, NOTIFY_CHANNEL);
+                stmt.setString(2, topic);
+                stmt.execute();
+            }
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            if (databaseManager.getDatabaseType() == DatabaseManager.DatabaseType.POSTGRESQL) {
+                listenLoop();
+            }
+
+            // Plain polling, also the fallback when LISTEN is unavailable
+            while (running) {
+                try {
+                    poll();
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Error polling invalidation channel", e);
+                    sleepQuietly();
+                }
+            }
+        }
+    }
+
+    /**
+     * Holds one connection in LISTEN mode and polls the table whenever a notification arrives,
+     * or after the poll interval at the latest. Returns when LISTEN cannot be used.
+     */
+    private void listenLoop() {
+        try (Connection connection = databaseManager.getConnection()) {
+            Class<?> pgConnectionClass = Class.forName("org.postgresql.PGConnection");
+            Object pgConnection = connection.unwrap(pgConnectionClass);
+            Method getNotifications = pgConnectionClass.getMethod("getNotifications", int.class);
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("LISTEN " + NOTIFY_CHANNEL);
+            }
+
+            while (running) {
+                poll();
+                getNotifications.invoke(pgConnection, (int) pollIntervalMillis);
+            }
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            logger.info("PostgreSQL LISTEN/NOTIFY unavailable, falling back to polling");
+        } catch (Exception e) {
+            if (running) {
+                logger.log(Level.WARNING, "Invalidation LISTEN connection failed, falling back to polling", e);
+            }
+        }
+    }
+
+    private void poll() throws SQLException {
+        try (Connection connection = databaseManager.getConnection()) {
+            long cursor = Math.max(startId, lastSeenId - LOOKBACK_IDS);
+            while (cursor >= 0 && running) {
+                cursor = pollBatch(connection, cursor);
+            }
+            seenIds.headSet(lastSeenId - LOOKBACK_IDS, true).clear();
+
+            long now = System.currentTimeMillis();
+            if (now - lastPruneTime > PRUNE_INTERVAL_MILLIS) {
+                lastPruneTime = now;
+                prune(connection);
+            }
+        }
+    }
+
+    /**
+     * Reads the rows after the cursor and dispatches those not read before; returns the
+     * cursor for the next batch, or -1 when the table end was reached
+     */
+    private long pollBatch(Connection connection, long cursor) throws SQLException {
+        String sql = """
+            SELECT id, server_id, topic, entity_key FROM td_invalidation
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+        int count = 0;
+        long lastId = cursor;
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, cursor);
+            stmt.setInt(2, POLL_BATCH_SIZE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lastId = rs.getLong("id");
+                    count++;
+
+                    if (!seenIds.add(lastId)) {
+                        continue;
+                    }
+                    lastSeenId = Math.max(lastSeenId, lastId);
+
+                    if (serverId.equals(rs.getString("server_id"))) {
+                        continue;
+                    }
+                    dispatch(rs.getString("topic"), rs.getString("entity_key"));
+                }
+            }
+        }
+
+        return count == POLL_BATCH_SIZE ? lastId : -1;
+    }
+
+    private void dispatch(String topic, String entityKey) {
+        List<Consumer<String>> callbacks = subscribers.get(topic);
+        if (callbacks == null) {
+            return;
+        }
+
+        for (Consumer<String> callback : callbacks) {
+            try {
+                callback.accept(entityKey);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Error in invalidation callback for topic " + topic, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes old rows. The cutoff comes from the database clock, which also filled created_at,
+     * so a server whose clock or time zone is off can't prune rows its peers have not read yet.
+     */
+    private void prune(Connection connection) {
+        String sql = databaseManager.getDatabaseType() == DatabaseManager.DatabaseType.POSTGRESQL
+            ? "DELETE FROM td_invalidation WHERE created_at < CURRENT_TIMESTAMP - (? * INTERVAL '1 second')"
+            : "DELETE FROM td_invalidation WHERE created_at < CURRENT_TIMESTAMP - INTERVAL ? SECOND";
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, RETENTION_SECONDS);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error pruning invalidation table", e);
+        }
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(pollIntervalMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    public String getServerId() {
+        return serverId;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+}
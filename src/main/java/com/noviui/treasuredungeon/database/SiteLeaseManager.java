@@ -0,0 +1,406 @@
+package com.noviui.treasuredungeon.database;
+
+import com.noviui.treasuredungeon.TreasureDungeonPlugin;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Stores dungeon site reservations as expiring leases in td_site_leases so that servers sharing
+ * a treasure world never hand out overlapping sites. Each lease carries a spatial bucket key, which
+ * turns a conflict check into one indexed range query. Leases held by this server are renewed in the
+ * background; a server that dies stops renewing and its leases expire on their own.
+ * The table also keeps sites across restarts: a released site stays leased until its reuse
+ * cooldown ends, and on shutdown held leases are extended to their full lifetime, so dungeons
+ * still running keep their sites until they finish or the lifetime runs out.
+ */
+public class SiteLeaseManager {
+
+    // Fixed bucket edge so lease rows stay valid when min-distance is changed
+    public static final int BUCKET_SIZE = 64;
+
+    // Leases are not renewed past this age; data.yml drops unfinished dungeons after 24 hours too,
+    // so a dungeon that never released its site can't keep it leased forever
+    private static final long MAX_LEASE_LIFETIME_MILLIS = 24 * 60 * 60 * 1000L;
+
+    // How long shutdown waits for queued releases and the final lease write
+    private static final long FLUSH_TIMEOUT_SECONDS = 10L;
+
+    private final TreasureDungeonPlugin plugin;
+    private final DatabaseManager databaseManager;
+
+    // Leases this server holds, keyed by world:x:z
+    private final Map<String, HeldLease> heldLeases = new ConcurrentHashMap<>();
+
+    private volatile ScheduledExecutorService renewalExecutor;
+    private volatile long leaseTtlMillis;
+
+    public SiteLeaseManager(TreasureDungeonPlugin plugin, DatabaseManager databaseManager) {
+        this.plugin = plugin;
+        this.databaseManager = databaseManager;
+    }
+
+    /**
+     * Starts background renewal and reaping of expired leases
+     */
+    public void start(long leaseTtlMillis) {
+        stop();
+
+        this.leaseTtlMillis = Math.max(30_000L, leaseTtlMillis);
+        long renewInterval = this.leaseTtlMillis / 3;
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TreasureDungeon-SiteLeases");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::renewAndReap, renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+        renewalExecutor = executor;
+    }
+
+    /**
+     * Stops renewal. Held leases are left to expire so a restart inside the TTL stays protected.
+     */
+    public void stop() {
+        ScheduledExecutorService executor = renewalExecutor;
+        renewalExecutor = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isActive() {
+        return renewalExecutor != null && databaseManager.isEnabled();
+    }
+
+    /**
+     * Atomically checks for conflicting live leases and takes a lease on the site.
+     * Must be called off the main thread.
+     *
+     * @return true if the lease was acquired, false if another live lease is too close or the
+     *         transaction lost a race against another server
+     */
+    public boolean tryAcquire(String worldName, int x, int z, int minDistance, UUID holderId) {
+        if (!isActive()) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+
+            try {
+                if (hasConflict(connection, worldName, x, z, minDistance)) {
+                    connection.rollback();
+                    return false;
+                }
+
+                // An expired lease on the exact same block would trip the unique key
+                try (PreparedStatement stmt = connection.prepareStatement(
+                        "DELETE FROM td_site_leases WHERE world_name = ? AND x = ? AND z = ? AND expires_at <= CURRENT_TIMESTAMP")) {
+                    stmt.setString(1, worldName);
+                    stmt.setInt(2, x);
+                    stmt.setInt(3, z);
+                    stmt.executeUpdate();
+                }
+
+                String sql = "INSERT INTO td_site_leases (world_name, bucket_x, bucket_z, x, z, holder_server, holder_uuid, expires_at)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, " + databaseTimeIn() + ")";
+
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    stmt.setString(1, worldName);
+                    stmt.setInt(2, Math.floorDiv(x, BUCKET_SIZE));
+                    stmt.setInt(3, Math.floorDiv(z, BUCKET_SIZE));
+                    stmt.setInt(4, x);
+                    stmt.setInt(5, z);
+                    stmt.setString(6, databaseManager.getServerId());
+                    stmt.setString(7, holderId != null ? holderId.toString() : null);
+                    stmt.setLong(8, toSeconds(leaseTtlMillis));
+                    stmt.executeUpdate();
+                }
+
+                connection.commit();
+                heldLeases.put(leaseKey(worldName, x, z), new HeldLease(worldName, x, z, now));
+                return true;
+
+            } catch (SQLException e) {
+                // Serialization failures, deadlocks and unique violations all mean another server won
+                connection.rollback();
+                if (plugin.getConfigManager().isDebugEnabled()) {
+                    plugin.getLogger().log(Level.INFO, "Site lease race lost at " + worldName + ":" + x + ":" + z, e);
+                }
+                return false;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error acquiring site lease", e);
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether any live lease lies within minDistance of the given block. Must be called off the main thread.
+     */
+    public boolean isConflicting(String worldName, int x, int z, int minDistance) {
+        if (!isActive()) {
+            return false;
+        }
+
+        try (Connection connection = databaseManager.getConnection()) {
+            return hasConflict(connection, worldName, x, z, minDistance);
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error checking site leases", e);
+            return true;
+        }
+    }
+
+    private boolean hasConflict(Connection connection, String worldName, int x, int z, int minDistance) throws SQLException {
+        String sql = """
+            SELECT x, z FROM td_site_leases
+            WHERE world_name = ?
+              AND bucket_x BETWEEN ? AND ?
+              AND bucket_z BETWEEN ? AND ?
+              AND expires_at > CURRENT_TIMESTAMP
+            """;
+
+        long minDistanceSquared = (long) minDistance * minDistance;
+
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setString(1, worldName);
+            stmt.setInt(2, Math.floorDiv(x - minDistance, BUCKET_SIZE));
+            stmt.setInt(3, Math.floorDiv(x + minDistance, BUCKET_SIZE));
+            stmt.setInt(4, Math.floorDiv(z - minDistance, BUCKET_SIZE));
+            stmt.setInt(5, Math.floorDiv(z + minDistance, BUCKET_SIZE));
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long dx = rs.getInt("x") - x;
+                    long dz = rs.getInt("z") - z;
+                    if (dx * dx + dz * dz < minDistanceSquared) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Releases a site in the background, keeping it leased until its reuse cooldown ends.
+     * Releases run in order on the renewal thread, so flush() waits for them.
+     */
+    public void release(String worldName, int x, int z, long cooldownEnd) {
+        heldLeases.remove(leaseKey(worldName, x, z));
+
+        ScheduledExecutorService executor = renewalExecutor;
+        if (executor == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> writeRelease(worldName, x, z, cooldownEnd));
+        } catch (RejectedExecutionException e) {
+            plugin.getLogger().warning("Could not release site lease " + leaseKey(worldName, x, z) + ": leases were stopped");
+        }
+    }
+
+    /**
+     * Shortens the site's lease to the cooldown. Matches any holder, since a lease kept across a
+     * restart may have been taken under another server id.
+     */
+    private void writeRelease(String worldName, int x, int z, long cooldownEnd) {
+        if (!databaseManager.isEnabled()) {
+            return;
+        }
+
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(
+                 "UPDATE td_site_leases SET expires_at = " + databaseTimeIn() + " WHERE world_name = ? AND x = ? AND z = ?")) {
+            stmt.setLong(1, toSeconds(cooldownEnd - System.currentTimeMillis()));
+            stmt.setString(2, worldName);
+            stmt.setInt(3, x);
+            stmt.setInt(4, z);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error releasing site lease", e);
+        }
+    }
+
+    /**
+     * Reads every live lease, from all servers, as the sites it blocks and until when. The expiry
+     * is measured on the database clock and returned as that much time after the given local time.
+     * Must be called off the main thread.
+     */
+    public List<DatabaseManager.SiteReservation> loadLeases(long now) throws SQLException {
+        List<DatabaseManager.SiteReservation> leases = new ArrayList<>();
+
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(
+                 "SELECT world_name, x, z, holder_uuid, expires_at, CURRENT_TIMESTAMP AS db_now"
+                     + " FROM td_site_leases WHERE expires_at > CURRENT_TIMESTAMP")) {
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String holder = rs.getString("holder_uuid");
+                    UUID holderId = null;
+                    if (holder != null) {
+                        try {
+                            holderId = UUID.fromString(holder);
+                        } catch (IllegalArgumentException ignored) {
+                            // Kept as a lease without holder
+                        }
+                    }
+                    long remaining = rs.getTimestamp("expires_at").getTime() - rs.getTimestamp("db_now").getTime();
+                    leases.add(new DatabaseManager.SiteReservation(rs.getString("world_name"), rs.getInt("x"), rs.getInt("z"),
+                        holderId, now + remaining));
+                }
+            }
+        }
+        return leases;
+    }
+
+    /**
+     * Waits for queued releases, then extends every held lease to the end of its lifetime so it
+     * outlives the restart. Call on shutdown, before the database is closed.
+     */
+    public void flush() {
+        ScheduledExecutorService executor = renewalExecutor;
+        if (executor == null) {
+            return;
+        }
+
+        try {
+            executor.submit(this::extendHeldLeases).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Error saving site leases on shutdown", e);
+        }
+    }
+
+    private void extendHeldLeases() {
+        if (heldLeases.isEmpty() || !databaseManager.isEnabled()) {
+            return;
+        }
+
+        String sql = "UPDATE td_site_leases SET expires_at = " + databaseTimeIn()
+            + " WHERE world_name = ? AND x = ? AND z = ? AND holder_server = ?";
+
+        long now = System.currentTimeMillis();
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
+            for (HeldLease lease : heldLeases.values()) {
+                stmt.setLong(1, toSeconds(lease.acquiredAt + MAX_LEASE_LIFETIME_MILLIS - now));
+                stmt.setString(2, lease.worldName);
+                stmt.setInt(3, lease.x);
+                stmt.setInt(4, lease.z);
+                stmt.setString(5, databaseManager.getServerId());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error extending site leases", e);
+        }
+    }
+
+    /**
+     * Extends every lease this server still holds, up to the maximum lifetime, and deletes leases
+     * whose holders stopped renewing
+     */
+    private void renewAndReap() {
+        if (!databaseManager.isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        // Leases past their lifetime are no longer renewed and run out within one TTL
+        heldLeases.values().removeIf(lease -> now - lease.acquiredAt >= MAX_LEASE_LIFETIME_MILLIS);
+
+        try (Connection connection = databaseManager.getConnection()) {
+            if (!heldLeases.isEmpty()) {
+                String sql = "UPDATE td_site_leases SET expires_at = " + databaseTimeIn()
+                    + " WHERE world_name = ? AND x = ? AND z = ? AND holder_server = ?";
+
+                try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                    long ttlSeconds = toSeconds(leaseTtlMillis);
+                    for (HeldLease lease : heldLeases.values()) {
+                        stmt.setLong(1, ttlSeconds);
+                        stmt.setString(2, lease.worldName);
+                        stmt.setInt(3, lease.x);
+                        stmt.setInt(4, lease.z);
+                        stmt.setString(5, databaseManager.getServerId());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            }
+
+            try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM td_site_leases WHERE expires_at < CURRENT_TIMESTAMP")) {
+                int reaped = stmt.executeUpdate();
+                if (reaped > 0 && plugin.getConfigManager().isDebugEnabled()) {
+                    plugin.getLogger().info("Reclaimed " + reaped + " expired site leases");
+                }
+            }
+
+        } catch (SQLException e) {
+            plugin.getLogger().log(Level.WARNING, "Error renewing site leases", e);
+        }
+    }
+
+    public int getHeldLeaseCount() {
+        return heldLeases.size();
+    }
+
+    /**
+     * SQL for the database clock plus a number of seconds bound as a parameter. Expiry is always
+     * set and compared on the database clock, like InvalidationChannel.prune, so servers whose
+     * clocks differ agree on when a lease runs out.
+     */
+    private String databaseTimeIn() {
+        return databaseManager.getDatabaseType() == DatabaseManager.DatabaseType.POSTGRESQL
+            ? "CURRENT_TIMESTAMP + (? * INTERVAL '1 second')"
+            : "CURRENT_TIMESTAMP + INTERVAL ? SECOND";
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(0L, (millis + 999L) / 1000L);
+    }
+
+    private static String leaseKey(String worldName, int x, int z) {
+        return worldName + ":" + x + ":" + z;
+    }
+
+    /**
+     * A lease held by this server
+     */
+    private static class HeldLease {
+        private final String worldName;
+        private final int x;
+        private final int z;
+        private final long acquiredAt;
+
+        private HeldLease(String worldName, int x, int z, long acquiredAt) {
+            this.worldName = worldName;
+            this.x = x;
+            this.z = z;
+            this.acquiredAt = acquiredAt;
+        }
+    }
+}
@@ -2,12 +2,13 @@ package com.noviui.treasuredungeon.dungeon;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.ConfigManager;
+import com.noviui.treasuredungeon.config.LanguageBundle;
 import com.noviui.treasuredungeon.config.LanguageManager;
+import net.kyori.adventure.sound.Sound;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.Particle;
-import org.bukkit.Sound;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
@@ -38,6 +39,24 @@ public class DungeonBuilder {
     private static final int BUILD_HEIGHT_START = -60;
     private static final int BLOCKS_PER_TICK = 5; // Blocks to place per tick for animation
     private static final int ANIMATION_DELAY = 2; // Ticks between animation steps
+    private static final int CONSTRUCTION_STEPS = 20;
+    private static final int DESTRUCTION_STEPS = 15;
+    
+    // Sound cues are built once and shared by every dungeon's audience
+    private static final Sound BUILD_STARTED_SOUND = sound(org.bukkit.Sound.BLOCK_BEACON_ACTIVATE, 1.0f, 1.0f);
+    private static final Sound BUILD_COMPLETE_SOUND = sound(org.bukkit.Sound.ENTITY_ENDER_DRAGON_GROWL, 1.0f, 0.8f);
+    private static final Sound DESTROY_COMPLETE_SOUND = sound(org.bukkit.Sound.ENTITY_WITHER_DEATH, 1.0f, 1.0f);
+    private static final Sound[] CONSTRUCTION_STEP_SOUNDS = new Sound[CONSTRUCTION_STEPS];
+    private static final Sound[] DESTRUCTION_STEP_SOUNDS = new Sound[DESTRUCTION_STEPS];
+    
+    static {
+        for (int step = 0; step < CONSTRUCTION_STEPS; step++) {
+            CONSTRUCTION_STEP_SOUNDS[step] = sound(org.bukkit.Sound.BLOCK_STONE_PLACE, 0.5f, 1.0f + (step * 0.1f));
+        }
+        for (int step = 0; step < DESTRUCTION_STEPS; step++) {
+            DESTRUCTION_STEP_SOUNDS[step] = sound(org.bukkit.Sound.ENTITY_GENERIC_EXPLODE, 0.3f, 0.8f + (step * 0.1f));
+        }
+    }
     
     public DungeonBuilder(TreasureDungeonPlugin plugin) {
         this.plugin = plugin;
@@ -96,8 +115,8 @@ public class DungeonBuilder {
             
             Player initiator = Bukkit.getPlayer(initiatorId);
             if (initiator != null) {
-                String errorMessage = languageManager.getMessage("dungeon-build-failed");
-                initiator.sendMessage(languageManager.getPrefix() + errorMessage);
+                LanguageBundle lang = languageManager.getBundle(initiator);
+                initiator.sendMessage(lang.getPrefix() + lang.getMessage("dungeon-build-failed"));
             }
         }
     }
@@ -109,23 +128,18 @@ public class DungeonBuilder {
                                          String dungeonType, UUID initiatorId, List<Player> participants) {
         
         // Notify participants
-        String buildingMessage = languageManager.getMessage("dungeon-building");
-        for (Player participant : participants) {
-            if (participant != null && participant.isOnline()) {
-                participant.sendMessage(languageManager.getPrefix() + buildingMessage);
-                participant.playSound(participant.getLocation(), Sound.BLOCK_BEACON_ACTIVATE, 1.0f, 1.0f);
-            }
-        }
+        PartyAudience audience = new PartyAudience(languageManager, participants);
+        audience.broadcast("dungeon-building");
+        audience.playSound(BUILD_STARTED_SOUND);
         
         // Create construction task
         BukkitTask constructionTask = new BukkitRunnable() {
             private int step = 0;
-            private final int maxSteps = 20; // Total animation steps
             
             @Override
             public void run() {
                 try {
-                    if (step >= maxSteps) {
+                    if (step >= CONSTRUCTION_STEPS) {
                         // Construction complete
                         this.cancel();
                         activeConstructions.remove(initiatorId);
@@ -134,7 +148,7 @@ public class DungeonBuilder {
                     }
                     
                     // Animate construction step
-                    animateConstructionStep(buildLocation, step, maxSteps, participants);
+                    animateConstructionStep(buildLocation, step, CONSTRUCTION_STEPS, audience);
                     step++;
                     
                 } catch (Exception e) {
@@ -151,7 +165,7 @@ public class DungeonBuilder {
     /**
      * Animates a single construction step
      */
-    private void animateConstructionStep(Location buildLocation, int step, int maxSteps, List<Player> participants) {
+    private void animateConstructionStep(Location buildLocation, int step, int maxSteps, PartyAudience audience) {
         try {
             World world = buildLocation.getWorld();
             if (world == null) return;
@@ -181,11 +195,7 @@ public class DungeonBuilder {
             }
             
             // Sound effects
-            for (Player participant : participants) {
-                if (participant != null && participant.isOnline()) {
-                    participant.playSound(buildLocation, Sound.BLOCK_STONE_PLACE, 0.5f, 1.0f + (step * 0.1f));
-                }
-            }
+            audience.playSound(CONSTRUCTION_STEP_SOUNDS[step], buildLocation.getX(), buildLocation.getY(), buildLocation.getZ());
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.WARNING, "Error in construction step animation", e);
@@ -247,13 +257,9 @@ public class DungeonBuilder {
                                      UUID initiatorId, List<Player> participants) {
         try {
             // Notify participants
-            String completeMessage = languageManager.getMessage("dungeon-build-complete");
-            for (Player participant : participants) {
-                if (participant != null && participant.isOnline()) {
-                    participant.sendMessage(languageManager.getPrefix() + completeMessage);
-                    participant.playSound(buildLocation, Sound.ENTITY_ENDER_DRAGON_GROWL, 1.0f, 0.8f);
-                }
-            }
+            PartyAudience audience = new PartyAudience(languageManager, participants);
+            audience.broadcast("dungeon-build-complete");
+            audience.playSound(BUILD_COMPLETE_SOUND, buildLocation.getX(), buildLocation.getY(), buildLocation.getZ());
             
             // Spectacular completion effects
             World world = buildLocation.getWorld();
@@ -349,27 +355,22 @@ public class DungeonBuilder {
             dungeonLocations.remove(dungeonLocation);
             
             // Notify participants
-            String destroyMessage = languageManager.getMessage("dungeon-destroying");
-            for (Player participant : participants) {
-                if (participant != null && participant.isOnline()) {
-                    participant.sendMessage(languageManager.getPrefix() + destroyMessage);
-                }
-            }
+            PartyAudience audience = new PartyAudience(languageManager, participants);
+            audience.broadcast("dungeon-destroying");
             
             // Start destruction animation
             new BukkitRunnable() {
                 private int step = 0;
-                private final int maxSteps = 15;
                 
                 @Override
                 public void run() {
-                    if (step >= maxSteps) {
+                    if (step >= DESTRUCTION_STEPS) {
                         this.cancel();
-                        onDestructionComplete(dungeonLocation, participants);
+                        onDestructionComplete(dungeonLocation, audience);
                         return;
                     }
                     
-                    animateDestructionStep(dungeonLocation, step, maxSteps, participants);
+                    animateDestructionStep(dungeonLocation, step, DESTRUCTION_STEPS, audience);
                     step++;
                 }
             }.runTaskTimer(plugin, 0L, 3L);
@@ -382,7 +383,7 @@ public class DungeonBuilder {
     /**
      * Animates a single destruction step
      */
-    private void animateDestructionStep(Location dungeonLocation, int step, int maxSteps, List<Player> participants) {
+    private void animateDestructionStep(Location dungeonLocation, int step, int maxSteps, PartyAudience audience) {
         try {
             World world = dungeonLocation.getWorld();
             if (world == null) return;
@@ -416,11 +417,7 @@ public class DungeonBuilder {
             }
             
             // Sound effects
-            for (Player participant : participants) {
-                if (participant != null && participant.isOnline()) {
-                    participant.playSound(dungeonLocation, Sound.ENTITY_GENERIC_EXPLODE, 0.3f, 0.8f + (step * 0.1f));
-                }
-            }
+            audience.playSound(DESTRUCTION_STEP_SOUNDS[step], dungeonLocation.getX(), dungeonLocation.getY(), dungeonLocation.getZ());
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.WARNING, "Error in destruction step animation", e);
@@ -430,7 +427,7 @@ public class DungeonBuilder {
     /**
      * Called when destruction is complete
      */
-    private void onDestructionComplete(Location dungeonLocation, List<Player> participants) {
+    private void onDestructionComplete(Location dungeonLocation, PartyAudience audience) {
         try {
             // Final cleanup - ensure all blocks are removed
             World world = dungeonLocation.getWorld();
@@ -451,13 +448,8 @@ public class DungeonBuilder {
             }
             
             // Notify participants
-            String completeMessage = languageManager.getMessage("dungeon-destroyed");
-            for (Player participant : participants) {
-                if (participant != null && participant.isOnline()) {
-                    participant.sendMessage(languageManager.getPrefix() + completeMessage);
-                    participant.playSound(dungeonLocation, Sound.ENTITY_WITHER_DEATH, 1.0f, 1.0f);
-                }
-            }
+            audience.broadcast("dungeon-destroyed");
+            audience.playSound(DESTROY_COMPLETE_SOUND, dungeonLocation.getX(), dungeonLocation.getY(), dungeonLocation.getZ());
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error completing dungeon destruction", e);
@@ -512,4 +504,8 @@ public class DungeonBuilder {
             plugin.getLogger().log(Level.WARNING, "Error during dungeon builder cleanup", e);
         }
     }
-}
\ No newline at end of file
+    
+    private static Sound sound(org.bukkit.Sound type, float volume, float pitch) {
+        return Sound.sound(type, Sound.Source.MASTER, volume, pitch);
+    }
+}
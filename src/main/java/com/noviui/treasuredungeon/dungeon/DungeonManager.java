@@ -2,11 +2,15 @@ package com.noviui.treasuredungeon.dungeon;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.ConfigManager;
+import com.noviui.treasuredungeon.config.ConfigSnapshot;
 import com.noviui.treasuredungeon.config.DataManager;
+import com.noviui.treasuredungeon.config.DungeonTypeDefinition;
+import com.noviui.treasuredungeon.config.LanguageBundle;
 import com.noviui.treasuredungeon.config.LanguageManager;
+import com.noviui.treasuredungeon.database.DatabaseManager;
 import com.noviui.treasuredungeon.integration.IntegrationManager;
+import com.noviui.treasuredungeon.utils.AliasTable;
 import com.noviui.treasuredungeon.utils.LocationManager;
-import com.noviui.treasuredungeon.utils.TimeUtils;
 import io.lumine.mythic.api.MythicApi;
 import io.lumine.mythic.bukkit.MythicBukkit;
 import org.bukkit.Bukkit;
@@ -22,7 +26,9 @@ import java.io.File;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
+import java.util.random.RandomGenerator;
 
 public class DungeonManager {
     
@@ -34,6 +40,7 @@ public class DungeonManager {
     private final LocationManager locationManager;
     private final SpawnManager spawnManager;
     private final PartyManager partyManager;
+    private final GlobalStats globalStats;
     
     // Active dungeons tracking
     private final Map<UUID, String> playerActiveDungeon = new ConcurrentHashMap<>();
@@ -43,6 +50,9 @@ public class DungeonManager {
     private final Map<UUID, Map<UUID, Double>> bossDamageTracker = new ConcurrentHashMap<>();
     private final Map<UUID, BukkitTask> activeTasks = new ConcurrentHashMap<>();
     
+    // Running dungeons; every participant maps to the same shared run
+    private final Map<UUID, DungeonRun> playerRuns = new ConcurrentHashMap<>();
+    
     public DungeonManager(TreasureDungeonPlugin plugin) {
         this.plugin = plugin;
         this.configManager = plugin.getConfigManager();
@@ -52,6 +62,7 @@ public class DungeonManager {
         this.locationManager = plugin.getLocationManager();
         this.spawnManager = new SpawnManager(plugin);
         this.partyManager = new PartyManager(plugin);
+        this.globalStats = plugin.getGlobalStats();
     }
     
     public void startDungeonAtLocation(Location buildLocation, String dungeonType, UUID initiatorId, List<Player> participants) {
@@ -68,20 +79,24 @@ public class DungeonManager {
                     if (skill != null) {
                         playerActiveDungeon.put(participant.getUniqueId(), skill);
                         playerDungeonType.put(participant.getUniqueId(), dungeonType);
+                        dataManager.getProximityIndex().markStarted(participant.getUniqueId(), skill);
                     }
                 }
             }
             
-            // Send start message
-            String message = languageManager.getMessage("dungeon-started");
+            List<UUID> participantIds = new ArrayList<>();
             for (Player participant : participants) {
-                if (participant != null && participant.isOnline()) {
-                    participant.sendMessage(languageManager.getPrefix() + message);
+                if (participant != null) {
+                    participantIds.add(participant.getUniqueId());
                 }
             }
+            DungeonRun run = beginRun(participantIds, dungeonType);
+            
+            // Send start message
+            new PartyAudience(languageManager, participants).broadcast("dungeon-started");
             
             // Start waves with scaled difficulty
-            startWavesWithDifficulty(participants, dungeonType, buildLocation);
+            startWavesWithDifficulty(participants, dungeonType, run, buildLocation);
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error starting dungeon at location", e);
@@ -98,8 +113,8 @@ public class DungeonManager {
         }
     }
     
-    private void startWavesWithDifficulty(List<Player> participants, String dungeonType, Location location) {
-        if (participants == null || participants.isEmpty() || dungeonType == null || location == null) {
+    private void startWavesWithDifficulty(List<Player> participants, String dungeonType, DungeonRun run, Location location) {
+        if (participants == null || participants.isEmpty() || dungeonType == null || run == null || location == null) {
             plugin.getLogger().warning("Invalid parameters in startWavesWithDifficulty");
             return;
         }
@@ -112,12 +127,27 @@ public class DungeonManager {
             difficulty = new PartyManager.DungeonDifficulty("Solo", 1.0, 1.0, 1.0);
         }
         
+        // Captured on the run, so a reload during the dungeon doesn't change the remaining waves
+        DungeonTypeDefinition definition = run.getDefinition();
+        if (definition == null) {
+            plugin.getLogger().warning("Unknown dungeon type: " + dungeonType);
+            for (Player participant : participants) {
+                if (participant != null) {
+                    String skill = getPlayerSkill(participant.getUniqueId());
+                    if (skill != null) {
+                        cleanupPlayerDungeon(participant.getUniqueId(), skill);
+                    }
+                }
+            }
+            return;
+        }
+        
         try {
-            int waveCount = configManager.getDungeonTypeWaveCount(dungeonType);
+            int waveCount = definition.getWaveCount();
             
             if (waveCount <= 0) {
                 plugin.getLogger().warning("Invalid wave count for dungeon type: " + dungeonType);
-                spawnBossWithDifficulty(participants, dungeonType, location, difficulty);
+                spawnBossWithDifficulty(participants, definition, location, difficulty);
                 return;
             }
             
@@ -150,12 +180,12 @@ public class DungeonManager {
                         }
                         
                         if (currentWave <= waveCount) {
-                            spawnWaveWithDifficulty(onlineParticipants, dungeonType, currentWave, location, difficulty);
+                            spawnWaveWithDifficulty(onlineParticipants, run, currentWave, location, difficulty);
                             currentWave++;
                         } else {
                             // All waves completed, spawn boss
                             this.cancel();
-                            spawnBossWithDifficulty(onlineParticipants, dungeonType, location, difficulty);
+                            spawnBossWithDifficulty(onlineParticipants, definition, location, difficulty);
                         }
                     } catch (Exception e) {
                         plugin.getLogger().log(Level.SEVERE, "Error in wave task", e);
@@ -170,7 +200,7 @@ public class DungeonManager {
                         }
                     }
                 }
-            }.runTaskTimer(plugin, 0L, TimeUtils.parseTimeToTicks(configManager.getWaveDelay()));
+            }.runTaskTimer(plugin, 0L, run.getWaveDelayTicks());
             
             activeTasks.put(initiatorId, task);
             
@@ -187,94 +217,64 @@ public class DungeonManager {
         }
     }
     
-    private void spawnWaveWithDifficulty(List<Player> participants, String dungeonType, int wave, 
+    private void spawnWaveWithDifficulty(List<Player> participants, DungeonRun run, int wave, 
                                        Location location, PartyManager.DungeonDifficulty difficulty) {
-        if (participants == null || participants.isEmpty() || dungeonType == null || location == null) {
+        if (participants == null || participants.isEmpty() || run == null || run.getDefinition() == null || location == null) {
             plugin.getLogger().warning("Invalid parameters in spawnWaveWithDifficulty");
             return;
         }
         
+        DungeonTypeDefinition definition = run.getDefinition();
+        
         try {
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("wave", String.valueOf(wave));
-            placeholders.put("difficulty", difficulty.getName());
-            
-            String message = languageManager.getMessage("wave-starting", placeholders);
-            for (Player participant : participants) {
-                if (participant != null && participant.isOnline()) {
-                    participant.sendMessage(languageManager.getPrefix() + message);
-                }
-            }
+            PartyAudience audience = new PartyAudience(languageManager, participants);
+            String waveNumber = String.valueOf(wave);
+            audience.broadcast(lang -> lang.format("wave-starting", "wave", waveNumber, "difficulty", difficulty.getName()));
             
             // Get mobs for this wave
-            List<String> baseMobs = configManager.getDungeonTypeWaveMobs(dungeonType, wave);
+            String[] baseMobs = definition.getWaveMobs(wave);
             
-            if (baseMobs != null && !baseMobs.isEmpty() && integrationManager.isMythicMobsEnabled()) {
-                // Scale mob count based on difficulty
-                int scaledMobCount = (int) Math.ceil(baseMobs.size() * difficulty.getMobMultiplier());
-                List<String> scaledMobs = new ArrayList<>();
-                
-                // Duplicate mobs to reach scaled count
-                for (int i = 0; i < scaledMobCount; i++) {
-                    scaledMobs.add(baseMobs.get(i % baseMobs.size()));
-                }
+            if (baseMobs.length > 0 && integrationManager.isMythicMobsEnabled()) {
+                // Scale mob count based on difficulty, repeating the wave's mobs to reach it
+                int scaledMobCount = (int) Math.ceil(baseMobs.length * difficulty.getMobMultiplier());
                 
                 // Find spawn locations for scaled wave
-                List<Location> spawnLocations = spawnManager.findMobSpawnLocations(location, scaledMobs.size());
+                List<Location> spawnLocations = spawnManager.findMobSpawnLocations(location, scaledMobCount);
                 
-                int spawnIndex = 0;
-                for (String mobId : scaledMobs) {
-                    if (mobId != null && !mobId.trim().isEmpty()) {
-                        Location spawnLoc = spawnIndex < spawnLocations.size() ? 
-                            spawnLocations.get(spawnIndex) : location;
-                        spawnMythicMob(mobId, spawnLoc);
-                        spawnIndex++;
-                    }
+                for (int i = 0; i < scaledMobCount; i++) {
+                    Location spawnLoc = i < spawnLocations.size() ? spawnLocations.get(i) : location;
+                    spawnMythicMob(baseMobs[i % baseMobs.length], spawnLoc);
                 }
             } else {
-                plugin.getLogger().warning("No mobs configured for wave " + wave + " of dungeon type " + dungeonType);
+                plugin.getLogger().warning("No mobs configured for wave " + wave + " of dungeon type " + definition.getId());
             }
             
             // Schedule wave completion message
             Bukkit.getScheduler().runTaskLater(plugin, () -> {
                 try {
-                    Map<String, String> completePlaceholders = new HashMap<>();
-                    completePlaceholders.put("wave", String.valueOf(wave));
-                    
-                    String completeMessage = languageManager.getMessage("wave-completed", completePlaceholders);
-                    for (Player participant : participants) {
-                        if (participant != null && participant.isOnline()) {
-                            participant.sendMessage(languageManager.getPrefix() + completeMessage);
-                        }
-                    }
+                    audience.broadcast(lang -> lang.format("wave-completed", "wave", waveNumber));
                 } catch (Exception e) {
                     plugin.getLogger().log(Level.WARNING, "Error sending wave completion message", e);
                 }
-            }, Math.max(20L, TimeUtils.parseTimeToTicks(configManager.getWaveDelay()) - 20L));
+            }, Math.max(20L, run.getWaveDelayTicks() - 20L));
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error spawning wave with difficulty", e);
         }
     }
     
-    private void spawnBossWithDifficulty(List<Player> participants, String dungeonType, 
+    private void spawnBossWithDifficulty(List<Player> participants, DungeonTypeDefinition definition, 
                                        Location location, PartyManager.DungeonDifficulty difficulty) {
-        if (participants == null || participants.isEmpty() || dungeonType == null || location == null) {
+        if (participants == null || participants.isEmpty() || definition == null || location == null) {
             plugin.getLogger().warning("Invalid parameters in spawnBossWithDifficulty");
             return;
         }
         
         try {
-            String bossMessage = languageManager.getMessage("boss-incoming");
-            for (Player participant : participants) {
-                if (participant != null && participant.isOnline()) {
-                    participant.sendMessage(languageManager.getPrefix() + bossMessage);
-                }
-            }
+            new PartyAudience(languageManager, participants).broadcast("boss-incoming");
             
             // Delay before boss spawn
-            String spawnDelay = configManager.getDungeonTypeBossSpawnDelay(dungeonType);
-            long delayTicks = TimeUtils.parseTimeToTicks(spawnDelay);
+            long delayTicks = definition.getBossSpawnDelayTicks();
             
             Bukkit.getScheduler().runTaskLater(plugin, () -> {
                 try {
@@ -290,8 +290,8 @@ public class DungeonManager {
                         return;
                     }
                     
-                    String bossId = configManager.getDungeonTypeBoss(dungeonType);
-                    if (bossId != null && !bossId.trim().isEmpty() && integrationManager.isMythicMobsEnabled()) {
+                    String bossId = definition.getBossId();
+                    if (bossId != null && integrationManager.isMythicMobsEnabled()) {
                         // Find optimal boss spawn location
                         Location bossSpawnLocation = spawnManager.findBossSpawnLocation(location);
                         Entity boss = spawnMythicMob(bossId, bossSpawnLocation);
@@ -303,19 +303,13 @@ public class DungeonManager {
                             }
                             bossDamageTracker.put(boss.getUniqueId(), damageMap);
                             
-                            Map<String, String> placeholders = new HashMap<>();
-                            placeholders.put("boss", bossId);
-                            placeholders.put("difficulty", difficulty.getName());
-                            String spawnedMessage = languageManager.getMessage("boss-spawned", placeholders);
-                            
-                            for (Player participant : onlineParticipants) {
-                                participant.sendMessage(languageManager.getPrefix() + spawnedMessage);
-                            }
+                            new PartyAudience(languageManager, onlineParticipants).broadcast(lang -> lang.format("boss-spawned",
+                                "boss", bossId, "difficulty", difficulty.getName()));
                         } else {
                             plugin.getLogger().warning("Failed to spawn boss " + bossId);
                         }
                     } else {
-                        plugin.getLogger().warning("No boss configured for dungeon type " + dungeonType);
+                        plugin.getLogger().warning("No boss configured for dungeon type " + definition.getId());
                     }
                 } catch (Exception e) {
                     plugin.getLogger().log(Level.SEVERE, "Error in boss spawn task", e);
@@ -358,6 +352,8 @@ public class DungeonManager {
             return;
         }
         
+        LanguageBundle lang = languageManager.getBundle(player);
+        
         UUID playerId = player.getUniqueId();
         
         try {
@@ -372,19 +368,21 @@ public class DungeonManager {
             }
             
             String dungeonSchematic = configManager.getDungeonTypeDungeonSchematic(dungeonType);
-            if (dungeonSchematic != null && !dungeonSchematic.trim().isEmpty() && integrationManager.isWorldEditEnabled()) {
+            if (dungeonSchematic != null && integrationManager.isWorldEditEnabled()) {
                 loadSchematic(dungeonSchematic, bellLocation);
             }
             
             // Mark dungeon as active
             playerActiveDungeon.put(playerId, skill);
+            dataManager.getProximityIndex().markStarted(playerId, skill);
+            DungeonRun run = beginRun(Collections.singletonList(playerId), dungeonType);
             
             // Send start message
-            String message = languageManager.getMessage("dungeon-started");
-            player.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("dungeon-started");
+            player.sendMessage(lang.getPrefix() + message);
             
             // Start waves
-            startWaves(player, skill, bellLocation);
+            startWaves(player, skill, run, bellLocation);
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error starting dungeon for player " + player.getName(), e);
@@ -392,13 +390,13 @@ public class DungeonManager {
             // Cleanup on error
             cleanupPlayerDungeon(playerId, skill);
             
-            String errorMessage = languageManager.getMessage("dungeon-start-failed");
-            player.sendMessage(languageManager.getPrefix() + errorMessage);
+            String errorMessage = lang.getMessage("dungeon-start-failed");
+            player.sendMessage(lang.getPrefix() + errorMessage);
         }
     }
     
-    private void startWaves(Player player, String skill, Location location) {
-        if (player == null || skill == null || location == null) {
+    private void startWaves(Player player, String skill, DungeonRun run, Location location) {
+        if (player == null || skill == null || run == null || location == null) {
             plugin.getLogger().warning("Invalid parameters in startWaves");
             return;
         }
@@ -411,12 +409,20 @@ public class DungeonManager {
             return;
         }
         
+        // Captured on the run, so a reload during the dungeon doesn't change the remaining waves
+        DungeonTypeDefinition definition = run.getDefinition();
+        if (definition == null) {
+            plugin.getLogger().warning("Unknown dungeon type: " + dungeonType);
+            cleanupPlayerDungeon(playerId, skill);
+            return;
+        }
+        
         try {
-            int waveCount = configManager.getDungeonTypeWaveCount(dungeonType);
+            int waveCount = definition.getWaveCount();
             
             if (waveCount <= 0) {
                 plugin.getLogger().warning("Invalid wave count for dungeon type: " + dungeonType);
-                spawnBoss(player, dungeonType, location);
+                spawnBoss(player, definition, location);
                 return;
             }
             
@@ -434,12 +440,12 @@ public class DungeonManager {
                         }
                         
                         if (currentWave <= waveCount) {
-                            spawnWave(player, dungeonType, currentWave, location);
+                            spawnWave(player, run, currentWave, location);
                             currentWave++;
                         } else {
                             // All waves completed, spawn boss
                             this.cancel();
-                            spawnBoss(player, dungeonType, location);
+                            spawnBoss(player, definition, location);
                         }
                     } catch (Exception e) {
                         plugin.getLogger().log(Level.SEVERE, "Error in wave task for player " + player.getName(), e);
@@ -447,7 +453,7 @@ public class DungeonManager {
                         cleanupPlayerDungeon(playerId, skill);
                     }
                 }
-            }.runTaskTimer(plugin, 0L, TimeUtils.parseTimeToTicks(configManager.getWaveDelay()));
+            }.runTaskTimer(plugin, 0L, run.getWaveDelayTicks());
             
             activeTasks.put(playerId, task);
             
@@ -457,69 +463,65 @@ public class DungeonManager {
         }
     }
     
-    private void spawnWave(Player player, String dungeonType, int wave, Location location) {
-        if (player == null || !player.isOnline() || dungeonType == null || location == null) {
+    private void spawnWave(Player player, DungeonRun run, int wave, Location location) {
+        if (player == null || !player.isOnline() || run == null || run.getDefinition() == null || location == null) {
             plugin.getLogger().warning("Invalid parameters in spawnWave");
             return;
         }
         
+        DungeonTypeDefinition definition = run.getDefinition();
+        LanguageBundle lang = languageManager.getBundle(player);
+        
         try {
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("wave", String.valueOf(wave));
-            
-            String message = languageManager.getMessage("wave-starting", placeholders);
-            player.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.format("wave-starting", "wave", wave);
+            player.sendMessage(lang.getPrefix() + message);
             
             // Get mobs for this wave
-            List<String> mobs = configManager.getDungeonTypeWaveMobs(dungeonType, wave);
+            String[] mobs = definition.getWaveMobs(wave);
             
-            if (mobs != null && !mobs.isEmpty() && integrationManager.isMythicMobsEnabled()) {
+            if (mobs.length > 0 && integrationManager.isMythicMobsEnabled()) {
                 // Find spawn locations for this wave
-                List<Location> spawnLocations = spawnManager.findMobSpawnLocations(location, mobs.size());
+                List<Location> spawnLocations = spawnManager.findMobSpawnLocations(location, mobs.length);
                 
-                int spawnIndex = 0;
-                for (String mobId : mobs) {
-                    if (mobId != null && !mobId.trim().isEmpty()) {
-                        Location spawnLoc = spawnIndex < spawnLocations.size() ? 
-                            spawnLocations.get(spawnIndex) : location;
-                        spawnMythicMob(mobId, spawnLoc);
-                        spawnIndex++;
-                    }
+                for (int i = 0; i < mobs.length; i++) {
+                    Location spawnLoc = i < spawnLocations.size() ? spawnLocations.get(i) : location;
+                    spawnMythicMob(mobs[i], spawnLoc);
                 }
             } else {
-                plugin.getLogger().warning("No mobs configured for wave " + wave + " of dungeon type " + dungeonType);
+                plugin.getLogger().warning("No mobs configured for wave " + wave + " of dungeon type " + definition.getId());
             }
             
             // Schedule wave completion message
             Bukkit.getScheduler().runTaskLater(plugin, () -> {
                 try {
                     if (player.isOnline()) {
-                        String completeMessage = languageManager.getMessage("wave-completed", placeholders);
-                        player.sendMessage(languageManager.getPrefix() + completeMessage);
+                        String completeMessage = lang.format("wave-completed", "wave", wave);
+                        player.sendMessage(lang.getPrefix() + completeMessage);
                     }
                 } catch (Exception e) {
                     plugin.getLogger().log(Level.WARNING, "Error sending wave completion message", e);
                 }
-            }, Math.max(20L, TimeUtils.parseTimeToTicks(configManager.getWaveDelay()) - 20L));
+            }, Math.max(20L, run.getWaveDelayTicks() - 20L));
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error spawning wave " + wave + " for player " + player.getName(), e);
         }
     }
     
-    private void spawnBoss(Player player, String dungeonType, Location location) {
-        if (player == null || !player.isOnline() || dungeonType == null || location == null) {
+    private void spawnBoss(Player player, DungeonTypeDefinition definition, Location location) {
+        if (player == null || !player.isOnline() || definition == null || location == null) {
             plugin.getLogger().warning("Invalid parameters in spawnBoss");
             return;
         }
         
+        LanguageBundle lang = languageManager.getBundle(player);
+        
         try {
-            String bossMessage = languageManager.getMessage("boss-incoming");
-            player.sendMessage(languageManager.getPrefix() + bossMessage);
+            String bossMessage = lang.getMessage("boss-incoming");
+            player.sendMessage(lang.getPrefix() + bossMessage);
             
             // Delay before boss spawn
-            String spawnDelay = configManager.getDungeonTypeBossSpawnDelay(dungeonType);
-            long delayTicks = TimeUtils.parseTimeToTicks(spawnDelay);
+            long delayTicks = definition.getBossSpawnDelayTicks();
             
             Bukkit.getScheduler().runTaskLater(plugin, () -> {
                 try {
@@ -528,8 +530,8 @@ public class DungeonManager {
                         return;
                     }
                     
-                    String bossId = configManager.getDungeonTypeBoss(dungeonType);
-                    if (bossId != null && !bossId.trim().isEmpty() && integrationManager.isMythicMobsEnabled()) {
+                    String bossId = definition.getBossId();
+                    if (bossId != null && integrationManager.isMythicMobsEnabled()) {
                         // Find optimal boss spawn location
                         Location bossSpawnLocation = spawnManager.findBossSpawnLocation(location);
                         Entity boss = spawnMythicMob(bossId, bossSpawnLocation);
@@ -537,15 +539,13 @@ public class DungeonManager {
                             // Initialize damage tracking
                             bossDamageTracker.put(boss.getUniqueId(), new ConcurrentHashMap<>());
                             
-                            Map<String, String> placeholders = new HashMap<>();
-                            placeholders.put("boss", bossId);
-                            String spawnedMessage = languageManager.getMessage("boss-spawned", placeholders);
-                            player.sendMessage(languageManager.getPrefix() + spawnedMessage);
+                            String spawnedMessage = lang.format("boss-spawned", "boss", bossId);
+                            player.sendMessage(lang.getPrefix() + spawnedMessage);
                         } else {
                             plugin.getLogger().warning("Failed to spawn boss " + bossId + " for player " + player.getName());
                         }
                     } else {
-                        plugin.getLogger().warning("No boss configured for dungeon type " + dungeonType);
+                        plugin.getLogger().warning("No boss configured for dungeon type " + definition.getId());
                     }
                 } catch (Exception e) {
                     plugin.getLogger().log(Level.SEVERE, "Error in boss spawn task for player " + player.getName(), e);
@@ -588,20 +588,23 @@ public class DungeonManager {
         
         try {
             // Send boss defeated message
-            String message = languageManager.getMessage("boss-defeated");
-            killer.sendMessage(languageManager.getPrefix() + message);
+            LanguageBundle lang = languageManager.getBundle(killer);
+            String message = lang.getMessage("boss-defeated");
+            killer.sendMessage(lang.getPrefix() + message);
             
             // Show damage ranking
             if (configManager.isDamageTrackingEnabled() && damageMap != null) {
                 showDamageRanking(killer, damageMap);
             }
             
-            // Spawn loot chest
-            spawnLootChest(killer, boss.getLocation());
+            // Spawn loot chest, with the loot the run started with
+            DungeonRun run = playerRuns.get(killer.getUniqueId());
+            spawnLootChest(killer, boss.getLocation(), run != null ? run.getDefinition() : null);
             
             // Clean up dungeon
             String skill = playerActiveDungeon.get(killer.getUniqueId());
             if (skill != null) {
+                finishRun(killer.getUniqueId(), skill, playerDungeonType.get(killer.getUniqueId()), damageMap);
                 completeDungeon(killer, skill);
             }
             
@@ -618,6 +621,8 @@ public class DungeonManager {
             return;
         }
         
+        LanguageBundle lang = languageManager.getBundle(player);
+        
         try {
             // Sort by damage
             List<Map.Entry<UUID, Double>> sortedEntries = new ArrayList<>(damageMap.entrySet());
@@ -625,19 +630,17 @@ public class DungeonManager {
             
             // Show top 3
             player.sendMessage("");
-            player.sendMessage(languageManager.getMessage("damage-ranking-title"));
+            player.sendMessage(lang.getMessage("damage-ranking-title"));
             
             for (int i = 0; i < Math.min(3, sortedEntries.size()); i++) {
                 Map.Entry<UUID, Double> entry = sortedEntries.get(i);
                 Player damagePlayer = Bukkit.getPlayer(entry.getKey());
                 String playerName = damagePlayer != null ? damagePlayer.getName() : "Unknown";
                 
-                Map<String, String> placeholders = new HashMap<>();
-                placeholders.put("position", String.valueOf(i + 1));
-                placeholders.put("player", playerName);
-                placeholders.put("damage", String.valueOf(entry.getValue().intValue()));
-                
-                String rankingEntry = languageManager.getMessage("damage-ranking-entry", placeholders);
+                String rankingEntry = lang.format("damage-ranking-entry",
+                    "position", String.valueOf(i + 1),
+                    "player", playerName,
+                    "damage", String.valueOf(entry.getValue().intValue()));
                 player.sendMessage(rankingEntry);
             }
             
@@ -647,15 +650,13 @@ public class DungeonManager {
                 if (personalDamage != null && sortedEntries.stream().limit(3)
                         .noneMatch(entry -> entry.getKey().equals(player.getUniqueId()))) {
                     
-                    Map<String, String> placeholders = new HashMap<>();
-                    placeholders.put("damage", String.valueOf(personalDamage.intValue()));
-                    String personalMessage = languageManager.getMessage("personal-damage", placeholders);
+                    String personalMessage = lang.format("personal-damage", "damage", personalDamage.intValue());
                     player.sendMessage(personalMessage);
                 }
             }
             
             // Schedule message cleanup
-            long showDuration = TimeUtils.parseTimeToTicks(configManager.getDamageShowDuration());
+            long showDuration = configManager.getSnapshot().getDamageShowTicks();
             Bukkit.getScheduler().runTaskLater(plugin, () -> {
                 try {
                     if (player.isOnline()) {
@@ -673,50 +674,43 @@ public class DungeonManager {
         }
     }
     
-    private void spawnLootChest(Player player, Location location) {
+    private void spawnLootChest(Player player, Location location, DungeonTypeDefinition definition) {
         if (player == null || !player.isOnline() || location == null) {
             plugin.getLogger().warning("Invalid parameters in spawnLootChest");
             return;
         }
         
+        LanguageBundle lang = languageManager.getBundle(player);
+        
         try {
             // Place chest
             location.getBlock().setType(Material.CHEST);
             
-            String dungeonType = playerDungeonType.get(player.getUniqueId());
-            if (dungeonType != null) {
+            if (definition != null && definition.hasCommandLoot()) {
                 // Execute loot commands
-                String lootType = configManager.getDungeonTypeLootType(dungeonType);
-                if ("commands".equals(lootType)) {
-                    List<String> commands = configManager.getDungeonTypeLootCommands(dungeonType);
-                    if (commands != null && !commands.isEmpty()) {
-                        for (String command : commands) {
-                            if (command != null && !command.trim().isEmpty()) {
-                                try {
-                                    String processedCommand = command.replace("{player}", player.getName());
-                                    Bukkit.dispatchCommand(Bukkit.getConsoleSender(), processedCommand);
-                                } catch (Exception e) {
-                                    plugin.getLogger().log(Level.WARNING, "Error executing loot command: " + command, e);
-                                }
-                            }
-                        }
+                for (String command : definition.getLootCommands()) {
+                    try {
+                        String processedCommand = command.replace("{player}", player.getName());
+                        Bukkit.dispatchCommand(Bukkit.getConsoleSender(), processedCommand);
+                    } catch (Exception e) {
+                        plugin.getLogger().log(Level.WARNING, "Error executing loot command: " + command, e);
                     }
                 }
             }
             
             // Send message
-            String message = languageManager.getMessage("chest-spawned");
-            player.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("chest-spawned");
+            player.sendMessage(lang.getPrefix() + message);
             
             // Schedule chest cleanup
-            long timeout = TimeUtils.parseTimeToTicks(configManager.getChestTimeout());
+            long timeout = configManager.getSnapshot().getChestTimeoutTicks();
             Bukkit.getScheduler().runTaskLater(plugin, () -> {
                 try {
                     if (location.getBlock().getType() == Material.CHEST) {
                         location.getBlock().setType(Material.AIR);
                         if (player.isOnline()) {
-                            String timeoutMessage = languageManager.getMessage("chest-timeout");
-                            player.sendMessage(languageManager.getPrefix() + timeoutMessage);
+                            String timeoutMessage = lang.getMessage("chest-timeout");
+                            player.sendMessage(lang.getPrefix() + timeoutMessage);
                         }
                     }
                 } catch (Exception e) {
@@ -767,6 +761,12 @@ public class DungeonManager {
             playerDungeonType.remove(playerId);
             dataManager.clearActiveDungeon(playerId, skill);
             
+            // The last participant leaving ends the run without a completion
+            DungeonRun run = playerRuns.remove(playerId);
+            if (run != null && !playerRuns.containsValue(run) && run.finish()) {
+                globalStats.dungeonAborted();
+            }
+            
             // Cancel any active tasks
             BukkitTask task = activeTasks.get(playerId);
             if (task != null && !task.isCancelled()) {
@@ -788,6 +788,67 @@ public class DungeonManager {
         }
     }
     
+    /**
+     * Registers a new running dungeon for the given participants, capturing the dungeon type
+     * and wave delay from the current config
+     */
+    private DungeonRun beginRun(Collection<UUID> participantIds, String dungeonType) {
+        ConfigSnapshot snapshot = configManager.getSnapshot();
+        DungeonRun run = new DungeonRun(System.currentTimeMillis(), snapshot.getDungeonType(dungeonType),
+            snapshot.getWaveDelayTicks());
+        if (participantIds.isEmpty()) {
+            return run;
+        }
+        
+        for (UUID participantId : participantIds) {
+            DungeonRun previous = playerRuns.put(participantId, run);
+            if (previous != null && !playerRuns.containsValue(previous) && previous.finish()) {
+                globalStats.dungeonAborted();
+            }
+            globalStats.recordPlayer(participantId);
+        }
+        globalStats.dungeonStarted();
+        return run;
+    }
+    
+    /**
+     * Records a cleared dungeon in the global counters, data.yml totals and the database
+     */
+    private void finishRun(UUID killerId, String skill, String dungeonType, Map<UUID, Double> damageMap) {
+        DungeonRun run = playerRuns.get(killerId);
+        if (run == null || !run.finish()) {
+            return;
+        }
+        
+        List<UUID> participantIds = new ArrayList<>();
+        for (Map.Entry<UUID, DungeonRun> entry : playerRuns.entrySet()) {
+            if (entry.getValue() == run) {
+                participantIds.add(entry.getKey());
+            }
+        }
+        playerRuns.values().removeIf(value -> value == run);
+        
+        long completionSeconds = Math.max(1L, (System.currentTimeMillis() - run.getStartedAt()) / 1000L);
+        globalStats.dungeonCompleted(participantIds.size(), completionSeconds);
+        
+        dataManager.setGlobalLong("total-completions", globalStats.getTotalCompletions());
+        if (globalStats.getBestTimeSeconds() != GlobalStats.NO_BEST_TIME) {
+            dataManager.setGlobalLong("best-time", globalStats.getBestTimeSeconds());
+        }
+        
+        DatabaseManager databaseManager = plugin.getDatabaseManager();
+        if (databaseManager != null && databaseManager.isEnabled()) {
+            String type = dungeonType != null ? dungeonType : "unknown";
+            String lootType = run.getDefinition() != null ? run.getDefinition().getLootType() : null;
+            
+            for (UUID participantId : participantIds) {
+                Double damage = damageMap != null ? damageMap.get(participantId) : null;
+                databaseManager.recordCompletion(participantId, type, skill, participantIds.size(),
+                    (int) completionSeconds, damage != null ? damage.longValue() : 0L, true, lootType);
+            }
+        }
+    }
+    
     public void loadSchematic(String schematicName, Location location) {
         if (!integrationManager.isWorldEditEnabled()) {
             plugin.getLogger().warning("Attempted to load schematic but WorldEdit is not enabled");
@@ -850,48 +911,20 @@ public class DungeonManager {
     }
     
     public String selectRandomDungeonType() {
-        try {
-            Set<String> dungeonTypes = configManager.getDungeonTypes();
-            if (dungeonTypes == null || dungeonTypes.isEmpty()) {
-                plugin.getLogger().warning("No dungeon types configured");
-                return null;
-            }
-            
-            // Calculate total weight
-            int totalWeight = 0;
-            Map<String, Integer> weights = new HashMap<>();
-            
-            for (String dungeonType : dungeonTypes) {
-                if (dungeonType != null && !dungeonType.trim().isEmpty()) {
-                    int weight = Math.max(1, configManager.getDungeonTypeWeight(dungeonType));
-                    weights.put(dungeonType, weight);
-                    totalWeight += weight;
-                }
-            }
-            
-            if (totalWeight == 0 || weights.isEmpty()) {
-                plugin.getLogger().warning("No valid dungeon types with weights found");
-                return null;
-            }
-            
-            // Weighted random selection
-            int randomValue = ThreadLocalRandom.current().nextInt(totalWeight);
-            int currentWeight = 0;
-            
-            for (Map.Entry<String, Integer> entry : weights.entrySet()) {
-                currentWeight += entry.getValue();
-                if (randomValue < currentWeight) {
-                    return entry.getKey();
-                }
-            }
-            
-            // Fallback (should never reach here)
-            return weights.keySet().iterator().next();
-            
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "Error selecting random dungeon type", e);
+        return selectRandomDungeonType(ThreadLocalRandom.current());
+    }
+    
+    /**
+     * Picks a dungeon type for a new map from the enabled types, weighted by their chance.
+     * Pass a seeded generator to get a repeatable sequence, e.g. for distribution checks or load simulations.
+     */
+    public String selectRandomDungeonType(RandomGenerator random) {
+        AliasTable<DungeonTypeDefinition> table = configManager.getSnapshot().getDungeonTypeTable();
+        if (table == null) {
+            plugin.getLogger().warning("No enabled dungeon types with a positive chance configured");
             return null;
         }
+        return table.sample(random).getId();
     }
     
     public void setPlayerDungeonType(UUID playerId, String dungeonType) {
@@ -929,6 +962,8 @@ public class DungeonManager {
             playerDungeonType.clear();
             playerBellLocations.clear();
             bossDamageTracker.clear();
+            playerRuns.clear();
+            globalStats.resetActive();
             
             plugin.getLogger().info("Dungeon manager cleanup completed");
             
@@ -936,4 +971,42 @@ public class DungeonManager {
             plugin.getLogger().log(Level.WARNING, "Error during dungeon manager cleanup", e);
         }
     }
+    
+    /**
+     * A running dungeon shared by all of its participants
+     */
+    private static class DungeonRun {
+        private final long startedAt;
+        private final DungeonTypeDefinition definition;
+        private final long waveDelayTicks;
+        private final AtomicBoolean finished = new AtomicBoolean(false);
+        
+        private DungeonRun(long startedAt, DungeonTypeDefinition definition, long waveDelayTicks) {
+            this.startedAt = startedAt;
+            this.definition = definition;
+            this.waveDelayTicks = waveDelayTicks;
+        }
+        
+        public long getStartedAt() {
+            return startedAt;
+        }
+        
+        /**
+         * The dungeon type as configured when the run started, or null if it was unknown
+         */
+        public DungeonTypeDefinition getDefinition() {
+            return definition;
+        }
+        
+        public long getWaveDelayTicks() {
+            return waveDelayTicks;
+        }
+        
+        /**
+         * Marks the run as finished, returning false if it already was
+         */
+        public boolean finish() {
+            return finished.compareAndSet(false, true);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.noviui.treasuredungeon.dungeon;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live server-wide dungeon counters backing the global_* placeholders.
+ * Updates come from the dungeon lifecycle and never contend with each other; reads are O(1).
+ * Totals are seeded from data.yml or the database at startup.
+ */
+public class GlobalStats {
+    
+    public static final long NO_BEST_TIME = Long.MAX_VALUE;
+    
+    // Player completions, one per participant, matching rows in td_dungeon_completions
+    private final LongAdder totalCompletions = new LongAdder();
+    private final LongAdder activeDungeons = new LongAdder();
+    private final LongAdder totalPlayers = new LongAdder();
+    private final AtomicLong bestTimeSeconds = new AtomicLong(NO_BEST_TIME);
+    
+    private final Set<UUID> knownPlayers = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Replaces the persisted totals, keeping live active-dungeon counts
+     */
+    public void seed(long completions, long bestTime, Set<UUID> players, long playerCount) {
+        totalCompletions.reset();
+        totalCompletions.add(Math.max(0, completions));
+        bestTimeSeconds.set(bestTime > 0 ? bestTime : NO_BEST_TIME);
+        
+        knownPlayers.clear();
+        knownPlayers.addAll(players);
+        totalPlayers.reset();
+        totalPlayers.add(Math.max(playerCount, knownPlayers.size()));
+    }
+    
+    /**
+     * Counts a player the first time they are seen
+     */
+    public void recordPlayer(UUID playerId) {
+        if (playerId != null && knownPlayers.add(playerId)) {
+            totalPlayers.increment();
+        }
+    }
+    
+    public void dungeonStarted() {
+        activeDungeons.increment();
+    }
+    
+    /**
+     * Ends a running dungeon without a completion, e.g. when the party leaves or it fails
+     */
+    public void dungeonAborted() {
+        activeDungeons.decrement();
+    }
+    
+    /**
+     * Ends a running dungeon that was cleared by the given number of players in the given time
+     */
+    public void dungeonCompleted(int participants, long completionSeconds) {
+        activeDungeons.decrement();
+        totalCompletions.add(Math.max(1, participants));
+        if (completionSeconds > 0) {
+            bestTimeSeconds.accumulateAndGet(completionSeconds, Math::min);
+        }
+    }
+    
+    /**
+     * Forgets running dungeons, used when all dungeon state is torn down
+     */
+    public void resetActive() {
+        activeDungeons.reset();
+    }
+    
+    public long getTotalCompletions() {
+        return totalCompletions.sum();
+    }
+    
+    public long getActiveDungeons() {
+        return Math.max(0, activeDungeons.sum());
+    }
+    
+    public long getTotalPlayers() {
+        return totalPlayers.sum();
+    }
+    
+    /**
+     * Gets the fastest completion in seconds, or {@link #NO_BEST_TIME} if none was recorded
+     */
+    public long getBestTimeSeconds() {
+        return bestTimeSeconds.get();
+    }
+}
@@ -0,0 +1,94 @@
+package com.noviui.treasuredungeon.dungeon;
+
+import com.noviui.treasuredungeon.config.LanguageBundle;
+import com.noviui.treasuredungeon.config.LanguageManager;
+import net.kyori.adventure.audience.Audience;
+import net.kyori.adventure.audience.ForwardingAudience;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The online members of a party or dungeon instance as one Adventure audience.
+ * Messages are rendered and converted to a component once per language spoken in the party rather
+ * than once per player; titles and sounds passed to the audience are shared by every member.
+ */
+public final class PartyAudience implements ForwardingAudience {
+    
+    private static final LegacyComponentSerializer LEGACY = LegacyComponentSerializer.legacySection();
+    
+    private final LanguageManager languageManager;
+    private final Collection<? extends Player> members;
+    
+    public PartyAudience(LanguageManager languageManager, Collection<? extends Player> members) {
+        this.languageManager = languageManager;
+        this.members = members;
+    }
+    
+    @Override
+    public @NotNull Iterable<? extends Audience> audiences() {
+        List<Player> online = new ArrayList<>(members.size());
+        for (Player member : members) {
+            if (member != null && member.isOnline()) {
+                online.add(member);
+            }
+        }
+        return online;
+    }
+    
+    /**
+     * Sends a prefixed message without placeholders; the component is cached on each language bundle
+     */
+    public void broadcast(String key) {
+        for (Player member : members) {
+            if (member != null && member.isOnline()) {
+                member.sendMessage(languageManager.getBundle(member).getPrefixedComponent(key));
+            }
+        }
+    }
+    
+    /**
+     * Sends a prefixed message rendered by the given function, called once per language in the party
+     */
+    public void broadcast(Function<LanguageBundle, String> renderer) {
+        LanguageBundle lastBundle = null;
+        Component lastComponent = null;
+        Map<LanguageBundle, Component> rendered = null;
+        
+        for (Player member : members) {
+            if (member == null || !member.isOnline()) {
+                continue;
+            }
+            
+            LanguageBundle bundle = languageManager.getBundle(member);
+            Component component;
+            if (bundle == lastBundle) {
+                component = lastComponent;
+            } else if (lastBundle == null) {
+                component = render(bundle, renderer);
+            } else {
+                // Mixed-language parties are rare, so single-language parties never allocate the map
+                if (rendered == null) {
+                    rendered = new IdentityHashMap<>(4);
+                    rendered.put(lastBundle, lastComponent);
+                }
+                component = rendered.computeIfAbsent(bundle, b -> render(b, renderer));
+            }
+            lastBundle = bundle;
+            lastComponent = component;
+            member.sendMessage(component);
+        }
+    }
+    
+    private static Component render(LanguageBundle bundle, Function<LanguageBundle, String> renderer) {
+        return LEGACY.deserialize(bundle.getPrefix() + renderer.apply(bundle));
+    }
+}
@@ -2,11 +2,15 @@ package com.noviui.treasuredungeon.dungeon;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.LanguageManager;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.format.NamedTextColor;
+import net.kyori.adventure.title.Title;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -28,6 +32,9 @@ public class PartyManager {
     private static final int MAX_PARTY_SIZE = 4;
     private static final int COUNTDOWN_SECONDS = 10;
     
+    // Built once and shared by every party's countdown
+    private static final Title[] COUNTDOWN_TITLES = buildCountdownTitles();
+    
     public PartyManager(TreasureDungeonPlugin plugin) {
         this.plugin = plugin;
         this.languageManager = plugin.getLanguageManager();
@@ -92,17 +99,11 @@ public class PartyManager {
             }
             
             // Notify about party formation
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("party_size", String.valueOf(players.size()));
-            placeholders.put("countdown", String.valueOf(COUNTDOWN_SECONDS));
-            
-            String partyMessage = languageManager.getMessage("party-formed", placeholders);
-            String countdownMessage = languageManager.getMessage("dungeon-countdown", placeholders);
-            
-            for (Player player : players) {
-                player.sendMessage(languageManager.getPrefix() + partyMessage);
-                player.sendMessage(languageManager.getPrefix() + countdownMessage);
-            }
+            PartyAudience audience = new PartyAudience(languageManager, players);
+            String partySize = String.valueOf(players.size());
+            String countdown = String.valueOf(COUNTDOWN_SECONDS);
+            audience.broadcast(lang -> lang.format("party-formed", "party_size", partySize, "countdown", countdown));
+            audience.broadcast(lang -> lang.format("dungeon-countdown", "party_size", partySize, "countdown", countdown));
             
             // Start countdown
             startDungeonCountdown(players, bellLocation);
@@ -149,14 +150,10 @@ public class PartyManager {
                     
                     // Countdown messages
                     if (countdown <= 5 || countdown % 5 == 0) {
-                        Map<String, String> placeholders = new HashMap<>();
-                        placeholders.put("seconds", String.valueOf(countdown));
-                        
-                        String message = languageManager.getMessage("countdown-tick", placeholders);
-                        for (Player player : onlinePlayers) {
-                            player.sendMessage(languageManager.getPrefix() + message);
-                            player.sendTitle("§6" + countdown, "§eGet ready for battle!", 0, 20, 10);
-                        }
+                        PartyAudience audience = new PartyAudience(languageManager, onlinePlayers);
+                        int seconds = countdown;
+                        audience.broadcast(lang -> lang.format("countdown-tick", "seconds", seconds));
+                        audience.showTitle(COUNTDOWN_TITLES[seconds]);
                     }
                     
                     countdown--;
@@ -193,10 +190,7 @@ public class PartyManager {
             }
             
             if (dungeonType == null) {
-                String errorMessage = languageManager.getMessage("no-dungeon-types");
-                for (Player player : players) {
-                    player.sendMessage(languageManager.getPrefix() + errorMessage);
-                }
+                new PartyAudience(languageManager, players).broadcast("no-dungeon-types");
                 return;
             }
             
@@ -204,16 +198,14 @@ public class PartyManager {
             DungeonDifficulty difficulty = calculateDifficulty(players.size(), dungeonType);
             
             // Notify players about difficulty scaling
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("party_size", String.valueOf(players.size()));
-            placeholders.put("difficulty", difficulty.getName());
-            placeholders.put("mob_multiplier", String.valueOf(difficulty.getMobMultiplier()));
-            placeholders.put("boss_multiplier", String.valueOf(difficulty.getBossMultiplier()));
-            
-            String difficultyMessage = languageManager.getMessage("difficulty-scaled", placeholders);
-            for (Player player : players) {
-                player.sendMessage(languageManager.getPrefix() + difficultyMessage);
-            }
+            String partySize = String.valueOf(players.size());
+            String mobMultiplier = String.valueOf(difficulty.getMobMultiplier());
+            String bossMultiplier = String.valueOf(difficulty.getBossMultiplier());
+            new PartyAudience(languageManager, players).broadcast(lang -> lang.format("difficulty-scaled",
+                "party_size", partySize,
+                "difficulty", difficulty.getName(),
+                "mob_multiplier", mobMultiplier,
+                "boss_multiplier", bossMultiplier));
             
             // Start dungeon construction
             plugin.getDungeonBuilder().buildDungeon(bellLocation, dungeonType, initiatorId, players);
@@ -340,6 +332,17 @@ public class PartyManager {
         }
     }
     
+    private static Title[] buildCountdownTitles() {
+        Component subtitle = Component.text("Get ready for battle!", NamedTextColor.YELLOW);
+        Title.Times times = Title.Times.times(Duration.ZERO, Duration.ofSeconds(1), Duration.ofMillis(500));
+        
+        Title[] titles = new Title[COUNTDOWN_SECONDS + 1];
+        for (int seconds = 0; seconds <= COUNTDOWN_SECONDS; seconds++) {
+            titles[seconds] = Title.title(Component.text(seconds, NamedTextColor.GOLD), subtitle, times);
+        }
+        return titles;
+    }
+    
     /**
      * Inner class representing dungeon difficulty
      */
@@ -361,4 +364,4 @@ public class PartyManager {
         public double getBossMultiplier() { return bossMultiplier; }
         public double getLootMultiplier() { return lootMultiplier; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,179 @@
+package com.noviui.treasuredungeon.dungeon;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Decides when a moving player reaches the approach ring or the bell of one of their targets.
+ * The player's own targets filed under their chunk are looked up once per chunk and kept until
+ * the player crosses into another chunk or the index changes; in between, a move only measures
+ * those candidates, and a player whose chunk holds none of their targets costs a map read.
+ * Not thread-safe: call it from one thread, normally the main thread.
+ */
+public final class ProximityEvaluator {
+    
+    public enum Stage {
+        // Within ProximityIndex.APPROACH_RADIUS blocks
+        APPROACH,
+        // Within ProximityIndex.BELL_RADIUS blocks
+        BELL
+    }
+    
+    private static final double APPROACH_DISTANCE_SQUARED = (double) ProximityIndex.APPROACH_RADIUS * ProximityIndex.APPROACH_RADIUS;
+    private static final double BELL_DISTANCE_SQUARED = (double) ProximityIndex.BELL_RADIUS * ProximityIndex.BELL_RADIUS;
+    private static final ProximityIndex.Target[] NO_CANDIDATES = new ProximityIndex.Target[0];
+    
+    private final ProximityIndex index;
+    private final Map<UUID, PlayerState> states = new HashMap<>();
+    private long lookups;
+    
+    public ProximityEvaluator(ProximityIndex index) {
+        this.index = index;
+    }
+    
+    /**
+     * Checks a player's position and reports each stage reached for the first time.
+     * Each stage is reported at most once per target, as the target's state moves forward.
+     */
+    public void evaluate(UUID playerId, String world, double x, double y, double z,
+                         BiConsumer<ProximityIndex.Target, Stage> onStage) {
+        for (ProximityIndex.Target target : candidates(playerId, world, x, z)) {
+            Stage stage = stageAt(target, x, y, z);
+            if (stage != null) {
+                reach(target, stage, onStage);
+            }
+        }
+    }
+    
+    /**
+     * Checks a player's position and reports the furthest stage in reach of each target that
+     * has not got there yet, without moving the target's state; the caller moves it later with
+     * reach(). Lets the batch mode measure off the main thread and advance on it.
+     */
+    public void measure(UUID playerId, String world, double x, double y, double z,
+                        BiConsumer<ProximityIndex.Target, Stage> onStage) {
+        for (ProximityIndex.Target target : candidates(playerId, world, x, z)) {
+            Stage stage = stageAt(target, x, y, z);
+            if (stage == null) {
+                continue;
+            }
+            ProximityIndex.State state = target.getState();
+            if (state == ProximityIndex.State.FAR
+                    || (stage == Stage.BELL && state == ProximityIndex.State.APPROACHING)) {
+                onStage.accept(target, stage);
+            }
+        }
+    }
+    
+    /**
+     * Moves a target forward to the given stage and reports each stage it passed, at most once
+     * per target even with several threads checking
+     */
+    public static void reach(ProximityIndex.Target target, Stage stage,
+                             BiConsumer<ProximityIndex.Target, Stage> onStage) {
+        if (target.advance(ProximityIndex.State.FAR, ProximityIndex.State.APPROACHING)) {
+            onStage.accept(target, Stage.APPROACH);
+        }
+        if (stage == Stage.BELL
+                && target.advance(ProximityIndex.State.APPROACHING, ProximityIndex.State.BELL_SPAWNED)) {
+            onStage.accept(target, Stage.BELL);
+        }
+    }
+    
+    private ProximityIndex.Target[] candidates(UUID playerId, String world, double x, double z) {
+        int blockX = (int) Math.floor(x);
+        int blockZ = (int) Math.floor(z);
+        long chunkKey = ProximityIndex.chunkKey(blockX >> 4, blockZ >> 4);
+        long version = index.getVersion();
+        
+        PlayerState state = states.get(playerId);
+        if (state == null) {
+            state = new PlayerState();
+            states.put(playerId, state);
+        }
+        if (state.chunkKey != chunkKey || state.version != version || !world.equals(state.world)) {
+            // New chunk or changed targets: look the bucket up again
+            state.world = world;
+            state.chunkKey = chunkKey;
+            state.version = version;
+            state.candidates = ownTargets(index.getTargetsNear(world, blockX, blockZ), playerId);
+            lookups++;
+        }
+        return state.candidates;
+    }
+    
+    /**
+     * Gets the furthest stage the position is in reach of, or null if it is outside the approach ring
+     */
+    private static Stage stageAt(ProximityIndex.Target target, double x, double y, double z) {
+        double distanceSquared = target.distanceSquared(x, y, z);
+        if (distanceSquared > APPROACH_DISTANCE_SQUARED) {
+            return null;
+        }
+        return distanceSquared <= BELL_DISTANCE_SQUARED ? Stage.BELL : Stage.APPROACH;
+    }
+    
+    /**
+     * Drops what was cached for a player, e.g. when they leave
+     */
+    public void forget(UUID playerId) {
+        states.remove(playerId);
+    }
+    
+    /**
+     * Drops what was cached for every player not in the given ones, e.g. the players that
+     * still have a target
+     */
+    public void retain(Collection<UUID> playerIds) {
+        states.keySet().retainAll(playerIds);
+    }
+    
+    public void clear() {
+        states.clear();
+    }
+    
+    /**
+     * Gets how many players have cached candidates, for leak monitoring
+     */
+    public int size() {
+        return states.size();
+    }
+    
+    /**
+     * Gets how many times a bucket was looked up instead of using the cached candidates
+     */
+    public long getLookupCount() {
+        return lookups;
+    }
+    
+    private static ProximityIndex.Target[] ownTargets(ProximityIndex.Target[] bucket, UUID playerId) {
+        int count = 0;
+        for (ProximityIndex.Target target : bucket) {
+            if (target.getPlayerId().equals(playerId)) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return NO_CANDIDATES;
+        }
+        
+        ProximityIndex.Target[] own = new ProximityIndex.Target[count];
+        int i = 0;
+        for (ProximityIndex.Target target : bucket) {
+            if (target.getPlayerId().equals(playerId)) {
+                own[i++] = target;
+            }
+        }
+        return own;
+    }
+    
+    private static final class PlayerState {
+        private String world;
+        private long chunkKey;
+        private long version = -1L;
+        private ProximityIndex.Target[] candidates = NO_CANDIDATES;
+    }
+}
@@ -0,0 +1,363 @@
+package com.noviui.treasuredungeon.dungeon;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.LongConsumer;
+
+/**
+ * Where the active treasure targets are, for the proximity checks on player movement.
+ * Each target is filed under every chunk its approach ring reaches into, so a move looks up the
+ * one bucket of the chunk the player stands in and only measures the targets filed there.
+ * Players without a target cost a single map miss. Kept in sync by DataManager; readers never
+ * lock and can run on any thread.
+ */
+public final class ProximityIndex {
+    
+    // Distance at which the player is told the treasure is near
+    public static final int APPROACH_RADIUS = 50;
+    // Distance at which the bell is placed
+    public static final int BELL_RADIUS = 10;
+    
+    /**
+     * How far a player got with one target. Only moves forward, except that leaving the server
+     * or the world sends a target that was not started back to FAR.
+     */
+    public enum State {
+        FAR,
+        // Approach message sent
+        APPROACHING,
+        // Bell placed
+        BELL_SPAWNED,
+        // Bell rung and dungeon started; kept until the dungeon ends and the target is removed
+        STARTED
+    }
+    
+    private static final Target[] NO_TARGETS = new Target[0];
+    
+    private final Map<UUID, Target[]> byPlayer = new ConcurrentHashMap<>();
+    private final Set<UUID> playerIds = Collections.unmodifiableSet(byPlayer.keySet());
+    // World name to chunk key to the targets whose approach ring reaches into that chunk
+    private final Map<String, Map<Long, Target[]>> byWorld = new ConcurrentHashMap<>();
+    // Buckets are replaced rather than changed, so only writers need this
+    private final Object writeLock = new Object();
+    // Bumped on every change so cached lookups know to look again
+    private volatile long version;
+    private volatile Runnable changeListener;
+    
+    /**
+     * Files a player's target for a skill, replacing the previous one for that skill
+     */
+    public void put(UUID playerId, String skill, String world, int x, int y, int z) {
+        Target target = new Target(playerId, skill, world, x, y, z);
+        synchronized (writeLock) {
+            Target previous = find(playerId, skill);
+            if (previous != null) {
+                unfile(previous);
+            }
+            
+            byPlayer.put(playerId, append(byPlayer.getOrDefault(playerId, NO_TARGETS), target));
+            
+            Map<Long, Target[]> chunks = byWorld.computeIfAbsent(world, key -> new ConcurrentHashMap<>());
+            forEachChunkInRing(target, key -> chunks.merge(key, new Target[]{target}, ProximityIndex::concat));
+            version++;
+        }
+        fireChange();
+    }
+    
+    public void remove(UUID playerId, String skill) {
+        synchronized (writeLock) {
+            Target target = find(playerId, skill);
+            if (target == null) {
+                return;
+            }
+            unfile(target);
+            version++;
+        }
+        fireChange();
+    }
+    
+    public void clear() {
+        synchronized (writeLock) {
+            byPlayer.clear();
+            byWorld.clear();
+            version++;
+        }
+        fireChange();
+    }
+    
+    /**
+     * Sets what to run after every change, outside the index lock and on the thread that made
+     * the change; null removes it
+     */
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+    
+    /**
+     * Gets a number that changes whenever a target is added or removed
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Checks whether a player has any active target; a single map lookup
+     */
+    public boolean hasTargets(UUID playerId) {
+        return byPlayer.containsKey(playerId);
+    }
+    
+    /**
+     * Gets the number of players with at least one active target
+     */
+    public int getPlayerCount() {
+        return byPlayer.size();
+    }
+    
+    /**
+     * Gets the players with at least one active target, as a live view
+     */
+    public Set<UUID> getPlayerIds() {
+        return playerIds;
+    }
+    
+    /**
+     * Gets a player's targets, or an empty array. The array is shared and must not be modified.
+     */
+    public Target[] getTargets(UUID playerId) {
+        return byPlayer.getOrDefault(playerId, NO_TARGETS);
+    }
+    
+    /**
+     * Gets every target, of any player, whose approach ring reaches into the chunk holding the
+     * given block. The array is shared and must not be modified.
+     */
+    public Target[] getTargetsNear(String world, int blockX, int blockZ) {
+        Map<Long, Target[]> chunks = byWorld.get(world);
+        if (chunks == null) {
+            return NO_TARGETS;
+        }
+        return chunks.getOrDefault(chunkKey(blockX >> 4, blockZ >> 4), NO_TARGETS);
+    }
+    
+    /**
+     * Checks whether a target is still filed, i.e. not removed or replaced since it was looked up
+     */
+    public boolean contains(Target target) {
+        for (Target filed : byPlayer.getOrDefault(target.playerId, NO_TARGETS)) {
+            if (filed == target) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Sends a player's targets that were not started back to FAR, so the messages and the bell
+     * come again on the next approach
+     */
+    public void resetProgress(UUID playerId) {
+        for (Target target : getTargets(playerId)) {
+            target.reset();
+        }
+    }
+    
+    /**
+     * Marks a player's target for a skill as started, so proximity leaves it alone until it is removed
+     */
+    public void markStarted(UUID playerId, String skill) {
+        Target target = find(playerId, skill);
+        if (target != null) {
+            target.state = State.STARTED;
+        }
+    }
+    
+    /**
+     * Gets how many targets are past FAR. Every one of them belongs to an active dungeon, so this
+     * never grows beyond the number of targets; walks all targets, meant for monitoring.
+     */
+    public int getTrackedStateCount() {
+        int count = 0;
+        for (Target[] targets : byPlayer.values()) {
+            for (Target target : targets) {
+                if (target.state != State.FAR) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
+    private void fireChange() {
+        Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+    
+    private Target find(UUID playerId, String skill) {
+        for (Target target : byPlayer.getOrDefault(playerId, NO_TARGETS)) {
+            if (target.skill.equals(skill)) {
+                return target;
+            }
+        }
+        return null;
+    }
+    
+    private void unfile(Target target) {
+        Target[] remaining = without(byPlayer.getOrDefault(target.playerId, NO_TARGETS), target);
+        if (remaining.length == 0) {
+            byPlayer.remove(target.playerId);
+        } else {
+            byPlayer.put(target.playerId, remaining);
+        }
+        
+        Map<Long, Target[]> chunks = byWorld.get(target.world);
+        if (chunks == null) {
+            return;
+        }
+        forEachChunkInRing(target, key -> chunks.computeIfPresent(key, (ignored, bucket) -> {
+            Target[] left = without(bucket, target);
+            return left.length == 0 ? null : left;
+        }));
+        if (chunks.isEmpty()) {
+            byWorld.remove(target.world);
+        }
+    }
+    
+    private static void forEachChunkInRing(Target target, LongConsumer action) {
+        int minChunkX = (target.x - APPROACH_RADIUS) >> 4;
+        int maxChunkX = (target.x + APPROACH_RADIUS) >> 4;
+        int minChunkZ = (target.z - APPROACH_RADIUS) >> 4;
+        int maxChunkZ = (target.z + APPROACH_RADIUS) >> 4;
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                action.accept(chunkKey(chunkX, chunkZ));
+            }
+        }
+    }
+    
+    static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+    
+    private static Target[] append(Target[] targets, Target target) {
+        Target[] copy = new Target[targets.length + 1];
+        System.arraycopy(targets, 0, copy, 0, targets.length);
+        copy[targets.length] = target;
+        return copy;
+    }
+    
+    private static Target[] concat(Target[] first, Target[] second) {
+        Target[] copy = new Target[first.length + second.length];
+        System.arraycopy(first, 0, copy, 0, first.length);
+        System.arraycopy(second, 0, copy, first.length, second.length);
+        return copy;
+    }
+    
+    private static Target[] without(Target[] targets, Target target) {
+        int index = -1;
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] == target) {
+                index = i;
+                break;
+            }
+        }
+        if (index < 0) {
+            return targets;
+        }
+        if (targets.length == 1) {
+            return NO_TARGETS;
+        }
+        
+        Target[] copy = new Target[targets.length - 1];
+        System.arraycopy(targets, 0, copy, 0, index);
+        System.arraycopy(targets, index + 1, copy, index, targets.length - index - 1);
+        return copy;
+    }
+    
+    /**
+     * The block a player's treasure map points to for one skill, with what the player was already told about it
+     */
+    public static final class Target {
+        
+        private static final AtomicReferenceFieldUpdater<Target, State> STATE =
+            AtomicReferenceFieldUpdater.newUpdater(Target.class, State.class, "state");
+        
+        private final UUID playerId;
+        private final String skill;
+        private final String world;
+        private final int x;
+        private final int y;
+        private final int z;
+        
+        // A new map gives a new target, so this starts over for every dungeon
+        private volatile State state = State.FAR;
+        
+        private Target(UUID playerId, String skill, String world, int x, int y, int z) {
+            this.playerId = playerId;
+            this.skill = skill;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+        
+        public UUID getPlayerId() {
+            return playerId;
+        }
+        
+        public String getSkill() {
+            return skill;
+        }
+        
+        public String getWorld() {
+            return world;
+        }
+        
+        public int getX() {
+            return x;
+        }
+        
+        public int getY() {
+            return y;
+        }
+        
+        public int getZ() {
+            return z;
+        }
+        
+        public double distanceSquared(double fromX, double fromY, double fromZ) {
+            double dx = fromX - x;
+            double dy = fromY - y;
+            double dz = fromZ - z;
+            return dx * dx + dy * dy + dz * dz;
+        }
+        
+        public State getState() {
+            return state;
+        }
+        
+        /**
+         * Moves from one state to the next; returns false if the target was not in the expected
+         * state, so each transition happens once even with several threads checking
+         */
+        public boolean advance(State expected, State next) {
+            return STATE.compareAndSet(this, expected, next);
+        }
+        
+        private void reset() {
+            State current = state;
+            while (current != State.FAR && current != State.STARTED) {
+                if (STATE.compareAndSet(this, current, State.FAR)) {
+                    return;
+                }
+                current = state;
+            }
+        }
+    }
+}
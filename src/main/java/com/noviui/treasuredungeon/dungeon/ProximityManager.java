@@ -0,0 +1,277 @@
+package com.noviui.treasuredungeon.dungeon;
+
+import com.noviui.treasuredungeon.TreasureDungeonPlugin;
+import com.noviui.treasuredungeon.listeners.ProximityListener;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Runs the proximity checks only while at least one player has an active treasure target, so
+ * servers with no dungeon in progress pay nothing. In event mode the move listener is registered;
+ * in batch mode a repeating task samples the players with a target instead, measures them off
+ * the main thread and applies the results back on it.
+ * Progress towards a target lives on the target itself (see ProximityIndex.State), so it goes
+ * away with the dungeon; leaving the server or the world sends it back to FAR.
+ */
+public class ProximityManager implements Listener {
+    
+    private final TreasureDungeonPlugin plugin;
+    private final ProximityIndex proximityIndex;
+    private final ProximityListener listener;
+    // Used by the listener in event mode, on the main thread
+    private final ProximityEvaluator eventEvaluator;
+    
+    // Main thread only
+    private boolean batchMode = false;
+    private int batchIntervalTicks = 10;
+    private boolean listenerRegistered = false;
+    private BukkitTask batchTask;
+    // Replaced on every settings change, so a batch still running keeps its own
+    private ProximityEvaluator batchEvaluator;
+    
+    // Set while a batch is being measured; the next sample is skipped rather than queued behind it
+    private final AtomicBoolean batchRunning = new AtomicBoolean(false);
+    
+    public ProximityManager(TreasureDungeonPlugin plugin) {
+        this.plugin = plugin;
+        this.proximityIndex = plugin.getDataManager().getProximityIndex();
+        this.eventEvaluator = new ProximityEvaluator(proximityIndex);
+        this.listener = new ProximityListener(plugin, eventEvaluator);
+    }
+    
+    public void start() {
+        proximityIndex.setChangeListener(this::scheduleUpdate);
+        applySettings();
+    }
+    
+    public void stop() {
+        proximityIndex.setChangeListener(null);
+        stopChecks();
+        HandlerList.unregisterAll(this);
+    }
+    
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        evict(event.getPlayer().getUniqueId());
+    }
+    
+    @EventHandler
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        evict(event.getPlayer().getUniqueId());
+    }
+    
+    private void evict(UUID playerId) {
+        proximityIndex.resetProgress(playerId);
+        eventEvaluator.forget(playerId);
+    }
+    
+    /**
+     * Applies changed proximity settings; safe to call from any thread, e.g. the config watcher
+     */
+    public void applySettings() {
+        runOnMainThread(this::reloadSettings);
+    }
+    
+    /**
+     * Switches between event and batch mode after a config change. Main thread only.
+     */
+    private void reloadSettings() {
+        stopChecks();
+        batchMode = plugin.getConfigManager().isProximityBatchMode();
+        batchIntervalTicks = plugin.getConfigManager().getProximityBatchIntervalTicks();
+        batchEvaluator = new ProximityEvaluator(proximityIndex);
+        updateRegistration();
+    }
+    
+    /**
+     * Index changes can come from any thread; registration has to happen on the main thread
+     */
+    private void scheduleUpdate() {
+        runOnMainThread(this::updateRegistration);
+    }
+    
+    private void runOnMainThread(Runnable task) {
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+    
+    private void updateRegistration() {
+        // Drops the cache of players whose dungeon just ended
+        eventEvaluator.retain(proximityIndex.getPlayerIds());
+        
+        boolean needed = proximityIndex.getPlayerCount() > 0;
+        boolean running = batchMode ? batchTask != null : listenerRegistered;
+        
+        if (needed && !running) {
+            if (batchMode) {
+                batchTask = Bukkit.getScheduler().runTaskTimer(plugin, this::sampleBatch, batchIntervalTicks, batchIntervalTicks);
+            } else {
+                Bukkit.getPluginManager().registerEvents(listener, plugin);
+                listenerRegistered = true;
+            }
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().info("Proximity checks started (" + (batchMode ? "batch" : "event") + " mode)");
+            }
+        } else if (!needed && running) {
+            stopChecks();
+            if (plugin.getConfigManager().isDebugEnabled()) {
+                plugin.getLogger().info("Proximity checks stopped, no active treasure targets ("
+                    + getTrackedStateCount() + " tracked states, " + getCachedPlayerCount() + " cached players)");
+            }
+        }
+    }
+    
+    private void stopChecks() {
+        if (listenerRegistered) {
+            HandlerList.unregisterAll(listener);
+            listenerRegistered = false;
+        }
+        eventEvaluator.clear();
+        
+        if (batchTask != null) {
+            batchTask.cancel();
+            batchTask = null;
+        }
+    }
+    
+    /**
+     * Copies the positions of online players with a target. Costs one entry per such player,
+     * however often they moved since the last sample.
+     */
+    private void sampleBatch() {
+        if (!batchRunning.compareAndSet(false, true)) {
+            return;
+        }
+        
+        List<Sample> samples = new ArrayList<>(proximityIndex.getPlayerCount());
+        for (UUID playerId : proximityIndex.getPlayerIds()) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player == null) {
+                continue;
+            }
+            Location location = player.getLocation();
+            samples.add(new Sample(playerId, location.getWorld().getName(), location.getX(), location.getY(), location.getZ()));
+        }
+        if (samples.isEmpty()) {
+            batchRunning.set(false);
+            return;
+        }
+        
+        ProximityEvaluator evaluator = batchEvaluator;
+        CompletableFuture.supplyAsync(() -> measureBatch(evaluator, samples))
+            .whenComplete((transitions, throwable) -> {
+                batchRunning.set(false);
+                if (throwable != null) {
+                    plugin.getLogger().log(Level.WARNING, "Error checking treasure proximity", throwable);
+                } else if (!transitions.isEmpty() && plugin.isEnabled()) {
+                    Bukkit.getScheduler().runTask(plugin, () -> applyBatch(transitions));
+                }
+            });
+    }
+    
+    /**
+     * Runs off the main thread on copied coordinates; batches never overlap, so the evaluator
+     * is only used by one thread at a time. Only finds the stages in reach: the targets are
+     * advanced by applyBatch, so a player who leaves before then keeps their progress.
+     */
+    private static List<Transition> measureBatch(ProximityEvaluator evaluator, List<Sample> samples) {
+        Set<UUID> sampled = new HashSet<>();
+        for (Sample sample : samples) {
+            sampled.add(sample.playerId);
+        }
+        // Players who left or whose dungeon ended are not sampled any more
+        evaluator.retain(sampled);
+        
+        List<Transition> transitions = new ArrayList<>();
+        for (Sample sample : samples) {
+            evaluator.measure(sample.playerId, sample.world, sample.x, sample.y, sample.z,
+                (target, stage) -> transitions.add(new Transition(sample.playerId, target, stage)));
+        }
+        return transitions;
+    }
+    
+    /**
+     * Advances the measured targets and sends the messages or places the bells. Main thread only;
+     * skips targets removed since the sample, e.g. because the dungeon ended, and players who
+     * left or changed world since then.
+     */
+    private void applyBatch(List<Transition> transitions) {
+        for (Transition transition : transitions) {
+            if (!proximityIndex.contains(transition.target)) {
+                continue;
+            }
+            Player player = Bukkit.getPlayer(transition.playerId);
+            if (player == null || !player.isOnline()
+                    || !player.getWorld().getName().equals(transition.target.getWorld())) {
+                continue;
+            }
+            ProximityEvaluator.reach(transition.target, transition.stage,
+                (target, stage) -> listener.applyStage(player, target, stage));
+        }
+    }
+    
+    public boolean isRunning() {
+        return listenerRegistered || batchTask != null;
+    }
+    
+    /**
+     * Gets how many targets are past FAR; bounded by the active dungeons, for leak monitoring
+     */
+    public int getTrackedStateCount() {
+        return proximityIndex.getTrackedStateCount();
+    }
+    
+    /**
+     * Gets how many players the event mode keeps candidates for; bounded by the players with a target
+     */
+    public int getCachedPlayerCount() {
+        return eventEvaluator.size();
+    }
+    
+    private static final class Sample {
+        private final UUID playerId;
+        private final String world;
+        private final double x;
+        private final double y;
+        private final double z;
+        
+        private Sample(UUID playerId, String world, double x, double y, double z) {
+            this.playerId = playerId;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+    
+    private static final class Transition {
+        private final UUID playerId;
+        private final ProximityIndex.Target target;
+        private final ProximityEvaluator.Stage stage;
+        
+        private Transition(UUID playerId, ProximityIndex.Target target, ProximityEvaluator.Stage stage) {
+            this.playerId = playerId;
+            this.target = target;
+            this.stage = stage;
+        }
+    }
+}
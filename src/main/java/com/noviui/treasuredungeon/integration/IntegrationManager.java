@@ -1,8 +1,11 @@
 package com.noviui.treasuredungeon.integration;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
+import io.lumine.mythic.bukkit.MythicBukkit;
 import org.bukkit.Bukkit;
 
+import java.util.logging.Level;
+
 public class IntegrationManager {
     
     private final TreasureDungeonPlugin plugin;
@@ -47,6 +50,19 @@ public class IntegrationManager {
         }
     }
     
+    /**
+     * Checks whether MythicMobs knows a mob id. Only meaningful while MythicMobs is enabled.
+     */
+    public boolean isMythicMobKnown(String mobId) {
+        try {
+            return MythicBukkit.inst().getMobManager().getMythicMob(mobId).isPresent();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Could not look up MythicMob '" + mobId + "'", e);
+            // Don't report a mob as unknown just because the lookup failed
+            return true;
+        }
+    }
+    
     public boolean isMcMMOEnabled() {
         return mcMMOEnabled;
     }
@@ -2,13 +2,14 @@ package com.noviui.treasuredungeon.listeners;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.ConfigManager;
+import com.noviui.treasuredungeon.config.ConfigSnapshot;
 import com.noviui.treasuredungeon.config.LanguageManager;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 
-import java.util.List;
+import java.util.Locale;
 
 public class CommandBlockListener implements Listener {
     
@@ -25,24 +26,19 @@ public class CommandBlockListener implements Listener {
     @EventHandler
     public void onPlayerCommand(PlayerCommandPreprocessEvent event) {
         Player player = event.getPlayer();
-        String command = event.getMessage().toLowerCase();
+        ConfigSnapshot config = configManager.getSnapshot();
         
         // Check if player is in treasure world
-        String treasureWorldName = configManager.getTreasureWorldName();
-        if (!player.getWorld().getName().equals(treasureWorldName)) {
+        if (!player.getWorld().getName().equals(config.getTreasureWorldName())) {
             return;
         }
         
         // Check blocked commands
-        List<String> blockedCommands = configManager.getBlockedCommands();
-        for (String blockedCommand : blockedCommands) {
-            if (command.startsWith("/" + blockedCommand.toLowerCase())) {
-                event.setCancelled(true);
-                
-                String message = "§cThat command is blocked in the treasure world!";
-                player.sendMessage(languageManager.getPrefix() + message);
-                return;
-            }
+        if (config.isCommandBlocked(event.getMessage().toLowerCase(Locale.ROOT))) {
+            event.setCancelled(true);
+            
+            String message = "§cThat command is blocked in the treasure world!";
+            player.sendMessage(languageManager.getBundle(player).getPrefix() + message);
         }
     }
 }
\ No newline at end of file
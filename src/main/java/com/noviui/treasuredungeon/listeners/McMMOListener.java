@@ -4,16 +4,15 @@ import com.gmail.nossr50.events.experience.McMMOPlayerLevelUpEvent;
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.ConfigManager;
 import com.noviui.treasuredungeon.config.DataManager;
+import com.noviui.treasuredungeon.config.LanguageBundle;
 import com.noviui.treasuredungeon.config.LanguageManager;
+import com.noviui.treasuredungeon.config.SkillDefinition;
 import com.noviui.treasuredungeon.map.MapManager;
-import com.noviui.treasuredungeon.utils.TimeUtils;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class McMMOListener implements Listener {
@@ -39,13 +38,13 @@ public class McMMOListener implements Listener {
         int newLevel = event.getSkillLevel();
         
         // Check if skill is enabled
-        if (!configManager.isSkillEnabled(skillName)) {
+        SkillDefinition skill = configManager.getSnapshot().getSkill(skillName);
+        if (skill == null || !skill.isEnabled()) {
             return;
         }
         
         // Check if player reached required level
-        int requiredLevel = configManager.getSkillLevelRequired(skillName);
-        if (newLevel < requiredLevel) {
+        if (newLevel < skill.getLevelRequired()) {
             return;
         }
         
@@ -57,25 +56,25 @@ public class McMMOListener implements Listener {
         // Check cooldown
         if (dataManager.isOnCooldown(player.getUniqueId(), skillName)) {
             long remaining = dataManager.getCooldownRemaining(player.getUniqueId(), skillName);
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("cooldown", languageManager.formatTime(remaining));
+            LanguageBundle lang = languageManager.getBundle(player);
             
-            String message = languageManager.getMessage("cooldown-active", placeholders);
-            player.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.format("cooldown-active", "cooldown", languageManager.formatTime(remaining));
+            player.sendMessage(lang.getPrefix() + message);
             return;
         }
         
         // Check drop chance
-        double chance = configManager.getSkillDropChance(skillName);
-        if (ThreadLocalRandom.current().nextDouble() > chance) {
+        if (ThreadLocalRandom.current().nextDouble() > skill.getDropChance()) {
             return;
         }
         
         // Give treasure map
-        giveTreasureMap(player, skillName);
+        giveTreasureMap(player, skill);
     }
     
-    private void giveTreasureMap(Player player, String skillName) {
+    private void giveTreasureMap(Player player, SkillDefinition skill) {
+        String skillName = skill.getName();
+        
         // Create and give map item
         mapManager.giveTreasureMap(player, skillName);
         
@@ -83,23 +82,24 @@ public class McMMOListener implements Listener {
         dataManager.setMapReceived(player.getUniqueId(), skillName, true);
         
         // Set cooldown
-        String cooldownStr = configManager.getSkillCooldown(skillName);
-        long cooldownMs = TimeUtils.parseTimeToMillis(cooldownStr);
-        dataManager.setCooldown(player.getUniqueId(), skillName, System.currentTimeMillis() + cooldownMs);
-        
-        // Send messages
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("player", player.getName());
-        placeholders.put("skill", skillName);
+        dataManager.setCooldown(player.getUniqueId(), skillName, System.currentTimeMillis() + skill.getCooldownMillis());
         
         // Private message
-        String privateMessage = languageManager.getMessage("map-given-private", placeholders);
-        player.sendMessage(languageManager.getPrefix() + privateMessage);
+        LanguageBundle lang = languageManager.getBundle(player);
+        String privateMessage = lang.format("map-given-private", "player", player.getName(), "skill", skillName);
+        player.sendMessage(lang.getPrefix() + privateMessage);
         
-        // Global announcement
-        if (configManager.isGlobalAnnounce()) {
-            String globalMessage = languageManager.getMessage("map-given-global", placeholders);
-            Bukkit.broadcastMessage(languageManager.getPrefix() + globalMessage);
+        // Global announcement, in each recipient's language
+        if (configManager.getSnapshot().isGlobalAnnounce()) {
+            for (Player online : Bukkit.getOnlinePlayers()) {
+                LanguageBundle onlineLang = languageManager.getBundle(online);
+                online.sendMessage(onlineLang.getPrefix()
+                    + onlineLang.format("map-given-global", "player", player.getName(), "skill", skillName));
+            }
+            
+            LanguageBundle consoleLang = languageManager.getDefaultBundle();
+            Bukkit.getConsoleSender().sendMessage(consoleLang.getPrefix()
+                + consoleLang.format("map-given-global", "player", player.getName(), "skill", skillName));
         }
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.noviui.treasuredungeon.listeners;
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.ConfigManager;
 import com.noviui.treasuredungeon.config.DataManager;
+import com.noviui.treasuredungeon.config.LanguageBundle;
 import com.noviui.treasuredungeon.config.LanguageManager;
 import com.noviui.treasuredungeon.dungeon.DungeonManager;
 import com.noviui.treasuredungeon.map.MapManager;
@@ -17,8 +18,6 @@ import org.bukkit.event.block.Action;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
@@ -77,8 +76,9 @@ public class PlayerInteractListener implements Listener {
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error handling player interaction for " + player.getName(), e);
             
-            String errorMessage = languageManager.getMessage("error-occurred");
-            player.sendMessage(languageManager.getPrefix() + errorMessage);
+            LanguageBundle lang = languageManager.getBundle(player);
+            String errorMessage = lang.getMessage("error-occurred");
+            player.sendMessage(lang.getPrefix() + errorMessage);
         }
     }
     
@@ -88,38 +88,40 @@ public class PlayerInteractListener implements Listener {
             return;
         }
         
+        LanguageBundle lang = languageManager.getBundle(player);
+        
         try {
             String worldName = configManager.getTreasureWorldName();
             if (worldName == null || worldName.trim().isEmpty()) {
-                String message = languageManager.getMessage("world-not-configured");
-                player.sendMessage(languageManager.getPrefix() + message);
+                String message = lang.getMessage("world-not-configured");
+                player.sendMessage(lang.getPrefix() + message);
                 return;
             }
             
             World treasureWorld = plugin.getServer().getWorld(worldName);
             if (treasureWorld == null) {
-                String message = languageManager.getMessage("world-not-found");
-                player.sendMessage(languageManager.getPrefix() + message);
+                String message = lang.getMessage("world-not-found");
+                player.sendMessage(lang.getPrefix() + message);
                 return;
             }
             
             // Check if player already has an active dungeon
             if (dataManager.hasActiveDungeon(player.getUniqueId(), skill)) {
-                String message = languageManager.getMessage("dungeon-in-progress");
-                player.sendMessage(languageManager.getPrefix() + message);
+                String message = lang.getMessage("dungeon-in-progress");
+                player.sendMessage(lang.getPrefix() + message);
                 return;
             }
             
             // Validate location configuration
             if (!locationManager.validateConfiguration()) {
-                String message = languageManager.getMessage("invalid-configuration");
-                player.sendMessage(languageManager.getPrefix() + message);
+                String message = lang.getMessage("invalid-configuration");
+                player.sendMessage(lang.getPrefix() + message);
                 return;
             }
             
             // Send initial message
-            String processingMessage = languageManager.getMessage("processing-map");
-            player.sendMessage(languageManager.getPrefix() + processingMessage);
+            String processingMessage = lang.getMessage("processing-map");
+            player.sendMessage(lang.getPrefix() + processingMessage);
             
             // Generate location asynchronously
             locationManager.generateSafeDungeonLocation(treasureWorld, player.getUniqueId())
@@ -131,8 +133,8 @@ public class PlayerInteractListener implements Listener {
                         } catch (Exception e) {
                             plugin.getLogger().log(Level.SEVERE, "Error completing treasure map use for " + player.getName(), e);
                             
-                            String errorMessage = languageManager.getMessage("error-occurred");
-                            player.sendMessage(languageManager.getPrefix() + errorMessage);
+                            String errorMessage = lang.getMessage("error-occurred");
+                            player.sendMessage(lang.getPrefix() + errorMessage);
                         }
                     });
                 })
@@ -141,8 +143,8 @@ public class PlayerInteractListener implements Listener {
                     plugin.getServer().getScheduler().runTask(plugin, () -> {
                         plugin.getLogger().log(Level.SEVERE, "Failed to generate safe location for " + player.getName(), throwable);
                         
-                        String errorMessage = languageManager.getMessage("location-generation-failed");
-                        player.sendMessage(languageManager.getPrefix() + errorMessage);
+                        String errorMessage = lang.getMessage("location-generation-failed");
+                        player.sendMessage(lang.getPrefix() + errorMessage);
                     });
                     return null;
                 });
@@ -150,8 +152,8 @@ public class PlayerInteractListener implements Listener {
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error in handleTreasureMapUse for " + player.getName(), e);
             
-            String errorMessage = languageManager.getMessage("error-occurred");
-            player.sendMessage(languageManager.getPrefix() + errorMessage);
+            String errorMessage = lang.getMessage("error-occurred");
+            player.sendMessage(lang.getPrefix() + errorMessage);
         }
     }
     
@@ -161,11 +163,13 @@ public class PlayerInteractListener implements Listener {
             return;
         }
         
+        LanguageBundle lang = languageManager.getBundle(player);
+        
         // Select random dungeon type
         String dungeonType = dungeonManager.selectRandomDungeonType();
         if (dungeonType == null) {
-            String message = languageManager.getMessage("no-dungeon-types");
-            player.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("no-dungeon-types");
+            player.sendMessage(lang.getPrefix() + message);
             return;
         }
         
@@ -183,20 +187,18 @@ public class PlayerInteractListener implements Listener {
             configManager.getTreasureSpawnZ());
         
         // Send messages
-        String message = languageManager.getMessage("map-used");
-        player.sendMessage(languageManager.getPrefix() + message);
+        String message = lang.getMessage("map-used");
+        player.sendMessage(lang.getPrefix() + message);
         
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("x", String.valueOf(location.getBlockX()));
-        placeholders.put("z", String.valueOf(location.getBlockZ()));
-        placeholders.put("dungeon_type", dungeonType);
-        
-        String coordsMessage = languageManager.getMessage("coordinates-set", placeholders);
-        player.sendMessage(languageManager.getPrefix() + coordsMessage);
+        String coordsMessage = lang.format("coordinates-set",
+            "x", String.valueOf(location.getBlockX()),
+            "z", String.valueOf(location.getBlockZ()),
+            "dungeon_type", dungeonType);
+        player.sendMessage(lang.getPrefix() + coordsMessage);
         
         // Teleport
-        String teleportMessage = languageManager.getMessage("teleporting");
-        player.sendMessage(languageManager.getPrefix() + teleportMessage);
+        String teleportMessage = lang.getMessage("teleporting");
+        player.sendMessage(lang.getPrefix() + teleportMessage);
         
         CompletableFuture.runAsync(() -> {
             plugin.getServer().getScheduler().runTask(plugin, () -> {
@@ -226,18 +228,20 @@ public class PlayerInteractListener implements Listener {
             return;
         }
         
+        LanguageBundle lang = languageManager.getBundle(player);
+        
         try {
             // Detect nearby players for party formation
             dungeonManager.getPartyManager().detectNearbyPlayers(player, bellLocation);
             
-            String message = languageManager.getMessage("bell-activated");
-            player.sendMessage(languageManager.getPrefix() + message);
+            String message = lang.getMessage("bell-activated");
+            player.sendMessage(lang.getPrefix() + message);
             
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error handling bell interaction for " + player.getName(), e);
             
-            String errorMessage = languageManager.getMessage("error-occurred");
-            player.sendMessage(languageManager.getPrefix() + errorMessage);
+            String errorMessage = lang.getMessage("error-occurred");
+            player.sendMessage(lang.getPrefix() + errorMessage);
         }
     }
 }
\ No newline at end of file
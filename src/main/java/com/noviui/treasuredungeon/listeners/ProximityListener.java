@@ -3,19 +3,22 @@ package com.noviui.treasuredungeon.listeners;
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.ConfigManager;
 import com.noviui.treasuredungeon.config.DataManager;
+import com.noviui.treasuredungeon.config.LanguageBundle;
 import com.noviui.treasuredungeon.config.LanguageManager;
 import com.noviui.treasuredungeon.dungeon.DungeonManager;
-import org.bukkit.Bukkit;
+import com.noviui.treasuredungeon.dungeon.ProximityEvaluator;
+import com.noviui.treasuredungeon.dungeon.ProximityIndex;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.UUID;
-
+/**
+ * Places the bell and sends the approach message as players near their treasure. Only registered
+ * while someone has an active target and proximity runs in event mode; see ProximityManager.
+ */
 public class ProximityListener implements Listener {
     
     private final TreasureDungeonPlugin plugin;
@@ -23,54 +26,66 @@ public class ProximityListener implements Listener {
     private final DataManager dataManager;
     private final LanguageManager languageManager;
     private final DungeonManager dungeonManager;
+    private final ProximityIndex proximityIndex;
+    private final ProximityEvaluator evaluator;
     
-    private final Set<UUID> notifiedPlayers = new HashSet<>();
-    private final Set<UUID> bellSpawnedPlayers = new HashSet<>();
-    
-    public ProximityListener(TreasureDungeonPlugin plugin) {
+    public ProximityListener(TreasureDungeonPlugin plugin, ProximityEvaluator evaluator) {
         this.plugin = plugin;
         this.configManager = plugin.getConfigManager();
         this.dataManager = plugin.getDataManager();
         this.languageManager = plugin.getLanguageManager();
         this.dungeonManager = plugin.getDungeonManager();
+        this.proximityIndex = dataManager.getProximityIndex();
+        this.evaluator = evaluator;
     }
     
     @EventHandler
     public void onPlayerMove(PlayerMoveEvent event) {
-        Player player = event.getPlayer();
+        Location from = event.getFrom();
         Location to = event.getTo();
         
         if (to == null) return;
         
-        // Check if player is in treasure world
-        String treasureWorldName = configManager.getTreasureWorldName();
-        if (!to.getWorld().getName().equals(treasureWorldName)) {
+        // Head turns and steps inside a block are skipped, so distances are checked once per block
+        if (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY()
+                && from.getBlockZ() == to.getBlockZ() && from.getWorld() == to.getWorld()) {
             return;
         }
         
-        // Check for active dungeons
-        for (String skill : configManager.getEnabledSkills()) {
-            if (!dataManager.hasActiveDungeon(player.getUniqueId(), skill)) {
-                continue;
-            }
-            
-            int[] coords = dataManager.getDungeonCoords(player.getUniqueId(), skill);
-            Location dungeonLocation = new Location(to.getWorld(), coords[0], coords[1], coords[2]);
-            
-            double distance = to.distance(dungeonLocation);
-            
+        Player player = event.getPlayer();
+        
+        // Most players have no treasure target
+        if (!proximityIndex.hasTargets(player.getUniqueId())) {
+            return;
+        }
+        
+        evaluator.evaluate(player.getUniqueId(), to.getWorld().getName(), to.getX(), to.getY(), to.getZ(),
+            (target, stage) -> applyStage(player, target, stage));
+    }
+    
+    /**
+     * Sends the approach message or places the bell. Main thread only; also used by the batch mode.
+     */
+    public void applyStage(Player player, ProximityIndex.Target target, ProximityEvaluator.Stage stage) {
+        // Skills disabled since the map was used get no message or bell; their progress is
+        // reset when the player leaves, so re-enabling the skill brings them back
+        if (!configManager.isSkillEnabled(target.getSkill())) {
+            return;
+        }
+        
+        if (stage == ProximityEvaluator.Stage.APPROACH) {
             // Notify when approaching (50 blocks)
-            if (distance <= 50 && !notifiedPlayers.contains(player.getUniqueId())) {
-                String message = languageManager.getMessage("approaching-treasure");
-                player.sendMessage(languageManager.getPrefix() + message);
-                notifiedPlayers.add(player.getUniqueId());
-            }
-            
+            LanguageBundle lang = languageManager.getBundle(player);
+            String message = lang.getMessage("approaching-treasure");
+            player.sendMessage(lang.getPrefix() + message);
+        } else {
             // Spawn bell when very close (10 blocks)
-            if (distance <= 10 && !bellSpawnedPlayers.contains(player.getUniqueId())) {
-                spawnBell(player, skill, dungeonLocation);
-                bellSpawnedPlayers.add(player.getUniqueId());
+            World world = plugin.getServer().getWorld(target.getWorld());
+            if (world == null) {
+                return;
             }
+            Location dungeonLocation = new Location(world, target.getX(), target.getY(), target.getZ());
+            spawnBell(player, target.getSkill(), dungeonLocation);
         }
     }
     
@@ -92,15 +107,11 @@ public class ProximityListener implements Listener {
         }
         
         // Send message
-        String message = languageManager.getMessage("bell-found");
-        player.sendMessage(languageManager.getPrefix() + message);
+        LanguageBundle lang = languageManager.getBundle(player);
+        String message = lang.getMessage("bell-found");
+        player.sendMessage(lang.getPrefix() + message);
         
         // Store bell location for this player
         dungeonManager.setBellLocation(player.getUniqueId(), skill, location);
     }
-    
-    public void clearNotifications(UUID playerId) {
-        notifiedPlayers.remove(playerId);
-        bellSpawnedPlayers.remove(playerId);
-    }
 }
\ No newline at end of file
@@ -3,26 +3,42 @@ package com.noviui.treasuredungeon.placeholders;
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.DataManager;
 import com.noviui.treasuredungeon.database.DatabaseManager;
+import com.noviui.treasuredungeon.utils.TimeUtils;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.concurrent.CompletableFuture;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
 import java.util.logging.Level;
 
 /**
- * PlaceholderAPI integration for TreasureDungeon
+ * PlaceholderAPI integration for TreasureDungeon.
+ * Requests are answered from per-player snapshots that are rebuilt in the background
+ * whenever the underlying data changes or the refresh interval passes.
  */
-public class PlaceholderManager extends PlaceholderExpansion {
+public class PlaceholderManager extends PlaceholderExpansion implements Listener {
     
     private final TreasureDungeonPlugin plugin;
     private final DataManager dataManager;
     private final DatabaseManager databaseManager;
+    private final PlaceholderSnapshotCache snapshotCache;
+    private final PlaceholderResolver resolver;
     
     public PlaceholderManager(TreasureDungeonPlugin plugin) {
         this.plugin = plugin;
         this.dataManager = plugin.getDataManager();
         this.databaseManager = plugin.getDatabaseManager();
+        this.snapshotCache = new PlaceholderSnapshotCache(plugin.getLogger(), this::loadSnapshot, getRefreshIntervalMillis());
+        this.resolver = new PlaceholderResolver(snapshotCache, plugin.getGlobalStats());
     }
     
     @Override
@@ -52,31 +68,7 @@ public class PlaceholderManager extends PlaceholderExpansion {
         }
         
         try {
-            // Player-specific placeholders
-            if (params.startsWith("player_")) {
-                return handlePlayerPlaceholder(player, params.substring(7));
-            }
-            
-            // Skill-specific placeholders
-            if (params.startsWith("skill_")) {
-                String[] parts = params.split("_", 3);
-                if (parts.length >= 3) {
-                    String skill = parts[1];
-                    String type = parts[2];
-                    return handleSkillPlaceholder(player, skill, type);
-                }
-            }
-            
-            // Global placeholders
-            if (params.startsWith("global_")) {
-                return handleGlobalPlaceholder(params.substring(7));
-            }
-            
-            // Leaderboard placeholders
-            if (params.startsWith("leaderboard_")) {
-                return handleLeaderboardPlaceholder(params.substring(12));
-            }
-            
+            return resolver.resolve(player.getUniqueId(), params);
         } catch (Exception e) {
             plugin.getLogger().log(Level.WARNING, "Error processing placeholder: " + params, e);
         }
@@ -85,222 +77,83 @@ public class PlaceholderManager extends PlaceholderExpansion {
     }
     
     /**
-     * Handles player-specific placeholders
+     * Marks a player's placeholder data as changed so it is rebuilt in the background
      */
-    private String handlePlayerPlaceholder(OfflinePlayer player, String type) {
-        switch (type.toLowerCase()) {
-            case "dungeons_completed":
-                return getPlayerStat(player, "dungeons_completed");
-                
-            case "total_damage":
-                return getPlayerStat(player, "total_damage");
-                
-            case "bosses_killed":
-                return getPlayerStat(player, "bosses_killed");
-                
-            case "active_dungeons":
-                return String.valueOf(getActiveDungeonCount(player));
-                
-            case "last_completion":
-                return getLastCompletionTime(player);
-                
-            case "favorite_dungeon":
-                return getFavoriteDungeonType(player);
-                
-            case "best_time":
-                return getBestCompletionTime(player);
-                
-            case "rank_damage":
-                return getPlayerRank(player, "total_damage");
-                
-            case "rank_completions":
-                return getPlayerRank(player, "dungeons_completed");
-                
-            default:
-                return "";
-        }
+    public void invalidate(UUID playerId) {
+        snapshotCache.refresh(playerId);
     }
     
     /**
-     * Handles skill-specific placeholders
+     * Drops all snapshots and re-reads the refresh interval, used after a reload
      */
-    private String handleSkillPlaceholder(OfflinePlayer player, String skill, String type) {
-        switch (type.toLowerCase()) {
-            case "cooldown":
-                return getCooldownRemaining(player, skill);
-                
-            case "has_map":
-                return String.valueOf(hasReceivedMap(player, skill));
-                
-            case "active":
-                return String.valueOf(hasActiveDungeon(player, skill));
-                
-            case "completions":
-                return getSkillCompletions(player, skill);
-                
-            case "best_time":
-                return getSkillBestTime(player, skill);
-                
-            case "last_completion":
-                return getSkillLastCompletion(player, skill);
-                
-            default:
-                return "";
-        }
+    public void reload() {
+        snapshotCache.setTtlMillis(getRefreshIntervalMillis());
+        snapshotCache.clear();
     }
     
-    /**
-     * Handles global placeholders
-     */
-    private String handleGlobalPlaceholder(String type) {
-        switch (type.toLowerCase()) {
-            case "total_dungeons":
-                return getTotalDungeonsCompleted();
-                
-            case "active_dungeons":
-                return getTotalActiveDungeons();
-                
-            case "total_players":
-                return getTotalPlayers();
-                
-            case "top_player":
-                return getTopPlayer("dungeons_completed");
-                
-            case "top_damage_player":
-                return getTopPlayer("total_damage");
-                
-            case "server_best_time":
-                return getServerBestTime();
-                
-            default:
-                return "";
-        }
+    public void shutdown() {
+        snapshotCache.shutdown();
     }
     
-    /**
-     * Handles leaderboard placeholders
-     */
-    private String handleLeaderboardPlaceholder(String params) {
-        String[] parts = params.split("_");
-        if (parts.length < 3) {
-            return "";
-        }
-        
-        String statType = parts[0];
-        int position;
-        String valueType = parts[2];
-        
-        try {
-            position = Integer.parseInt(parts[1]);
-        } catch (NumberFormatException e) {
-            return "";
-        }
-        
-        return getLeaderboardEntry(statType, position, valueType);
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        snapshotCache.refresh(event.getPlayer().getUniqueId());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        snapshotCache.evict(event.getPlayer().getUniqueId());
     }
     
     /**
-     * Gets a player statistic
+     * Builds a snapshot from data.yml and, when enabled, the database. Runs on a refresh thread.
      */
-    private String getPlayerStat(OfflinePlayer player, String statType) {
+    private PlaceholderSnapshot loadSnapshot(UUID playerId) {
+        Map<String, PlaceholderSnapshot.SkillState> skills = dataManager.readPlayerData(playerId, this::readSkillStates);
+        
+        Map<String, Long> statistics = new HashMap<>();
         if (databaseManager != null && databaseManager.isEnabled()) {
-            // Use database for statistics
-            try {
-                // This would need to be implemented as a cached value or async lookup
-                return "0"; // Placeholder for now
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Error getting player stat from database", e);
-            }
+            statistics.putAll(databaseManager.getPlayerStatistics(playerId).join());
         }
         
-        // Fallback to file-based data
-        return "0";
+        return new PlaceholderSnapshot(skills, statistics, System.currentTimeMillis());
     }
     
-    /**
-     * Gets cooldown remaining for a skill
-     */
-    private String getCooldownRemaining(OfflinePlayer player, String skill) {
-        if (dataManager == null) return "0";
+    private Map<String, PlaceholderSnapshot.SkillState> readSkillStates(ConfigurationSection playerSection) {
+        Map<String, PlaceholderSnapshot.SkillState> skills = new HashMap<>();
+        if (playerSection == null) {
+            return skills;
+        }
         
-        try {
-            long remaining = dataManager.getCooldownRemaining(player.getUniqueId(), skill);
-            if (remaining <= 0) {
-                return "0";
+        for (String skill : playerSection.getKeys(false)) {
+            ConfigurationSection skillSection = playerSection.getConfigurationSection(skill);
+            if (skillSection == null) {
+                continue;
             }
             
-            // Format as human-readable time
-            long seconds = remaining / 1000;
-            long minutes = seconds / 60;
-            long hours = minutes / 60;
-            
-            if (hours > 0) {
-                return hours + "h " + (minutes % 60) + "m";
-            } else if (minutes > 0) {
-                return minutes + "m " + (seconds % 60) + "s";
-            } else {
-                return seconds + "s";
+            long cooldownExpiresAt = 0L;
+            String expires = skillSection.getString("cooldown-expires");
+            if (expires != null && !expires.trim().isEmpty()) {
+                try {
+                    cooldownExpiresAt = Instant.parse(expires).toEpochMilli();
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.WARNING, "Invalid cooldown timestamp for skill " + skill, e);
+                }
             }
             
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.WARNING, "Error getting cooldown for player", e);
-            return "0";
-        }
-    }
-    
-    /**
-     * Checks if player has received a map for a skill
-     */
-    private boolean hasReceivedMap(OfflinePlayer player, String skill) {
-        if (dataManager == null) return false;
-        
-        try {
-            return dataManager.hasReceivedMap(player.getUniqueId(), skill);
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.WARNING, "Error checking map status", e);
-            return false;
+            boolean mapReceived = skillSection.getBoolean("received", false);
+            boolean activeDungeon = "in-progress".equals(skillSection.getString("active-dungeon.status"));
+            
+            skills.put(skill, new PlaceholderSnapshot.SkillState(cooldownExpiresAt, mapReceived, activeDungeon));
         }
-    }
-    
-    /**
-     * Checks if player has an active dungeon for a skill
-     */
-    private boolean hasActiveDungeon(OfflinePlayer player, String skill) {
-        if (dataManager == null) return false;
         
-        try {
-            return dataManager.hasActiveDungeon(player.getUniqueId(), skill);
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.WARNING, "Error checking active dungeon", e);
-            return false;
-        }
+        return skills;
     }
     
-    /**
-     * Gets the number of active dungeons for a player
-     */
-    private int getActiveDungeonCount(OfflinePlayer player) {
-        // Implementation would count active dungeons across all skills
-        return 0;
+    private long getRefreshIntervalMillis() {
+        return Math.max(1000L, TimeUtils.parseTimeToMillis(plugin.getConfigManager().getPlaceholderRefreshInterval()));
     }
     
-    /**
-     * Gets various placeholder values (simplified implementations)
-     */
-    private String getLastCompletionTime(OfflinePlayer player) { return "Never"; }
-    private String getFavoriteDungeonType(OfflinePlayer player) { return "None"; }
-    private String getBestCompletionTime(OfflinePlayer player) { return "N/A"; }
-    private String getPlayerRank(OfflinePlayer player, String statType) { return "Unranked"; }
-    private String getSkillCompletions(OfflinePlayer player, String skill) { return "0"; }
-    private String getSkillBestTime(OfflinePlayer player, String skill) { return "N/A"; }
-    private String getSkillLastCompletion(OfflinePlayer player, String skill) { return "Never"; }
-    private String getTotalDungeonsCompleted() { return "0"; }
-    private String getTotalActiveDungeons() { return "0"; }
-    private String getTotalPlayers() { return "0"; }
-    private String getTopPlayer(String statType) { return "None"; }
-    private String getServerBestTime() { return "N/A"; }
-    private String getLeaderboardEntry(String statType, int position, String valueType) { return ""; }
-    
     /**
      * Registers the placeholder expansion
      */
@@ -318,4 +171,4 @@ public class PlaceholderManager extends PlaceholderExpansion {
         }
         return false;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,225 @@
+package com.noviui.treasuredungeon.placeholders;
+
+import com.noviui.treasuredungeon.dungeon.GlobalStats;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * Resolves placeholder parameters against cached snapshots.
+ * Never touches disk, locks or the database, so it is safe to call at any rate from any thread.
+ * Each distinct parameter string is parsed once into a {@link CompiledPlaceholder}; later requests
+ * for the same string skip all prefix matching, splitting and number parsing.
+ */
+public class PlaceholderResolver {
+    
+    // Bounds memory if clients request arbitrary keys; keys past the limit are compiled per call
+    private static final int MAX_COMPILED_KEYS = 4096;
+    
+    // Longer suffixes first so "last_completion" is not mistaken for a skill ending in "_last"
+    private static final String[] SKILL_TYPES = {
+        "last_completion", "completions", "best_time", "cooldown", "has_map", "active"
+    };
+    
+    private static final CompiledPlaceholder UNKNOWN = playerId -> null;
+    private static final CompiledPlaceholder EMPTY = constant("");
+    
+    // Renders whole seconds remaining, or -1 once the cooldown is over
+    private static final LongFunction<String> REMAINING_SECONDS = seconds -> formatRemaining(seconds * 1000L);
+    
+    private final PlaceholderSnapshotCache snapshotCache;
+    private final GlobalStats globalStats;
+    private final Map<String, CompiledPlaceholder> compiled = new ConcurrentHashMap<>();
+    
+    public PlaceholderResolver(PlaceholderSnapshotCache snapshotCache, GlobalStats globalStats) {
+        this.snapshotCache = snapshotCache;
+        this.globalStats = globalStats;
+    }
+    
+    /**
+     * Resolves a placeholder for a player
+     *
+     * @return the value, or null if the placeholder is unknown
+     */
+    public String resolve(UUID playerId, String params) {
+        CompiledPlaceholder placeholder = compiled.get(params);
+        if (placeholder == null) {
+            placeholder = compile(params);
+            if (compiled.size() < MAX_COMPILED_KEYS) {
+                compiled.putIfAbsent(params, placeholder);
+            }
+        }
+        return placeholder.resolve(playerId);
+    }
+    
+    public int getCompiledKeyCount() {
+        return compiled.size();
+    }
+    
+    /**
+     * Parses a parameter string into its resolver
+     */
+    private CompiledPlaceholder compile(String params) {
+        // Player-specific placeholders
+        if (params.startsWith("player_")) {
+            return compilePlayer(params.substring(7).toLowerCase());
+        }
+        
+        // Skill-specific placeholders
+        if (params.startsWith("skill_")) {
+            return compileSkill(params.substring(6));
+        }
+        
+        // Global placeholders
+        if (params.startsWith("global_")) {
+            return compileGlobal(params.substring(7).toLowerCase());
+        }
+        
+        // Leaderboard placeholders are reserved but not served; they resolve to empty
+        if (params.startsWith("leaderboard_")) {
+            return EMPTY;
+        }
+        
+        return UNKNOWN;
+    }
+    
+    private CompiledPlaceholder compilePlayer(String type) {
+        switch (type) {
+            case "dungeons_completed":
+            case "total_damage":
+            case "bosses_killed":
+                return playerId -> snapshotCache.get(playerId).getStatisticText(type);
+            
+            case "active_dungeons":
+                return playerId -> snapshotCache.get(playerId).getActiveDungeonCountText();
+            
+            case "last_completion":
+                return constant("Never");
+            
+            case "favorite_dungeon":
+                return constant("None");
+            
+            case "best_time":
+                return constant("N/A");
+            
+            case "rank_damage":
+            case "rank_completions":
+                return constant("Unranked");
+            
+            default:
+                return EMPTY;
+        }
+    }
+    
+    /**
+     * Compiles skill_&lt;skill&gt;_&lt;type&gt;. The type is matched as a suffix so skill names may contain underscores.
+     */
+    private CompiledPlaceholder compileSkill(String rest) {
+        String lowerRest = rest.toLowerCase();
+        
+        for (String type : SKILL_TYPES) {
+            int skillLength = rest.length() - type.length() - 1;
+            if (skillLength > 0 && lowerRest.endsWith(type) && rest.charAt(skillLength) == '_') {
+                return compileSkillType(rest.substring(0, skillLength), type);
+            }
+        }
+        
+        // Unknown type on a well-formed key resolves to empty, a bare skill is not ours
+        return rest.indexOf('_') > 0 ? EMPTY : UNKNOWN;
+    }
+    
+    private CompiledPlaceholder compileSkillType(String skill, String type) {
+        switch (type) {
+            case "cooldown":
+                return playerId -> {
+                    PlaceholderSnapshot.SkillState state = snapshotCache.get(playerId).getSkill(skill);
+                    long remaining = state.getCooldownExpiresAt() - System.currentTimeMillis();
+                    return state.getCooldownText().render(remaining > 0 ? remaining / 1000L : -1L, REMAINING_SECONDS);
+                };
+            
+            case "has_map":
+                return playerId -> String.valueOf(snapshotCache.get(playerId).getSkill(skill).isMapReceived());
+            
+            case "active":
+                return playerId -> String.valueOf(snapshotCache.get(playerId).getSkill(skill).isActiveDungeon());
+            
+            case "completions":
+                return constant("0");
+            
+            case "best_time":
+                return constant("N/A");
+            
+            case "last_completion":
+                return constant("Never");
+            
+            default:
+                return EMPTY;
+        }
+    }
+    
+    /**
+     * Compiles global_&lt;type&gt;. Each resolver keeps the text it last rendered and formats again
+     * only when the counter behind it moves.
+     */
+    private CompiledPlaceholder compileGlobal(String type) {
+        RenderedText text = new RenderedText();
+        switch (type) {
+            case "total_dungeons":
+                return playerId -> text.render(globalStats.getTotalCompletions(), String::valueOf);
+            
+            case "active_dungeons":
+                return playerId -> text.render(globalStats.getActiveDungeons(), String::valueOf);
+            
+            case "total_players":
+                return playerId -> text.render(globalStats.getTotalPlayers(), String::valueOf);
+            
+            case "top_player":
+            case "top_damage_player":
+                return constant("None");
+            
+            case "server_best_time":
+                return playerId -> {
+                    long bestTime = globalStats.getBestTimeSeconds();
+                    return bestTime == GlobalStats.NO_BEST_TIME ? "N/A" : text.render(bestTime, REMAINING_SECONDS);
+                };
+            
+            default:
+                return EMPTY;
+        }
+    }
+    
+    private static CompiledPlaceholder constant(String value) {
+        return playerId -> value;
+    }
+    
+    /**
+     * Formats a remaining cooldown as a human-readable time
+     */
+    private static String formatRemaining(long remaining) {
+        if (remaining <= 0) {
+            return "0";
+        }
+        
+        long seconds = remaining / 1000;
+        long minutes = seconds / 60;
+        long hours = minutes / 60;
+        
+        if (hours > 0) {
+            return hours + "h " + (minutes % 60) + "m";
+        } else if (minutes > 0) {
+            return minutes + "m " + (seconds % 60) + "s";
+        } else {
+            return seconds + "s";
+        }
+    }
+    
+    /**
+     * A placeholder key parsed into its resolution logic
+     */
+    @FunctionalInterface
+    interface CompiledPlaceholder {
+        String resolve(UUID playerId);
+    }
+}
@@ -0,0 +1,104 @@
+package com.noviui.treasuredungeon.placeholders;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of everything a player's placeholders can show, captured at one point in time.
+ * Cooldowns are stored as expiry timestamps so the remaining time stays correct between refreshes.
+ */
+public final class PlaceholderSnapshot {
+    
+    public static final PlaceholderSnapshot EMPTY = new PlaceholderSnapshot(Collections.emptyMap(), Collections.emptyMap(), 0L);
+    
+    private final Map<String, SkillState> skills;
+    private final Map<String, Long> statistics;
+    private final Map<String, String> statisticTexts;
+    private final int activeDungeonCount;
+    private final String activeDungeonCountText;
+    private final long loadedAt;
+    
+    public PlaceholderSnapshot(Map<String, SkillState> skills, Map<String, Long> statistics, long loadedAt) {
+        this.skills = Map.copyOf(skills);
+        this.statistics = Map.copyOf(statistics);
+        this.loadedAt = loadedAt;
+        
+        int active = 0;
+        for (SkillState state : this.skills.values()) {
+            if (state.isActiveDungeon()) {
+                active++;
+            }
+        }
+        this.activeDungeonCount = active;
+        this.activeDungeonCountText = String.valueOf(active);
+        
+        // Formatted once here so placeholder requests return shared strings
+        Map<String, String> texts = new HashMap<>();
+        for (Map.Entry<String, Long> entry : this.statistics.entrySet()) {
+            texts.put(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        this.statisticTexts = Map.copyOf(texts);
+    }
+    
+    /**
+     * Gets the state for a skill, or an empty state if the player has none
+     */
+    public SkillState getSkill(String skill) {
+        SkillState state = skills.get(skill);
+        return state != null ? state : SkillState.EMPTY;
+    }
+    
+    public long getStatistic(String statType) {
+        Long value = statistics.get(statType);
+        return value != null ? value : 0L;
+    }
+    
+    /**
+     * Gets a statistic formatted for display, "0" if it was never recorded
+     */
+    public String getStatisticText(String statType) {
+        String text = statisticTexts.get(statType);
+        return text != null ? text : "0";
+    }
+    
+    public int getActiveDungeonCount() {
+        return activeDungeonCount;
+    }
+    
+    public String getActiveDungeonCountText() {
+        return activeDungeonCountText;
+    }
+    
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+    
+    /**
+     * Per-skill placeholder state
+     */
+    public static final class SkillState {
+        
+        public static final SkillState EMPTY = new SkillState(0L, false, false);
+        
+        private final long cooldownExpiresAt;
+        private final boolean mapReceived;
+        private final boolean activeDungeon;
+        private final RenderedText cooldownText = new RenderedText();
+        
+        public SkillState(long cooldownExpiresAt, boolean mapReceived, boolean activeDungeon) {
+            this.cooldownExpiresAt = cooldownExpiresAt;
+            this.mapReceived = mapReceived;
+            this.activeDungeon = activeDungeon;
+        }
+        
+        public long getCooldownExpiresAt() { return cooldownExpiresAt; }
+        public boolean isMapReceived() { return mapReceived; }
+        public boolean isActiveDungeon() { return activeDungeon; }
+        
+        /**
+         * Gets the cache for the remaining cooldown text, which changes at most once a second
+         */
+        RenderedText getCooldownText() { return cooldownText; }
+    }
+}
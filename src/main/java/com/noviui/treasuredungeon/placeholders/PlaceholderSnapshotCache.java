@@ -0,0 +1,160 @@
+package com.noviui.treasuredungeon.placeholders;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Holds one placeholder snapshot per player and rebuilds it on background threads.
+ * Reads never block: a missing snapshot returns {@link PlaceholderSnapshot#EMPTY} and a stale one
+ * is served while its replacement loads. Refreshes for the same player are coalesced, and a change
+ * reported while a load is running triggers one more load so the newest state always wins.
+ * Snapshots nobody asked for in a while are dropped, so offline players looked up once (leaderboards,
+ * holograms) don't stay cached.
+ */
+public class PlaceholderSnapshotCache {
+    
+    private static final int REFRESH_THREADS = 2;
+    
+    // A snapshot not refreshed for this many refresh intervals, and at least the minimum, is idle
+    private static final int IDLE_INTERVALS = 3;
+    private static final long MIN_IDLE_MILLIS = 5 * 60 * 1000L;
+    
+    private final Logger logger;
+    private final Function<UUID, PlaceholderSnapshot> loader;
+    private final Map<UUID, PlaceholderSnapshot> snapshots = new ConcurrentHashMap<>();
+    
+    // Players with a load queued or running
+    private final Map<UUID, LoadState> refreshing = new ConcurrentHashMap<>();
+    
+    private final ExecutorService executor;
+    private volatile long ttlMillis;
+    private volatile long lastSweep = System.currentTimeMillis();
+    
+    public PlaceholderSnapshotCache(Logger logger, Function<UUID, PlaceholderSnapshot> loader, long ttlMillis) {
+        this.logger = logger;
+        this.loader = loader;
+        this.ttlMillis = ttlMillis;
+        this.executor = Executors.newFixedThreadPool(REFRESH_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "TreasureDungeon-Placeholders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Gets the current snapshot without blocking, scheduling a refresh if it is missing or expired
+     */
+    public PlaceholderSnapshot get(UUID playerId) {
+        PlaceholderSnapshot snapshot = snapshots.get(playerId);
+        if (snapshot == null) {
+            refresh(playerId);
+            return PlaceholderSnapshot.EMPTY;
+        }
+        
+        if (System.currentTimeMillis() - snapshot.getLoadedAt() > ttlMillis) {
+            refresh(playerId);
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Schedules a rebuild of the player's snapshot
+     */
+    public void refresh(UUID playerId) {
+        while (true) {
+            LoadState pending = refreshing.putIfAbsent(playerId, LoadState.RUNNING);
+            if (pending == null) {
+                try {
+                    executor.execute(() -> load(playerId));
+                } catch (RejectedExecutionException e) {
+                    refreshing.remove(playerId);
+                }
+                return;
+            }
+            
+            // A load is already queued or running; ask it to go once more
+            if (refreshing.replace(playerId, pending, LoadState.RERUN)) {
+                return;
+            }
+        }
+    }
+    
+    private void load(UUID playerId) {
+        while (true) {
+            try {
+                PlaceholderSnapshot snapshot = loader.apply(playerId);
+                // A player evicted while this load ran stays evicted
+                snapshots.compute(playerId, (key, current) -> refreshing.get(key) == LoadState.EVICTED ? current : snapshot);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Error building placeholder snapshot for " + playerId, e);
+            }
+            
+            if (refreshing.remove(playerId, LoadState.RUNNING) || refreshing.remove(playerId, LoadState.EVICTED)) {
+                break;
+            }
+            refreshing.replace(playerId, LoadState.RERUN, LoadState.RUNNING);
+        }
+        
+        sweepIdle();
+    }
+    
+    /**
+     * Drops snapshots that were not refreshed for a while, at most once per refresh interval
+     */
+    private void sweepIdle() {
+        long now = System.currentTimeMillis();
+        long ttl = ttlMillis;
+        if (now - lastSweep < ttl) {
+            return;
+        }
+        lastSweep = now;
+        
+        long idleMillis = Math.max(ttl * IDLE_INTERVALS, MIN_IDLE_MILLIS);
+        snapshots.values().removeIf(snapshot -> now - snapshot.getLoadedAt() > idleMillis);
+    }
+    
+    /**
+     * Drops a player's snapshot, typically when they leave. A load that is running for the
+     * player won't put it back.
+     */
+    public void evict(UUID playerId) {
+        while (true) {
+            LoadState state = refreshing.get(playerId);
+            if (state == null || refreshing.replace(playerId, state, LoadState.EVICTED)) {
+                break;
+            }
+        }
+        snapshots.remove(playerId);
+    }
+    
+    public void clear() {
+        snapshots.clear();
+    }
+    
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+    
+    public int size() {
+        return snapshots.size();
+    }
+    
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private enum LoadState {
+        RUNNING,
+        // Another load was requested while one was running
+        RERUN,
+        // The player was evicted while a load was running
+        EVICTED
+    }
+}
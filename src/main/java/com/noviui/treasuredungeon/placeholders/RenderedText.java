@@ -0,0 +1,34 @@
+package com.noviui.treasuredungeon.placeholders;
+
+import java.util.function.LongFunction;
+
+/**
+ * Remembers the text last rendered for a value, so a placeholder polled far more often than its
+ * value changes returns the same string instead of formatting a new one on every request.
+ */
+final class RenderedText {
+    
+    private volatile Rendered last;
+    
+    /**
+     * Gets the text for a value, formatting it only if the value differs from the last call
+     */
+    String render(long value, LongFunction<String> formatter) {
+        Rendered rendered = last;
+        if (rendered == null || rendered.value != value) {
+            rendered = new Rendered(value, formatter.apply(value));
+            last = rendered;
+        }
+        return rendered.text;
+    }
+    
+    private static final class Rendered {
+        private final long value;
+        private final String text;
+        
+        private Rendered(long value, String text) {
+            this.value = value;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.noviui.treasuredungeon.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted random choice in constant time using Vose's alias method.
+ * The table is built once from the weights; each sample then costs one random column and one
+ * biased coin flip, however many entries there are. Immutable and safe to share between threads
+ * as long as each thread brings its own random source.
+ */
+public final class AliasTable<T> {
+    
+    private final List<T> items;
+    private final double[] shares;
+    // Chance of keeping column i rather than jumping to alias[i]
+    private final double[] probability;
+    private final int[] alias;
+    
+    /**
+     * @param items the entries, in a fixed order so that a seeded random source gives repeatable results
+     * @param weights relative weights matching items; they don't need to add up to anything
+     * @throws IllegalArgumentException if there are no entries, a weight is negative or not finite, or all weights are zero
+     */
+    public AliasTable(List<T> items, double[] weights) {
+        int size = items.size();
+        if (size == 0 || size != weights.length) {
+            throw new IllegalArgumentException("Need one weight per entry and at least one entry");
+        }
+        
+        double total = 0.0;
+        for (double weight : weights) {
+            if (weight < 0.0 || !Double.isFinite(weight)) {
+                throw new IllegalArgumentException("Weights must be finite and not negative: " + weight);
+            }
+            total += weight;
+        }
+        if (total <= 0.0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+        
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.shares = new double[size];
+        this.probability = new double[size];
+        this.alias = new int[size];
+        
+        // Scale so the average column holds exactly 1.0
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            shares[i] = weights[i] / total;
+            scaled[i] = shares[i] * size;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        
+        // Fill each under-full column with the excess of an over-full one
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            
+            probability[less] = scaled[less];
+            alias[less] = more;
+            
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        
+        // Whatever is left is 1.0 up to rounding error
+        while (largeCount > 0) {
+            int column = large[--largeCount];
+            probability[column] = 1.0;
+            alias[column] = column;
+        }
+        while (smallCount > 0) {
+            int column = small[--smallCount];
+            probability[column] = 1.0;
+            alias[column] = column;
+        }
+    }
+    
+    /**
+     * Picks an entry with chance proportional to its weight
+     */
+    public T sample(RandomGenerator random) {
+        return items.get(sampleIndex(random));
+    }
+    
+    /**
+     * Picks the index of an entry with chance proportional to its weight
+     */
+    public int sampleIndex(RandomGenerator random) {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+    
+    public int size() {
+        return items.size();
+    }
+    
+    public T get(int index) {
+        return items.get(index);
+    }
+    
+    public List<T> getItems() {
+        return items;
+    }
+    
+    /**
+     * Gets the chance of an entry being picked, between 0 and 1
+     */
+    public double getShare(int index) {
+        return shares[index];
+    }
+}
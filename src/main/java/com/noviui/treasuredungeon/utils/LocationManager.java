@@ -2,14 +2,23 @@ package com.noviui.treasuredungeon.utils;
 
 import com.noviui.treasuredungeon.TreasureDungeonPlugin;
 import com.noviui.treasuredungeon.config.ConfigManager;
+import com.noviui.treasuredungeon.config.ConfigSnapshot;
 import com.noviui.treasuredungeon.config.DataManager;
+import com.noviui.treasuredungeon.database.DatabaseManager;
+import com.noviui.treasuredungeon.database.SiteLeaseManager;
+import com.noviui.treasuredungeon.dungeon.ProximityIndex;
 import org.bukkit.Location;
 import org.bukkit.World;
 
+import java.io.File;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 public class LocationManager {
@@ -18,22 +27,71 @@ public class LocationManager {
     private final ConfigManager configManager;
     private final DataManager dataManager;
     
-    // Cache for active dungeon locations to prevent conflicts
-    private final Set<String> activeDungeonLocations = ConcurrentHashMap.newKeySet();
+    // Sites reserved here (no expiry) and recently released ones (expire after the cooldown),
+    // in cells as wide as min-distance; replaced when min-distance changes
+    private volatile SiteGrid reservedSites;
     
-    // Cache for recently used locations (prevents immediate reuse)
-    private final Map<String, Long> recentLocationCache = new ConcurrentHashMap<>();
+    // The in-progress dungeons of data.yml, rebuilt from the proximity index when it changes
+    private SiteGrid storedSites;
+    private long storedSitesVersion = -1L;
+    // Guards replacing either grid; the grids themselves are thread-safe
+    private final Object gridLock = new Object();
+    
+    // Pre-checked sites spaced by min-distance; replaced when the world, limits or min-distance change
+    private volatile SitePool sitePool;
+    private final AtomicBoolean sitePoolRefilling = new AtomicBoolean(false);
+    private volatile boolean sitePoolFullLogged = false;
+    
+    // Reads ground heights and terrain scores from chunk snapshots instead of the live world
+    private final TerrainProbe terrainProbe = new TerrainProbe(MAX_CONCURRENT_CHUNK_LOADS);
+    // Searches wait on chunk loads for seconds; they get their own threads instead of the common pool
+    private final ExecutorService searchExecutor = Executors.newFixedThreadPool(SEARCH_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "TreasureDungeon-SiteSearch");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Sites scored by the last map use, and totals over all map uses
+    private volatile int lastScoredCandidates;
+    private volatile int lastBestScore = TerrainScorer.UNSUITABLE;
+    private final AtomicLong scoredAllocations = new AtomicLong();
+    private final AtomicLong scoredCandidates = new AtomicLong();
+    
+    // Reserved and cooling-down sites on disk or in the database, read back on startup
+    private final SiteLedger siteLedger;
+    // Completes once the saved sites were first read into the grid; searches wait for it so they
+    // can't hand out a site that is still held. Opens anyway after a while if the load never runs.
+    private final CompletableFuture<Void> firstSiteLoad = new CompletableFuture<Void>()
+        .completeOnTimeout(null, SITE_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
     
     // Maximum attempts to find a valid location
     private static final int MAX_LOCATION_ATTEMPTS = 50;
     
+    // Candidates whose terrain is probed together, and chunk loads in flight at once
+    private static final int PROBE_BATCH_SIZE = 4;
+    private static final int MAX_CONCURRENT_CHUNK_LOADS = 4;
+    private static final int SEARCH_THREADS = 2;
+    
+    // Sites kept ready in the pool; a refill starts in the background below the low mark
+    private static final int SITE_POOL_SIZE = 32;
+    private static final int SITE_POOL_LOW_MARK = 8;
+    
     // Cache cleanup interval (30 minutes)
     private static final long CACHE_CLEANUP_INTERVAL = 30 * 60 * 1000L;
     
+    // How long a reservation is kept across restarts; data.yml drops dungeons older than 24 hours,
+    // so a reservation whose dungeon never ended can't outlive it
+    private static final long PERSISTED_RESERVATION_MILLIS = 24 * 60 * 60 * 1000L;
+    
+    // How long searches wait for the saved sites at most
+    private static final long SITE_LOAD_TIMEOUT_SECONDS = 60L;
+    
     public LocationManager(TreasureDungeonPlugin plugin) {
         this.plugin = plugin;
         this.configManager = plugin.getConfigManager();
         this.dataManager = plugin.getDataManager();
+        this.reservedSites = new SiteGrid(Math.max(1, configManager.getSnapshot().getMinDistance()));
+        this.siteLedger = new SiteLedger(plugin, new File(plugin.getDataFolder(), "sites.dat"));
         
         // Start cache cleanup task
         startCacheCleanupTask();
@@ -43,7 +101,7 @@ public class LocationManager {
      * Generates a safe location for a new dungeon, ensuring minimum distance from other dungeons
      */
     public CompletableFuture<Location> generateSafeDungeonLocation(World world, UUID playerId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return firstSiteLoad.thenApplyAsync(loaded -> {
             if (world == null) {
                 throw new IllegalArgumentException("World cannot be null");
             }
@@ -54,15 +112,17 @@ public class LocationManager {
                 plugin.getLogger().log(Level.SEVERE, "Failed to generate safe dungeon location", e);
                 throw new RuntimeException("Could not generate safe location", e);
             }
-        });
+        }, searchExecutor);
     }
     
     private Location findSafeLocationSync(World world, UUID playerId) {
-        int minX = configManager.getMinX();
-        int maxX = configManager.getMaxX();
-        int minZ = configManager.getMinZ();
-        int maxZ = configManager.getMaxZ();
-        int minDistance = configManager.getMinDistance();
+        // One snapshot, so a reload mid-search can't mix old and new bounds
+        ConfigSnapshot config = configManager.getSnapshot();
+        int minX = config.getMinX();
+        int maxX = config.getMaxX();
+        int minZ = config.getMinZ();
+        int maxZ = config.getMaxZ();
+        int minDistance = config.getMinDistance();
         
         // Validate configuration
         if (minX >= maxX || minZ >= maxZ) {
@@ -73,163 +133,324 @@ public class LocationManager {
             throw new IllegalStateException("Minimum distance must be greater than 0");
         }
         
-        for (int attempt = 0; attempt < MAX_LOCATION_ATTEMPTS; attempt++) {
-            try {
-                // Generate random coordinates
-                int x = ThreadLocalRandom.current().nextInt(minX, maxX + 1);
-                int z = ThreadLocalRandom.current().nextInt(minZ, maxZ + 1);
-                
-                Location candidate = new Location(world, x, 0, z);
-                
-                // Check if location is safe
-                if (isLocationSafe(candidate, minDistance, playerId)) {
-                    // Get proper Y coordinate
-                    int y = world.getHighestBlockYAt(x, z) + 1;
-                    candidate.setY(y);
-                    
-                    // Reserve this location
-                    reserveLocation(candidate, playerId);
-                    
-                    return candidate;
+        // Sites from the pool are spaced evenly, so they keep coming while random points would miss
+        SitePool pool = getSitePool(world.getName(), config);
+        if (pool.getAvailableCount() == 0 && !pool.isExhausted()) {
+            refillSitePool(pool, minDistance);
+        }
+        
+        int budget = config.getSiteScoringBudget();
+        List<Candidate> scored = new ArrayList<>();
+        Location claimed = null;
+        try {
+            // Once the pool is empty the area is full apart from released sites still cooling down
+            int[] randomAttempts = new int[1];
+            List<Candidate> batch;
+            while (claimed == null && scored.size() < budget && !(batch = nextCandidates(pool, world, config, playerId,
+                    randomAttempts, Math.min(PROBE_BATCH_SIZE, budget - scored.size()))).isEmpty()) {
+                scoreCandidates(world, batch);
+                scored.addAll(batch);
+                claimed = claimBest(world, batch, config.getSiteMinScore(), minDistance, playerId);
+            }
+            
+            // Nothing good enough within the budget; settle for the best usable site seen
+            if (claimed == null) {
+                claimed = claimBest(world, scored, TerrainScorer.UNSUITABLE + 1, minDistance, playerId);
+            }
+        } finally {
+            for (Candidate candidate : scored) {
+                // Unused pool sites go back to the pool; unsuitable ones are dropped
+                if (candidate.pooled && !candidate.claimed && candidate.score != TerrainScorer.UNSUITABLE) {
+                    pool.defer(candidate.x, candidate.z);
                 }
-                
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Error during location generation attempt " + (attempt + 1), e);
             }
+            scheduleSitePoolRefill(pool, minDistance);
+            recordScoring(config, playerId, scored, claimed != null);
         }
         
-        throw new RuntimeException("Could not find a safe location after " + MAX_LOCATION_ATTEMPTS + " attempts");
+        if (claimed == null) {
+            throw new RuntimeException("Could not find a safe location after scoring " + scored.size() + " sites");
+        }
+        return claimed;
     }
     
     /**
-     * Checks if a location is safe (far enough from other dungeons)
+     * Collects up to limit sites that pass the distance checks, from the pool first and then
+     * at random while attempts are left
      */
-    private boolean isLocationSafe(Location location, int minDistance, UUID playerId) {
-        if (location == null || location.getWorld() == null) {
-            return false;
+    private List<Candidate> nextCandidates(SitePool pool, World world, ConfigSnapshot config, UUID playerId, int[] randomAttempts, int limit) {
+        List<Candidate> batch = new ArrayList<>(limit);
+        int minDistance = config.getMinDistance();
+        
+        int[] site;
+        while (batch.size() < limit && (site = pool.poll()) != null) {
+            if (isLocationSafe(new Location(world, site[0], 0, site[1]), minDistance, playerId)) {
+                batch.add(new Candidate(site[0], site[1], true));
+            } else {
+                // Taken since the pool checked it; try again on a later refill
+                pool.defer(site[0], site[1]);
+            }
         }
         
-        String locationKey = getLocationKey(location);
+        while (batch.size() < limit && randomAttempts[0] < MAX_LOCATION_ATTEMPTS) {
+            randomAttempts[0]++;
+            int x = ThreadLocalRandom.current().nextInt(config.getMinX(), config.getMaxX() + 1);
+            int z = ThreadLocalRandom.current().nextInt(config.getMinZ(), config.getMaxZ() + 1);
+            if (isLocationSafe(new Location(world, x, 0, z), minDistance, playerId)) {
+                batch.add(new Candidate(x, z, false));
+            }
+        }
+        return batch;
+    }
+    
+    /**
+     * Probes the ground and terrain score of a batch of candidates in parallel. Candidates whose
+     * chunk could not be loaded keep an unknown score.
+     */
+    private void scoreCandidates(World world, List<Candidate> batch) {
+        int[] xs = new int[batch.size()];
+        int[] zs = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            xs[i] = batch.get(i).x;
+            zs[i] = batch.get(i).z;
+        }
         
-        // Check if this exact location is already in use
-        if (activeDungeonLocations.contains(locationKey)) {
-            return false;
+        TerrainScorer.ChunkTerrain[] terrains;
+        try {
+            terrains = terrainProbe.probe(world, xs, zs).join();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Error probing terrain for dungeon locations", e);
+            return;
         }
         
-        // Check distance from all active dungeons
-        for (String activeLocation : activeDungeonLocations) {
+        for (int i = 0; i < batch.size(); i++) {
+            Candidate candidate = batch.get(i);
+            TerrainScorer.ChunkTerrain terrain = terrains[i];
+            if (terrain != null) {
+                candidate.y = terrain.getGroundY(candidate.x, candidate.z);
+                candidate.score = candidate.y == TerrainScorer.NO_GROUND ? TerrainScorer.UNSUITABLE : terrain.getScore();
+            }
+        }
+    }
+    
+    /**
+     * Claims the best-scoring candidate at or above minScore that is still free, trying each
+     * candidate once per search
+     */
+    private Location claimBest(World world, List<Candidate> candidates, int minScore, int minDistance, UUID playerId) {
+        List<Candidate> eligible = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (!candidate.tried && candidate.score >= minScore && candidate.score > TerrainScorer.UNSUITABLE) {
+                eligible.add(candidate);
+            }
+        }
+        eligible.sort(Comparator.comparingInt((Candidate candidate) -> candidate.score).reversed());
+        
+        for (Candidate candidate : eligible) {
+            candidate.tried = true;
             try {
-                Location activeLoc = parseLocationKey(activeLocation, location.getWorld());
-                if (activeLoc != null && location.distance(activeLoc) < minDistance) {
-                    return false;
+                Location claimed = claimLocation(world, candidate.x, candidate.y, candidate.z, minDistance, playerId);
+                if (claimed != null) {
+                    candidate.claimed = true;
+                    return claimed;
                 }
             } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Error parsing active location: " + activeLocation, e);
+                plugin.getLogger().log(Level.WARNING, "Error claiming location " + candidate.x + ", " + candidate.z, e);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Counts the sites scored for one map use for /treasure sites, and reports them in debug mode
+     */
+    private void recordScoring(ConfigSnapshot config, UUID playerId, List<Candidate> scored, boolean found) {
+        int best = TerrainScorer.UNSUITABLE;
+        for (Candidate candidate : scored) {
+            best = Math.max(best, candidate.score);
+        }
+        lastScoredCandidates = scored.size();
+        lastBestScore = best;
+        scoredAllocations.incrementAndGet();
+        scoredCandidates.addAndGet(scored.size());
+        
+        if (config.isDebugEnabled()) {
+            plugin.getLogger().info("Scored " + scored.size() + " dungeon sites for player " + playerId + " (best score "
+                + best + ", " + (found ? "site found" : "no site found") + ", " + terrainProbe.getCachedChunkCount() + " chunks cached)");
+        }
+    }
+    
+    /**
+     * Checks, leases and reserves a site whose ground was already probed; returns null if it is taken
+     */
+    private Location claimLocation(World world, int x, int y, int z, int minDistance, UUID playerId) {
+        Location candidate = new Location(world, x, y, z);
+        
+        // Cheap check first, another search may have reserved a nearby site meanwhile
+        if (!isLocationSafe(candidate, minDistance, playerId)) {
+            return null;
+        }
+        
+        // Take a cross-server lease before committing to the site
+        SiteLeaseManager leases = getSiteLeaseManager();
+        if (leases != null && !leases.tryAcquire(world.getName(), x, z, minDistance, playerId)) {
+            return null;
+        }
+        
+        // Check and reserve in one step, so two searches can't both take nearby sites
+        if (!tryReserveLocation(candidate, minDistance, playerId)) {
+            if (leases != null) {
+                leases.release(world.getName(), x, z, System.currentTimeMillis());
+            }
+            return null;
+        }
+        
+        return candidate;
+    }
+    
+    /**
+     * Gets the site pool for the world and settings, starting a new one if they changed
+     */
+    private SitePool getSitePool(String worldName, ConfigSnapshot config) {
+        SitePool pool = sitePool;
+        if (pool != null && pool.matches(worldName, config.getMinX(), config.getMaxX(),
+                config.getMinZ(), config.getMaxZ(), config.getMinDistance())) {
+            return pool;
+        }
+        
+        synchronized (gridLock) {
+            pool = sitePool;
+            if (pool == null || !pool.matches(worldName, config.getMinX(), config.getMaxX(),
+                    config.getMinZ(), config.getMaxZ(), config.getMinDistance())) {
+                pool = new SitePool(worldName, config.getMinX(), config.getMaxX(),
+                    config.getMinZ(), config.getMaxZ(), config.getMinDistance(), ThreadLocalRandom.current().nextLong());
+                sitePool = pool;
+                sitePoolFullLogged = false;
             }
+            return pool;
+        }
+    }
+    
+    /**
+     * Tops the pool up on a background thread once it runs low
+     */
+    private void scheduleSitePoolRefill(SitePool pool, int minDistance) {
+        if (pool.getAvailableCount() >= SITE_POOL_LOW_MARK || !sitePoolRefilling.compareAndSet(false, true)) {
+            return;
         }
         
-        // Check distance from recent locations (prevents immediate reuse)
-        for (Map.Entry<String, Long> entry : recentLocationCache.entrySet()) {
+        CompletableFuture.runAsync(() -> {
             try {
-                Location recentLoc = parseLocationKey(entry.getKey(), location.getWorld());
-                if (recentLoc != null && location.distance(recentLoc) < minDistance) {
-                    // Check if the recent location is still within cooldown
-                    long timeSinceUse = System.currentTimeMillis() - entry.getValue();
-                    if (timeSinceUse < CACHE_CLEANUP_INTERVAL) {
-                        return false;
-                    }
-                }
+                refillSitePool(pool, minDistance);
             } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Error parsing recent location: " + entry.getKey(), e);
+                plugin.getLogger().log(Level.WARNING, "Error refilling the dungeon site pool", e);
+            } finally {
+                sitePoolRefilling.set(false);
             }
+        });
+    }
+    
+    private void refillSitePool(SitePool pool, int minDistance) {
+        String worldName = pool.getWorld();
+        int available = pool.refill(site -> {
+            long now = System.currentTimeMillis();
+            int x = SiteGrid.unpackX(site);
+            int z = SiteGrid.unpackZ(site);
+            return !getReservedSites(minDistance).hasConflict(worldName, x, z, null, now)
+                && !getStoredSites(minDistance).hasConflict(worldName, x, z, null, now);
+        }, System.currentTimeMillis(), SITE_POOL_SIZE);
+        
+        if (available == 0 && pool.isExhausted() && !sitePoolFullLogged) {
+            sitePoolFullLogged = true;
+            plugin.getLogger().warning("No room left for new dungeons in " + worldName + " with min-distance "
+                + minDistance + "; " + pool.getWaitingCount() + " sites will free up as dungeons end");
+        }
+    }
+    
+    /**
+     * Checks if a location is safe (far enough from other dungeons). Reads at most nine grid
+     * cells for reserved and recent sites and nine for stored dungeons.
+     */
+    private boolean isLocationSafe(Location location, int minDistance, UUID playerId) {
+        if (location == null || location.getWorld() == null) {
+            return false;
         }
         
-        // Check against stored dungeon locations in data.yml
-        return !isNearStoredDungeons(location, minDistance, playerId);
+        String worldName = location.getWorld().getName();
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
+        long now = System.currentTimeMillis();
+        
+        // Active reservations and recently released sites still in their cooldown
+        if (getReservedSites(minDistance).hasConflict(worldName, x, z, null, now)) {
+            return false;
+        }
+        
+        // In-progress dungeons of other players, including those from before a restart
+        return !getStoredSites(minDistance).hasConflict(worldName, x, z, playerId, now);
     }
     
     /**
-     * Checks if location is too close to dungeons stored in data.yml
+     * Gets the reservation grid, moving its sites into a new one if min-distance changed
      */
-    private boolean isNearStoredDungeons(Location location, int minDistance, UUID excludePlayerId) {
-        try {
-            var dataConfig = dataManager.getDataConfig();
-            if (dataConfig == null || !dataConfig.contains("players")) {
-                return false;
-            }
-            
-            var playersSection = dataConfig.getConfigurationSection("players");
-            if (playersSection == null) {
-                return false;
+    private SiteGrid getReservedSites(int minDistance) {
+        SiteGrid grid = reservedSites;
+        if (grid.getMinDistance() == minDistance) {
+            return grid;
+        }
+        
+        synchronized (gridLock) {
+            grid = reservedSites;
+            if (grid.getMinDistance() != minDistance) {
+                grid = grid.withMinDistance(minDistance);
+                reservedSites = grid;
             }
-            
-            for (String playerIdStr : playersSection.getKeys(false)) {
-                try {
-                    UUID playerId = UUID.fromString(playerIdStr);
-                    
-                    // Skip the current player's dungeons
-                    if (playerId.equals(excludePlayerId)) {
-                        continue;
-                    }
-                    
-                    var playerSection = playersSection.getConfigurationSection(playerIdStr);
-                    if (playerSection == null) {
-                        continue;
-                    }
-                    
-                    // Check all skills for this player
-                    for (String skill : playerSection.getKeys(false)) {
-                        var skillSection = playerSection.getConfigurationSection(skill);
-                        if (skillSection == null || !skillSection.contains("active-dungeon")) {
-                            continue;
-                        }
-                        
-                        var dungeonSection = skillSection.getConfigurationSection("active-dungeon");
-                        if (dungeonSection == null || !"in-progress".equals(dungeonSection.getString("status"))) {
-                            continue;
-                        }
-                        
-                        // Get coordinates
-                        var coordsSection = dungeonSection.getConfigurationSection("coords");
-                        if (coordsSection == null) {
-                            continue;
-                        }
-                        
-                        int x = coordsSection.getInt("x", 0);
-                        int z = coordsSection.getInt("z", 0);
-                        
-                        Location storedLocation = new Location(location.getWorld(), x, 0, z);
-                        if (location.distance(storedLocation) < minDistance) {
-                            return true;
-                        }
+            return grid;
+        }
+    }
+    
+    /**
+     * Gets the in-progress dungeons of data.yml as a grid. The proximity index already holds
+     * them in memory, so the grid is only rebuilt when a dungeon was added or removed since.
+     */
+    private SiteGrid getStoredSites(int minDistance) {
+        ProximityIndex index = dataManager.getProximityIndex();
+        synchronized (gridLock) {
+            long version = index.getVersion();
+            if (storedSites == null || storedSitesVersion != version || storedSites.getMinDistance() != minDistance) {
+                SiteGrid grid = new SiteGrid(minDistance);
+                for (UUID ownerId : index.getPlayerIds()) {
+                    for (ProximityIndex.Target target : index.getTargets(ownerId)) {
+                        grid.put(target.getWorld(), target.getX(), target.getZ(), ownerId, SiteGrid.NO_EXPIRY);
                     }
-                    
-                } catch (IllegalArgumentException e) {
-                    plugin.getLogger().log(Level.WARNING, "Invalid player UUID in data.yml: " + playerIdStr, e);
-                } catch (Exception e) {
-                    plugin.getLogger().log(Level.WARNING, "Error checking stored dungeons for player: " + playerIdStr, e);
                 }
+                storedSites = grid;
+                storedSitesVersion = version;
             }
-            
-        } catch (Exception e) {
-            plugin.getLogger().log(Level.WARNING, "Error checking stored dungeon locations", e);
+            return storedSites;
         }
-        
-        return false;
     }
     
     /**
-     * Reserves a location to prevent conflicts
+     * Reserves a location if no reserved site or in-progress dungeon lies within minDistance,
+     * checking and reserving under one lock; returns false if the site is taken
      */
-    public void reserveLocation(Location location, UUID playerId) {
-        if (location == null) {
-            return;
-        }
+    private boolean tryReserveLocation(Location location, int minDistance, UUID playerId) {
+        String worldName = location.getWorld().getName();
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
+        long now = System.currentTimeMillis();
         
-        String locationKey = getLocationKey(location);
-        activeDungeonLocations.add(locationKey);
+        synchronized (gridLock) {
+            if (getStoredSites(minDistance).hasConflict(worldName, x, z, playerId, now)
+                    || !getReservedSites(minDistance).tryReserve(worldName, x, z, playerId, SiteGrid.NO_EXPIRY, now)) {
+                return false;
+            }
+        }
+        siteLedger.record(worldName, x, z, playerId, now + PERSISTED_RESERVATION_MILLIS);
         
-        plugin.getLogger().info("Reserved dungeon location " + locationKey + " for player " + playerId);
+        plugin.getLogger().info("Reserved dungeon location " + getLocationKey(location) + " for player " + playerId);
+        return true;
     }
     
     /**
@@ -241,46 +462,54 @@ public class LocationManager {
         }
         
         String locationKey = getLocationKey(location);
-        activeDungeonLocations.remove(locationKey);
         
-        // Add to recent cache to prevent immediate reuse
-        recentLocationCache.put(locationKey, System.currentTimeMillis());
+        // Keep the site for the cooldown to prevent immediate reuse
+        long cooldownEnd = System.currentTimeMillis() + CACHE_CLEANUP_INTERVAL;
+        if (location.getWorld() != null) {
+            synchronized (gridLock) {
+                reservedSites.put(location.getWorld().getName(), location.getBlockX(), location.getBlockZ(),
+                    playerId, cooldownEnd);
+            }
+            siteLedger.record(location.getWorld().getName(), location.getBlockX(), location.getBlockZ(),
+                playerId, cooldownEnd);
+        }
+        
+        // The site goes back into the pool after the cooldown
+        SitePool pool = sitePool;
+        if (pool != null && location.getWorld() != null && pool.getWorld().equals(location.getWorld().getName())) {
+            pool.release(location.getBlockX(), location.getBlockZ(), cooldownEnd);
+        }
+        
+        // Shorten the cross-server lease to the cooldown, in the background
+        SiteLeaseManager leases = getSiteLeaseManager();
+        if (leases != null && location.getWorld() != null) {
+            leases.release(location.getWorld().getName(), location.getBlockX(), location.getBlockZ(), cooldownEnd);
+        }
         
         plugin.getLogger().info("Released dungeon location " + locationKey + " for player " + playerId);
     }
     
     /**
-     * Gets a string key for a location
+     * Gets the lease manager when database-backed leases are active
      */
-    private String getLocationKey(Location location) {
-        if (location == null || location.getWorld() == null) {
-            return "invalid";
+    private SiteLeaseManager getSiteLeaseManager() {
+        if (plugin.getDatabaseManager() == null) {
+            return null;
         }
         
-        return location.getWorld().getName() + ":" + location.getBlockX() + ":" + location.getBlockZ();
+        SiteLeaseManager leases = plugin.getDatabaseManager().getSiteLeaseManager();
+        return leases.isActive() ? leases : null;
     }
     
     /**
-     * Parses a location key back to a Location
+     * Gets a string key for a location
      */
-    private Location parseLocationKey(String locationKey, World world) {
-        if (locationKey == null || world == null) {
-            return null;
+    private String getLocationKey(Location location) {
+        if (location == null || location.getWorld() == null) {
+            return "invalid";
         }
         
-        try {
-            String[] parts = locationKey.split(":");
-            if (parts.length != 3) {
-                return null;
-            }
-            
-            int x = Integer.parseInt(parts[1]);
-            int z = Integer.parseInt(parts[2]);
-            
-            return new Location(world, x, 0, z);
-        } catch (NumberFormatException e) {
-            return null;
-        }
+        return location.getWorld().getName() + ":" + location.getBlockX() + ":" + location.getBlockZ();
     }
     
     /**
@@ -300,44 +529,132 @@ public class LocationManager {
      * Cleans up old entries from the recent location cache
      */
     private void cleanupCache() {
-        long currentTime = System.currentTimeMillis();
-        int removedCount = 0;
-        
-        Iterator<Map.Entry<String, Long>> iterator = recentLocationCache.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, Long> entry = iterator.next();
-            if (currentTime - entry.getValue() > CACHE_CLEANUP_INTERVAL) {
-                iterator.remove();
-                removedCount++;
-            }
-        }
+        long now = System.currentTimeMillis();
+        int removedCount = reservedSites.purgeExpired(now);
+        siteLedger.purgeExpired(now);
         
         if (removedCount > 0) {
             plugin.getLogger().info("Cleaned up " + removedCount + " old location cache entries");
         }
     }
     
+    /**
+     * Loads the reservations and cooldowns saved before the last shutdown into the grid, in the
+     * background. Call once the database is initialized, so the right store is read.
+     */
+    public void loadSiteReservations() {
+        CompletableFuture.runAsync(() -> {
+            long now = System.currentTimeMillis();
+            List<DatabaseManager.SiteReservation> saved = siteLedger.load(now);
+            synchronized (gridLock) {
+                SiteGrid grid = reservedSites;
+                for (DatabaseManager.SiteReservation reservation : saved) {
+                    // A site reserved here since startup keeps its longer expiry
+                    grid.merge(reservation.getWorldName(), reservation.getX(), reservation.getZ(),
+                        reservation.getHolderId(), reservation.getExpiresAt());
+                }
+            }
+            
+            if (!saved.isEmpty()) {
+                plugin.getLogger().info("Loaded " + saved.size() + " reserved dungeon sites");
+            }
+        }).exceptionally(throwable -> {
+            plugin.getLogger().log(Level.WARNING, "Error loading reserved dungeon sites", throwable);
+            return null;
+        }).thenRun(() -> firstSiteLoad.complete(null));
+    }
+    
+    /**
+     * Writes reservation changes that are still pending; call on shutdown, before the database
+     * is closed
+     */
+    public void saveSiteReservations() {
+        siteLedger.flush();
+    }
+    
     /**
      * Clears all caches (used during plugin reload/shutdown)
      */
     public void clearCache() {
-        activeDungeonLocations.clear();
-        recentLocationCache.clear();
+        reservedSites.clear();
+        sitePool = null;
+        terrainProbe.clearCache();
         plugin.getLogger().info("Cleared all location caches");
     }
     
+    /**
+     * Stops the site search and terrain scoring threads; call on shutdown
+     */
+    public void shutdown() {
+        searchExecutor.shutdownNow();
+        terrainProbe.shutdown();
+    }
+    
     /**
      * Gets the number of active dungeon locations
      */
     public int getActiveDungeonCount() {
-        return activeDungeonLocations.size();
+        return reservedSites.count(false);
+    }
+    
+    /**
+     * Gets how many pre-checked sites are ready, for monitoring how much room is left
+     */
+    public int getAvailableSiteCount() {
+        SitePool pool = sitePool;
+        return pool == null ? 0 : pool.getAvailableCount();
+    }
+    
+    /**
+     * Gets how many pool sites are occupied or cooling down and will come back as dungeons end
+     */
+    public int getWaitingSiteCount() {
+        SitePool pool = sitePool;
+        return pool == null ? 0 : pool.getWaitingCount();
+    }
+    
+    /**
+     * Checks whether the configured area has no room for sites beyond those already generated
+     */
+    public boolean isSitePoolExhausted() {
+        SitePool pool = sitePool;
+        return pool != null && pool.isExhausted();
+    }
+    
+    /**
+     * Gets how many candidate sites the last map use scored
+     */
+    public int getLastScoredCandidateCount() {
+        return lastScoredCandidates;
+    }
+    
+    /**
+     * Gets the best terrain score among the sites the last map use scored
+     */
+    public int getLastBestSiteScore() {
+        return lastBestScore;
+    }
+    
+    /**
+     * Gets how many map uses scored sites since startup
+     */
+    public long getScoredAllocationCount() {
+        return scoredAllocations.get();
+    }
+    
+    /**
+     * Gets the average number of candidate sites scored per map use
+     */
+    public double getAverageScoredCandidateCount() {
+        long allocations = scoredAllocations.get();
+        return allocations == 0 ? 0.0 : (double) scoredCandidates.get() / allocations;
     }
     
     /**
      * Gets the number of recent locations in cache
      */
     public int getRecentLocationCount() {
-        return recentLocationCache.size();
+        return reservedSites.count(true);
     }
     
     /**
@@ -345,11 +662,12 @@ public class LocationManager {
      */
     public boolean validateConfiguration() {
         try {
-            int minX = configManager.getMinX();
-            int maxX = configManager.getMaxX();
-            int minZ = configManager.getMinZ();
-            int maxZ = configManager.getMaxZ();
-            int minDistance = configManager.getMinDistance();
+            ConfigSnapshot config = configManager.getSnapshot();
+            int minX = config.getMinX();
+            int maxX = config.getMaxX();
+            int minZ = config.getMinZ();
+            int maxZ = config.getMaxZ();
+            int minDistance = config.getMinDistance();
             
             // Check coordinate ranges
             if (minX >= maxX || minZ >= maxZ) {
@@ -367,10 +685,28 @@ public class LocationManager {
             }
             
             return true;
-            
+        
         } catch (Exception e) {
             plugin.getLogger().log(Level.SEVERE, "Error validating location configuration", e);
             return false;
         }
     }
-}
\ No newline at end of file
+    
+    private static final class Candidate {
+        private final int x;
+        private final int z;
+        // Taken from the site pool, so it goes back there if unused
+        private final boolean pooled;
+        // Ground and terrain score once probed; the score stays below zero if the chunk didn't load
+        private int y = TerrainScorer.NO_GROUND;
+        private int score = -1;
+        private boolean tried;
+        private boolean claimed;
+        
+        private Candidate(int x, int z, boolean pooled) {
+            this.x = x;
+            this.z = z;
+            this.pooled = pooled;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.noviui.treasuredungeon.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Dungeon sites per world, filed in square cells as wide as the minimum distance between sites.
+ * Any site closer than that distance to a point lies in the point's cell or one of its eight
+ * neighbours, so a conflict check reads at most nine cells however many sites there are.
+ * Sites are packed x/z longs with an expiry time; adding and removing one is constant time.
+ * Thread-safe.
+ */
+public final class SiteGrid {
+    
+    // Expiry of a site that stays until it is removed
+    public static final long NO_EXPIRY = Long.MAX_VALUE;
+    
+    private final int cellSize;
+    private final long distanceSquared;
+    // World name to cell key to the sites in that cell
+    private final Map<String, Map<Long, Cell>> worlds = new HashMap<>();
+    
+    /**
+     * @param minDistance sites closer than this conflict; also the cell width
+     * @throws IllegalArgumentException if minDistance is not positive
+     */
+    public SiteGrid(int minDistance) {
+        if (minDistance <= 0) {
+            throw new IllegalArgumentException("Minimum distance must be greater than 0");
+        }
+        this.cellSize = minDistance;
+        this.distanceSquared = (long) minDistance * minDistance;
+    }
+    
+    public int getMinDistance() {
+        return cellSize;
+    }
+    
+    /**
+     * Adds a site, or updates the owner and expiry of the site already at x/z
+     */
+    public synchronized void put(String world, int x, int z, UUID owner, long expiresAt) {
+        long site = pack(x, z);
+        Cell cell = worlds.computeIfAbsent(world, key -> new HashMap<>())
+            .computeIfAbsent(pack(Math.floorDiv(x, cellSize), Math.floorDiv(z, cellSize)), key -> new Cell());
+        
+        int index = cell.indexOf(site);
+        if (index < 0) {
+            cell.add(site, owner, expiresAt);
+        } else {
+            cell.owners[index] = owner;
+            cell.expiresAt[index] = expiresAt;
+        }
+    }
+    
+    /**
+     * Adds a site, or gives the site already at x/z the later of the two expiries, so merging
+     * saved sites never shortens a reservation made here
+     */
+    public synchronized void merge(String world, int x, int z, UUID owner, long expiresAt) {
+        Map<Long, Cell> cells = worlds.get(world);
+        Cell cell = cells != null ? cells.get(pack(Math.floorDiv(x, cellSize), Math.floorDiv(z, cellSize))) : null;
+        int index = cell != null ? cell.indexOf(pack(x, z)) : -1;
+        if (index < 0 || cell.expiresAt[index] < expiresAt) {
+            put(world, x, z, owner, expiresAt);
+        }
+    }
+    
+    /**
+     * Adds a site unless a site that has not expired lies closer than the minimum distance;
+     * checks and adds in one step. Returns false if the site was not added.
+     */
+    public synchronized boolean tryReserve(String world, int x, int z, UUID owner, long expiresAt, long now) {
+        if (hasConflict(world, x, z, null, now)) {
+            return false;
+        }
+        put(world, x, z, owner, expiresAt);
+        return true;
+    }
+    
+    /**
+     * Removes the site at x/z; returns false if there was none
+     */
+    public synchronized boolean remove(String world, int x, int z) {
+        Map<Long, Cell> cells = worlds.get(world);
+        if (cells == null) {
+            return false;
+        }
+        
+        long cellKey = pack(Math.floorDiv(x, cellSize), Math.floorDiv(z, cellSize));
+        Cell cell = cells.get(cellKey);
+        if (cell == null) {
+            return false;
+        }
+        
+        int index = cell.indexOf(pack(x, z));
+        if (index < 0) {
+            return false;
+        }
+        cell.removeAt(index);
+        if (cell.size == 0) {
+            cells.remove(cellKey);
+            if (cells.isEmpty()) {
+                worlds.remove(world);
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Checks whether a site that has not expired lies closer than the minimum distance to x/z.
+     * Sites of ignoredOwner don't count; pass null to count every site.
+     */
+    public synchronized boolean hasConflict(String world, int x, int z, UUID ignoredOwner, long now) {
+        Map<Long, Cell> cells = worlds.get(world);
+        if (cells == null) {
+            return false;
+        }
+        
+        int cellX = Math.floorDiv(x, cellSize);
+        int cellZ = Math.floorDiv(z, cellSize);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                Cell cell = cells.get(pack(cellX + dx, cellZ + dz));
+                if (cell != null && cell.hasConflict(x, z, distanceSquared, ignoredOwner, now)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Drops every site that expired by now; returns how many were dropped
+     */
+    public synchronized int purgeExpired(long now) {
+        int removed = 0;
+        Iterator<Map<Long, Cell>> worldIterator = worlds.values().iterator();
+        while (worldIterator.hasNext()) {
+            Map<Long, Cell> cells = worldIterator.next();
+            Iterator<Cell> cellIterator = cells.values().iterator();
+            while (cellIterator.hasNext()) {
+                Cell cell = cellIterator.next();
+                for (int i = cell.size - 1; i >= 0; i--) {
+                    if (cell.expiresAt[i] <= now) {
+                        cell.removeAt(i);
+                        removed++;
+                    }
+                }
+                if (cell.size == 0) {
+                    cellIterator.remove();
+                }
+            }
+            if (cells.isEmpty()) {
+                worldIterator.remove();
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * Counts the sites that never expire, or those that do; walks every site
+     */
+    public synchronized int count(boolean expiring) {
+        int count = 0;
+        for (Map<Long, Cell> cells : worlds.values()) {
+            for (Cell cell : cells.values()) {
+                for (int i = 0; i < cell.size; i++) {
+                    if ((cell.expiresAt[i] != NO_EXPIRY) == expiring) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    public synchronized void clear() {
+        worlds.clear();
+    }
+    
+    /**
+     * Copies every site into a new grid for another minimum distance
+     */
+    public synchronized SiteGrid withMinDistance(int minDistance) {
+        SiteGrid copy = new SiteGrid(minDistance);
+        for (Map.Entry<String, Map<Long, Cell>> world : worlds.entrySet()) {
+            for (Cell cell : world.getValue().values()) {
+                for (int i = 0; i < cell.size; i++) {
+                    copy.put(world.getKey(), unpackX(cell.sites[i]), unpackZ(cell.sites[i]), cell.owners[i], cell.expiresAt[i]);
+                }
+            }
+        }
+        return copy;
+    }
+    
+    static long pack(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+    
+    static int unpackX(long packed) {
+        return (int) (packed >> 32);
+    }
+    
+    static int unpackZ(long packed) {
+        return (int) packed;
+    }
+    
+    /**
+     * Parallel arrays of the sites in one cell; a cell rarely holds more than a couple
+     */
+    private static final class Cell {
+        private long[] sites = new long[2];
+        private long[] expiresAt = new long[2];
+        private UUID[] owners = new UUID[2];
+        private int size;
+        
+        private int indexOf(long site) {
+            for (int i = 0; i < size; i++) {
+                if (sites[i] == site) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        private void add(long site, UUID owner, long expiry) {
+            if (size == sites.length) {
+                int capacity = size * 2;
+                sites = Arrays.copyOf(sites, capacity);
+                expiresAt = Arrays.copyOf(expiresAt, capacity);
+                owners = Arrays.copyOf(owners, capacity);
+            }
+            sites[size] = site;
+            owners[size] = owner;
+            expiresAt[size] = expiry;
+            size++;
+        }
+        
+        // Moves the last site into the gap, so removal doesn't shift the arrays
+        private void removeAt(int index) {
+            int last = --size;
+            sites[index] = sites[last];
+            owners[index] = owners[last];
+            expiresAt[index] = expiresAt[last];
+            owners[last] = null;
+        }
+        
+        private boolean hasConflict(int x, int z, long distanceSquared, UUID ignoredOwner, long now) {
+            for (int i = 0; i < size; i++) {
+                if (expiresAt[i] <= now || (ignoredOwner != null && ignoredOwner.equals(owners[i]))) {
+                    continue;
+                }
+                long dx = (long) unpackX(sites[i]) - x;
+                long dz = (long) unpackZ(sites[i]) - z;
+                if (dx * dx + dz * dz < distanceSquared) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.noviui.treasuredungeon.utils;
+
+import com.noviui.treasuredungeon.TreasureDungeonPlugin;
+import com.noviui.treasuredungeon.database.DatabaseManager;
+import com.noviui.treasuredungeon.database.DatabaseManager.SiteReservation;
+import com.noviui.treasuredungeon.database.SiteLeaseManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
+/**
+ * Keeps LocationManager's site reservations and reuse cooldowns across restarts. While database
+ * site leases are active the lease table already holds them (see SiteLeaseManager), so nothing is
+ * written here; otherwise they go to sites.dat next to data.yml, a small binary file read when the
+ * ledger is created and rewritten in the background after changes. Every entry carries its own
+ * expiry, so reservations of dungeons that never finished drop out on their own.
+ */
+public final class SiteLedger {
+    
+    // "TDS" and the format version
+    private static final int FILE_MAGIC = 0x54445301;
+    
+    private final TreasureDungeonPlugin plugin;
+    private final File file;
+    
+    // What the file holds, keyed by world:x:z
+    private final Map<String, SiteReservation> fileEntries = new ConcurrentHashMap<>();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean(false);
+    private final Object fileLock = new Object();
+    
+    public SiteLedger(TreasureDungeonPlugin plugin, File file) {
+        this.plugin = plugin;
+        this.file = file;
+        // Read up front so a change recorded before load() can't overwrite the saved sites
+        readFile();
+    }
+    
+    /**
+     * Stores a site with its expiry in sites.dat, replacing what was stored for it. Does nothing
+     * while the lease table keeps the sites.
+     */
+    public void record(String worldName, int x, int z, UUID holderId, long expiresAt) {
+        if (getLeases() != null) {
+            return;
+        }
+        
+        fileEntries.put(key(worldName, x, z), new SiteReservation(worldName, x, z, holderId, expiresAt));
+        scheduleSave();
+    }
+    
+    /**
+     * Forgets stored sites that expired by now; expired leases are reaped by SiteLeaseManager
+     */
+    public void purgeExpired(long now) {
+        if (fileEntries.values().removeIf(entry -> entry.getExpiresAt() <= now)) {
+            scheduleSave();
+        }
+    }
+    
+    /**
+     * Gets every stored site that has not expired, from the lease table while leases are active
+     * and from sites.dat otherwise. Blocks; call it off the main thread.
+     */
+    public List<SiteReservation> load(long now) {
+        SiteLeaseManager leases = getLeases();
+        if (leases != null) {
+            try {
+                return leases.loadLeases(now);
+            } catch (SQLException e) {
+                plugin.getLogger().log(Level.WARNING, "Error loading site leases from database", e);
+                return new ArrayList<>();
+            }
+        }
+        
+        List<SiteReservation> loaded = new ArrayList<>();
+        for (SiteReservation entry : fileEntries.values()) {
+            if (entry.getExpiresAt() > now) {
+                loaded.add(entry);
+            }
+        }
+        return loaded;
+    }
+    
+    /**
+     * Writes pending changes now, to sites.dat and to the lease table; used on shutdown, before
+     * the database is closed
+     */
+    public void flush() {
+        SiteLeaseManager leases = getLeases();
+        if (leases != null) {
+            leases.flush();
+        }
+        writePending();
+    }
+    
+    private void scheduleSave() {
+        if (saveScheduled.compareAndSet(false, true)) {
+            CompletableFuture.runAsync(this::writePending);
+        }
+    }
+    
+    private void writePending() {
+        if (saveScheduled.getAndSet(false)) {
+            writeFile();
+        }
+    }
+    
+    private void readFile() {
+        synchronized (fileLock) {
+            if (!file.exists()) {
+                return;
+            }
+            
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+                if (in.readInt() != FILE_MAGIC) {
+                    plugin.getLogger().warning("Ignoring " + file.getName() + ": unknown format");
+                    return;
+                }
+                
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String worldName = in.readUTF();
+                    int x = in.readInt();
+                    int z = in.readInt();
+                    long expiresAt = in.readLong();
+                    UUID holderId = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+                    fileEntries.putIfAbsent(key(worldName, x, z), new SiteReservation(worldName, x, z, holderId, expiresAt));
+                }
+            } catch (EOFException e) {
+                plugin.getLogger().warning(file.getName() + " is truncated; loaded " + fileEntries.size() + " sites");
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Error reading " + file.getName(), e);
+            }
+        }
+    }
+    
+    private void writeFile() {
+        synchronized (fileLock) {
+            File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+            try {
+                List<SiteReservation> entries = new ArrayList<>(fileEntries.values());
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+                    out.writeInt(FILE_MAGIC);
+                    out.writeInt(entries.size());
+                    for (SiteReservation entry : entries) {
+                        out.writeUTF(entry.getWorldName());
+                        out.writeInt(entry.getX());
+                        out.writeInt(entry.getZ());
+                        out.writeLong(entry.getExpiresAt());
+                        UUID holderId = entry.getHolderId();
+                        out.writeBoolean(holderId != null);
+                        if (holderId != null) {
+                            out.writeLong(holderId.getMostSignificantBits());
+                            out.writeLong(holderId.getLeastSignificantBits());
+                        }
+                    }
+                }
+                
+                try {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Error saving " + file.getName(), e);
+            }
+        }
+    }
+    
+    private SiteLeaseManager getLeases() {
+        DatabaseManager database = plugin.getDatabaseManager();
+        SiteLeaseManager leases = database != null ? database.getSiteLeaseManager() : null;
+        return leases != null && leases.isActive() ? leases : null;
+    }
+    
+    private static String key(String worldName, int x, int z) {
+        return worldName + ":" + x + ":" + z;
+    }
+}
@@ -0,0 +1,249 @@
+package com.noviui.treasuredungeon.utils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.LongPredicate;
+
+/**
+ * Dungeon sites generated ahead of time with Bridson's Poisson-disk sampling over the configured
+ * area, so every site is at least min-distance from every other one and the area fills up evenly
+ * instead of by chance. Sites are generated a batch at a time and checked against the occupied
+ * sites before they enter the pool; taking one is then constant time.
+ * Sites that were occupied at the time, or were used and released, wait and are checked again on
+ * the next refill. Thread-safe.
+ */
+public final class SitePool {
+    
+    // Candidates tried around a site before it stops spawning new ones (k in Bridson's paper)
+    private static final int ATTEMPTS_PER_SITE = 30;
+    // Returned by nextSite once the area is full; never a site inside int coordinates limits
+    private static final long NO_SITE = Long.MIN_VALUE;
+    
+    private final String world;
+    private final int minX;
+    private final int maxX;
+    private final int minZ;
+    private final int maxZ;
+    private final int minDistance;
+    private final double cellSize;
+    private final SplittableRandom random;
+    
+    // Sampling cell key to the one site in it; cells are min-distance / sqrt(2) wide
+    private final Map<Long, Long> pattern = new HashMap<>();
+    // Sites that can still spawn neighbours
+    private long[] active = new long[16];
+    private int activeCount;
+    private boolean started;
+    
+    // Checked and ready to hand out
+    private long[] available = new long[16];
+    private int availableCount;
+    // Occupied when generated, or returned by defer; checked again on refill
+    private final ArrayDeque<Long> blocked = new ArrayDeque<>();
+    // Released sites with the time their cooldown ends, in release order
+    private final ArrayDeque<long[]> cooling = new ArrayDeque<>();
+    
+    /**
+     * @throws IllegalArgumentException if the area is empty or minDistance is not positive
+     */
+    public SitePool(String world, int minX, int maxX, int minZ, int maxZ, int minDistance, long seed) {
+        if (minX >= maxX || minZ >= maxZ) {
+            throw new IllegalArgumentException("Invalid coordinate configuration: min values must be less than max values");
+        }
+        if (minDistance <= 0) {
+            throw new IllegalArgumentException("Minimum distance must be greater than 0");
+        }
+        this.world = world;
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minZ = minZ;
+        this.maxZ = maxZ;
+        this.minDistance = minDistance;
+        this.cellSize = minDistance / Math.sqrt(2);
+        this.random = new SplittableRandom(seed);
+    }
+    
+    /**
+     * Checks whether this pool was generated for the given world and settings
+     */
+    public boolean matches(String world, int minX, int maxX, int minZ, int maxZ, int minDistance) {
+        return this.world.equals(world) && this.minX == minX && this.maxX == maxX
+            && this.minZ == minZ && this.maxZ == maxZ && this.minDistance == minDistance;
+    }
+    
+    public String getWorld() {
+        return world;
+    }
+    
+    /**
+     * Takes a random site from the pool, as {x, z}, or null if none is ready
+     */
+    public synchronized int[] poll() {
+        if (availableCount == 0) {
+            return null;
+        }
+        int index = random.nextInt(availableCount);
+        long site = available[index];
+        available[index] = available[--availableCount];
+        return new int[]{SiteGrid.unpackX(site), SiteGrid.unpackZ(site)};
+    }
+    
+    /**
+     * Puts back a site that turned out to be taken; it is checked again on the next refill
+     */
+    public synchronized void defer(int x, int z) {
+        blocked.add(SiteGrid.pack(x, z));
+    }
+    
+    /**
+     * Returns a released site to the pool once its cooldown ends. Sites that were not
+     * generated by this pool are ignored, since they may be too close to pool sites.
+     */
+    public synchronized void release(int x, int z, long readyAt) {
+        long site = SiteGrid.pack(x, z);
+        Long filed = pattern.get(cellKey(x, z));
+        if (filed != null && filed == site) {
+            cooling.add(new long[]{site, readyAt});
+        }
+    }
+    
+    /**
+     * Brings the pool up to the wanted size: rechecks waiting sites, then generates new ones
+     * until enough are free or the area is full.
+     *
+     * @param isFree tells whether a packed x/z site is far enough from the occupied sites
+     * @return how many sites are ready afterwards
+     */
+    public synchronized int refill(LongPredicate isFree, long now, int wanted) {
+        while (!cooling.isEmpty() && cooling.peek()[1] <= now) {
+            blocked.add(cooling.poll()[0]);
+        }
+        Iterator<Long> waiting = blocked.iterator();
+        while (waiting.hasNext()) {
+            long site = waiting.next();
+            if (isFree.test(site)) {
+                waiting.remove();
+                addAvailable(site);
+            }
+        }
+        
+        while (availableCount < wanted) {
+            long site = nextSite();
+            if (site == NO_SITE) {
+                break;
+            }
+            if (isFree.test(site)) {
+                addAvailable(site);
+            } else {
+                blocked.add(site);
+            }
+        }
+        return availableCount;
+    }
+    
+    public synchronized int getAvailableCount() {
+        return availableCount;
+    }
+    
+    /**
+     * Gets how many generated sites are occupied or cooling down and may come back
+     */
+    public synchronized int getWaitingCount() {
+        return blocked.size() + cooling.size();
+    }
+    
+    /**
+     * Checks whether the area holds no room for another site; once true, the pool only grows
+     * back from released sites
+     */
+    public synchronized boolean isExhausted() {
+        return started && activeCount == 0;
+    }
+    
+    /**
+     * Runs Bridson's algorithm until it places one more site; Long.MIN_VALUE once the area is full
+     */
+    private long nextSite() {
+        if (!started) {
+            started = true;
+            return place(minX + random.nextInt(maxX - minX + 1), minZ + random.nextInt(maxZ - minZ + 1));
+        }
+        
+        while (activeCount > 0) {
+            int index = random.nextInt(activeCount);
+            long parent = active[index];
+            int parentX = SiteGrid.unpackX(parent);
+            int parentZ = SiteGrid.unpackZ(parent);
+            
+            for (int attempt = 0; attempt < ATTEMPTS_PER_SITE; attempt++) {
+                // Uniform over the ring between one and two min-distances around the parent
+                double angle = random.nextDouble(Math.PI * 2);
+                double radius = minDistance * Math.sqrt(1 + 3 * random.nextDouble());
+                long x = Math.round(parentX + Math.cos(angle) * radius);
+                long z = Math.round(parentZ + Math.sin(angle) * radius);
+                if (x < minX || x > maxX || z < minZ || z > maxZ) {
+                    continue;
+                }
+                if (isSpaced((int) x, (int) z)) {
+                    return place((int) x, (int) z);
+                }
+            }
+            
+            // No room left around this one
+            active[index] = active[--activeCount];
+        }
+        return NO_SITE;
+    }
+    
+    private long place(int x, int z) {
+        long site = SiteGrid.pack(x, z);
+        pattern.put(cellKey(x, z), site);
+        if (activeCount == active.length) {
+            active = Arrays.copyOf(active, activeCount * 2);
+        }
+        active[activeCount++] = site;
+        return site;
+    }
+    
+    /**
+     * A site closer than min-distance can only sit within two sampling cells in each direction
+     */
+    private boolean isSpaced(int x, int z) {
+        int cellX = cell(x, minX);
+        int cellZ = cell(z, minZ);
+        long distanceSquared = (long) minDistance * minDistance;
+        for (int dx = -2; dx <= 2; dx++) {
+            for (int dz = -2; dz <= 2; dz++) {
+                Long site = pattern.get(SiteGrid.pack(cellX + dx, cellZ + dz));
+                if (site == null) {
+                    continue;
+                }
+                long offsetX = (long) SiteGrid.unpackX(site) - x;
+                long offsetZ = (long) SiteGrid.unpackZ(site) - z;
+                if (offsetX * offsetX + offsetZ * offsetZ < distanceSquared) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private long cellKey(int x, int z) {
+        return SiteGrid.pack(cell(x, minX), cell(z, minZ));
+    }
+    
+    private int cell(int coordinate, int origin) {
+        return (int) Math.floor((coordinate - (double) origin) / cellSize);
+    }
+    
+    private void addAvailable(long site) {
+        if (availableCount == available.length) {
+            available = Arrays.copyOf(available, availableCount * 2);
+        }
+        available[availableCount++] = site;
+    }
+}
@@ -0,0 +1,206 @@
+package com.noviui.treasuredungeon.utils;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the ground height and terrain score at candidate dungeon sites without loading chunks off
+ * the main thread. Each site's chunk is loaded (or generated) with Paper's getChunkAtAsync, a
+ * full snapshot (blocks, heightmap and biomes) is taken on the main thread as the load completes,
+ * and the chunk is scored by TerrainScorer on the probe's own threads. Scores are cached per chunk
+ * for a while, so sites probed again in the same area need no chunk load at all.
+ * At most a fixed number of chunk loads are in flight at once, across all callers; further loads
+ * wait in a queue instead of blocking the caller, and a load holds its slot until the server has
+ * finished it, even if the probe gave up waiting.
+ */
+public final class TerrainProbe {
+    
+    // A chunk that takes longer than this to load counts as no ground
+    private static final long CHUNK_LOAD_TIMEOUT_SECONDS = 30L;
+    
+    // Scored chunks kept, and how long before players may have built over them
+    private static final int MAX_CACHED_CHUNKS = 4096;
+    private static final long CHUNK_SCORE_TTL = 10 * 60 * 1000L;
+    
+    private static final int SCORING_THREADS = 2;
+    
+    private final int maxChunkLoads;
+    // Loads waiting for a slot, and the slots taken; both guarded by queuedLoads
+    private final Queue<Runnable> queuedLoads = new ArrayDeque<>();
+    private int chunkLoadsInFlight;
+    
+    private final ExecutorService executor;
+    
+    // world:chunkX:chunkZ to its scored terrain, least recently used first
+    private final Map<String, TerrainScorer.ChunkTerrain> scoredChunks = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TerrainScorer.ChunkTerrain> eldest) {
+            return size() > MAX_CACHED_CHUNKS;
+        }
+    };
+    
+    public TerrainProbe(int maxConcurrentChunkLoads) {
+        this.maxChunkLoads = Math.max(1, maxConcurrentChunkLoads);
+        this.executor = Executors.newFixedThreadPool(SCORING_THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "TreasureDungeon-TerrainProbe");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Probes several sites in parallel, each chunk once. Completes with the scored terrain of each
+     * site's chunk, or null where the chunk could not be loaded; read the site's ground with
+     * getGroundY(x, z). Never blocks; the loads complete on the main thread, so don't wait for the
+     * result there.
+     */
+    public CompletableFuture<TerrainScorer.ChunkTerrain[]> probe(World world, int[] xs, int[] zs) {
+        String worldName = world.getName();
+        int minHeight = world.getMinHeight();
+        int maxHeight = world.getMaxHeight();
+        long now = System.currentTimeMillis();
+        TerrainScorer.ChunkTerrain[] terrains = new TerrainScorer.ChunkTerrain[xs.length];
+        Map<String, CompletableFuture<TerrainScorer.ChunkTerrain>> loads = new HashMap<>();
+        CompletableFuture<?>[] sites = new CompletableFuture<?>[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            int index = i;
+            int chunkX = xs[i] >> 4;
+            int chunkZ = zs[i] >> 4;
+            String key = worldName + ":" + chunkX + ":" + chunkZ;
+            
+            TerrainScorer.ChunkTerrain cached = getCached(key, now);
+            if (cached != null) {
+                terrains[index] = cached;
+                sites[i] = CompletableFuture.completedFuture(null);
+                continue;
+            }
+            
+            // Sites sharing a chunk share its load; scoring runs on the probe's threads
+            sites[i] = loads.computeIfAbsent(key, ignored -> loadSnapshot(world, chunkX, chunkZ)
+                    .thenApplyAsync(snapshot -> {
+                        TerrainScorer.ChunkTerrain terrain = TerrainScorer.score(snapshot, minHeight, maxHeight, now);
+                        putCached(key, terrain);
+                        return terrain;
+                    }, executor))
+                .handle((terrain, throwable) -> terrains[index] = terrain);
+        }
+        return CompletableFuture.allOf(sites).thenApply(ignored -> terrains);
+    }
+    
+    /**
+     * Gets how many scored chunks are cached
+     */
+    public synchronized int getCachedChunkCount() {
+        return scoredChunks.size();
+    }
+    
+    public synchronized void clearCache() {
+        scoredChunks.clear();
+    }
+    
+    /**
+     * Stops the scoring threads; probes still running complete without terrain
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    private synchronized TerrainScorer.ChunkTerrain getCached(String key, long now) {
+        TerrainScorer.ChunkTerrain terrain = scoredChunks.get(key);
+        if (terrain != null && now - terrain.getScoredAt() > CHUNK_SCORE_TTL) {
+            scoredChunks.remove(key);
+            return null;
+        }
+        return terrain;
+    }
+    
+    private synchronized void putCached(String key, TerrainScorer.ChunkTerrain terrain) {
+        scoredChunks.put(key, terrain);
+    }
+    
+    /**
+     * Loads a chunk and snapshots it, starting now if a load slot is free and otherwise once one is
+     */
+    private CompletableFuture<ChunkSnapshot> loadSnapshot(World world, int chunkX, int chunkZ) {
+        CompletableFuture<ChunkSnapshot> snapshot = new CompletableFuture<>();
+        Runnable load = () -> startLoad(world, chunkX, chunkZ, snapshot);
+        
+        boolean startNow;
+        synchronized (queuedLoads) {
+            startNow = chunkLoadsInFlight < maxChunkLoads;
+            if (startNow) {
+                chunkLoadsInFlight++;
+            } else {
+                queuedLoads.add(load);
+            }
+        }
+        if (startNow) {
+            load.run();
+        }
+        return snapshot.orTimeout(CHUNK_LOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Runs with a load slot taken, and gives it back once the server is done with the chunk
+     */
+    private void startLoad(World world, int chunkX, int chunkZ, CompletableFuture<ChunkSnapshot> snapshot) {
+        // Timed out while queued; nobody is waiting for this chunk any more
+        if (snapshot.isDone()) {
+            releaseLoad();
+            return;
+        }
+        
+        CompletableFuture<Chunk> chunkLoad;
+        try {
+            chunkLoad = world.getChunkAtAsync(chunkX, chunkZ);
+        } catch (RuntimeException e) {
+            releaseLoad();
+            snapshot.completeExceptionally(e);
+            return;
+        }
+        
+        // Completes on the main thread, where taking the snapshot is safe. It copies the block data
+        // too, not just the heightmap: the scorer reads block types for canopy, fluids and headroom,
+        // and biomes for water
+        chunkLoad.whenComplete((chunk, throwable) -> {
+            try {
+                if (throwable != null) {
+                    snapshot.completeExceptionally(throwable);
+                } else if (!snapshot.isDone()) {
+                    snapshot.complete(chunk.getChunkSnapshot(true, true, false));
+                }
+            } catch (RuntimeException e) {
+                snapshot.completeExceptionally(e);
+            } finally {
+                releaseLoad();
+            }
+        });
+    }
+    
+    /**
+     * Hands a finished load's slot to the next queued load, or frees it
+     */
+    private void releaseLoad() {
+        Runnable next;
+        synchronized (queuedLoads) {
+            next = queuedLoads.poll();
+            if (next == null) {
+                chunkLoadsInFlight--;
+            }
+        }
+        if (next != null) {
+            next.run();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.noviui.treasuredungeon.utils;
+
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.block.Biome;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Rates how well a chunk suits a dungeon from a snapshot taken with blocks, heightmap and biomes, so it
+ * can run on any thread. A chunk scores 100 when it is flat, dry and open, and loses points for
+ * height differences, water, tree canopy and ground without headroom; lava, cliffs, mostly water,
+ * mostly covered ground and ocean or river biomes make it unsuitable (0). The ground height of each
+ * column comes out of the same pass.
+ */
+public final class TerrainScorer {
+    
+    public static final int MAX_SCORE = 100;
+    public static final int UNSUITABLE = 0;
+    
+    // Ground y of a column with no solid block, or under water or lava
+    public static final int NO_GROUND = Integer.MIN_VALUE;
+    
+    private static final int COLUMNS = 16 * 16;
+    // Spread between the 10th and 90th percentile ground heights that costs nothing, and the
+    // spread at which the chunk counts as a cliff
+    private static final int FLAT_SPREAD = 3;
+    private static final int CLIFF_SPREAD = 15;
+    // A quarter of the columns under water makes a chunk unsuitable
+    private static final int MAX_FLUID_COLUMNS = COLUMNS / 4;
+    // Points lost when every column is under trees
+    private static final int CANOPY_PENALTY = 50;
+    // Blocks of open space a column needs above its ground; half of the columns without it
+    // makes a chunk unsuitable
+    private static final int HEADROOM = 4;
+    private static final int MAX_COVERED_COLUMNS = COLUMNS / 2;
+    
+    private TerrainScorer() {
+    }
+    
+    /**
+     * Scores a chunk snapshot that includes block data, the heightmap and biomes
+     */
+    public static ChunkTerrain score(ChunkSnapshot snapshot, int minHeight, int maxHeight, long now) {
+        int[] groundY = new int[COLUMNS];
+        int[] heights = new int[COLUMNS];
+        int groundColumns = 0;
+        int fluidColumns = 0;
+        int canopyColumns = 0;
+        int coveredColumns = 0;
+        boolean lava = false;
+        
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                int column = x << 4 | z;
+                groundY[column] = NO_GROUND;
+                
+                int y = snapshot.getHighestBlockYAt(x, z);
+                if (y < minHeight) {
+                    continue;
+                }
+                Material type = snapshot.getBlockType(x, y, z);
+                
+                // The heightmap stops at leaves; the dungeon goes on the ground below them
+                if (isCanopy(type)) {
+                    canopyColumns++;
+                    while (y > minHeight && (isCanopy(type) || type.isAir())) {
+                        type = snapshot.getBlockType(x, --y, z);
+                    }
+                }
+                
+                if (type == Material.LAVA) {
+                    lava = true;
+                }
+                if (isFluid(type)) {
+                    fluidColumns++;
+                    continue;
+                }
+                if (type.isAir()) {
+                    continue;
+                }
+                
+                groundY[column] = y + 1;
+                heights[groundColumns++] = y + 1;
+                if (!hasHeadroom(snapshot, x, y + 1, z, maxHeight)) {
+                    coveredColumns++;
+                }
+            }
+        }
+        
+        if (lava || groundColumns < COLUMNS / 2 || fluidColumns >= MAX_FLUID_COLUMNS || coveredColumns >= MAX_COVERED_COLUMNS
+                || isWaterBiome(snapshot, minHeight)) {
+            return new ChunkTerrain(groundY, UNSUITABLE, now);
+        }
+        
+        Arrays.sort(heights, 0, groundColumns);
+        int spread = heights[groundColumns * 9 / 10] - heights[groundColumns / 10];
+        if (spread >= CLIFF_SPREAD) {
+            return new ChunkTerrain(groundY, UNSUITABLE, now);
+        }
+        
+        int penalty = Math.max(0, spread - FLAT_SPREAD) * MAX_SCORE / (CLIFF_SPREAD - FLAT_SPREAD)
+            + fluidColumns * MAX_SCORE / MAX_FLUID_COLUMNS
+            + canopyColumns * CANOPY_PENALTY / COLUMNS
+            + coveredColumns * MAX_SCORE / MAX_COVERED_COLUMNS;
+        return new ChunkTerrain(groundY, Math.max(UNSUITABLE, MAX_SCORE - penalty), now);
+    }
+    
+    /**
+     * Checks that nothing solid hangs within HEADROOM blocks above the ground, like low leaves
+     * over a forest floor; grass and flowers don't count
+     */
+    private static boolean hasHeadroom(ChunkSnapshot snapshot, int x, int groundY, int z, int maxHeight) {
+        int top = Math.min(groundY + HEADROOM, maxHeight);
+        for (int y = groundY; y < top; y++) {
+            if (snapshot.getBlockType(x, y, z).isSolid()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean isCanopy(Material type) {
+        return Tag.LEAVES.isTagged(type) || Tag.LOGS.isTagged(type);
+    }
+    
+    // The heightmap also stops at water plants, which always stand in water
+    private static boolean isFluid(Material type) {
+        return switch (type) {
+            case WATER, LAVA, BUBBLE_COLUMN, KELP, KELP_PLANT, SEAGRASS, TALL_SEAGRASS -> true;
+            default -> false;
+        };
+    }
+    
+    /**
+     * Checks the biome at the middle of the chunk; ocean and river floors are not worth a dungeon
+     */
+    private static boolean isWaterBiome(ChunkSnapshot snapshot, int minHeight) {
+        int y = Math.max(minHeight, snapshot.getHighestBlockYAt(8, 8));
+        Biome biome = snapshot.getBiome(8, y, 8);
+        String name = biome.getKey().getKey().toLowerCase(Locale.ROOT);
+        return name.contains("ocean") || name.contains("river");
+    }
+    
+    /**
+     * The scored ground of one chunk
+     */
+    public static final class ChunkTerrain {
+        private final int[] groundY;
+        private final int score;
+        private final long scoredAt;
+        
+        private ChunkTerrain(int[] groundY, int score, long scoredAt) {
+            this.groundY = groundY;
+            this.score = score;
+            this.scoredAt = scoredAt;
+        }
+        
+        /**
+         * Gets the y a dungeon would be placed at in a column, or NO_GROUND
+         */
+        public int getGroundY(int localX, int localZ) {
+            return groundY[(localX & 15) << 4 | (localZ & 15)];
+        }
+        
+        public int getScore() {
+            return score;
+        }
+        
+        public long getScoredAt() {
+            return scoredAt;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.regex.Pattern;
 public class TimeUtils {
     
     private static final Pattern TIME_PATTERN = Pattern.compile("(\\d+)([dhms])");
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\s*\\d+[dhms])+\\s*");
     
     public static long parseTimeToMillis(String timeStr) {
         if (timeStr == null || timeStr.isEmpty()) {
@@ -38,6 +39,14 @@ public class TimeUtils {
         return totalMillis;
     }
     
+    /**
+     * Checks that a duration is made only of number and unit pairs like "10s" or "1h 30m".
+     * parseTimeToMillis skips anything else, so "10x" or "10 s" would quietly become 0.
+     */
+    public static boolean isValidDuration(String timeStr) {
+        return timeStr != null && DURATION_PATTERN.matcher(timeStr.toLowerCase()).matches();
+    }
+    
     public static long parseTimeToTicks(String timeStr) {
         return parseTimeToMillis(timeStr) / 50; // 20 ticks per second = 50ms per tick
     }